@@ -1,16 +1,50 @@
 package program;
 
+import program.classification.Classifier;
+import program.classification.ClassifierGenerator;
+import program.classification.DecisionTable;
+import program.persistence.BinaryTreeLoader;
+import program.persistence.BinaryTreeWriter;
+import program.persistence.EnumeratedTreeLoader;
+import program.persistence.IndexedTreeWriter;
+import program.persistence.LearningJournal;
+import program.persistence.MappedBinaryTree;
+import program.persistence.TreeFormat;
+import program.structures.AncestryIndex;
+import program.structures.BinaryTree;
 import program.structures.Node;
+import program.structures.TreeStatistics;
+import program.structures.impl.ConcurrentLinkedBinaryTree;
 import program.structures.impl.LinkedBinaryTree;
+import program.structures.impl.PersistentBinaryTree;
 import program.traversals.BreadthFirstTraversal;
-import program.traversals.InOrderTraversal;
+import program.traversals.commands.BinarySaveCommand;
 import program.traversals.commands.EnumeratedSaveCommand;
-import program.traversals.commands.EnumerationCommand;
+import program.traversals.commands.IndexedSaveCommand;
+import program.traversals.commands.InOrderEnumerationCommand;
 
 import java.io.*;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 /**
  * A very simple classification tree example using a BinaryTree and console
@@ -19,132 +53,904 @@ import java.util.Scanner;
  */
 public class ClassificationTree {
 
-    private LinkedBinaryTree<Datum> tree;
+    /**
+     * Size in bytes the learning journal may reach before it is folded into
+     * a new snapshot in the background.
+     */
+    public static final long COMPACTION_THRESHOLD = 1 << 20;
+
+    private final BinaryTree<Datum> tree;
+    private final AtomicReference<Classifier> classifier = new AtomicReference<>();
+    private volatile boolean generateClassifiers;
+    private Scanner console;
+    private final Path snapshot;
+    private final TreeFormat snapshotFormat;
+    private final LearningJournal journal;
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+    private final Object saveLock = new Object();
+    private final LearningQueue learning;
+    private volatile KnownAnimals knownAnimals;
+    private volatile PromptIndex promptIndex;
+    private volatile AncestryIndex<Datum> ancestry;
+    private final AtomicLong learnCount = new AtomicLong();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "classification-tree-background");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Constructs a new Animal tree class which manages an underlying animal
-     * tree
+     * tree. The tree is a ConcurrentLinkedBinaryTree, so that sessions may walk
+     * it while other sessions learn; a file in the indexed format is served
+     * from a MappedBinaryTree, which reads nodes from the file as they are
+     * first visited instead of copying the whole file at startup.
      */
     public ClassificationTree(String fileName) throws IOException {
-        tree = new LinkedBinaryTree<>();
+        this(fileName, treeFor(Paths.get(fileName)));
+    }
+
+    private static BinaryTree<Datum> treeFor(Path path) throws IOException {
+        if (Files.isRegularFile(path) && TreeFormat.detect(path) == TreeFormat.INDEXED) {
+            return new MappedBinaryTree();
+        }
+        return new ConcurrentLinkedBinaryTree<>();
+    }
+
+    /**
+     * Constructs a new Animal tree class which manages the provided, empty,
+     * binary tree implementation and loads it from the given file. Animals
+     * learned since the file was last saved are then replayed from its
+     * journal, which is kept next to the file with a ".journal" suffix.
+     *
+     * @param fileName name of the file to load
+     * @param tree the empty tree to load the animals into
+     * @throws IOException
+     */
+    public ClassificationTree(String fileName, BinaryTree<Datum> tree) throws IOException {
+        if (tree == null) {
+            throw new IllegalArgumentException("Tree cannot be null.");
+        }
+        this.tree = tree;
         tryLoad(fileName);
+        snapshot = Paths.get(fileName);
+        snapshotFormat = Files.exists(snapshot) ? TreeFormat.detect(snapshot) : TreeFormat.TEXT;
+        journal = new LearningJournal(Paths.get(fileName + ".journal"));
+        replay();
+        learning = new LearningQueue(this);
     }
 
     /**
-     * Main method which controls the identification and tree management loop.
-     */
-    public void identify() throws FileNotFoundException {
-        LinkedBinaryTree.BinaryTreeNode<Datum> currentNode = (LinkedBinaryTree.BinaryTreeNode<Datum>) tree.root();
-        identify(currentNode);
-    }
-
-    public void identify(Node<Datum> nextNode) throws FileNotFoundException {
-        LinkedBinaryTree.BinaryTreeNode<Datum> currentNode = (LinkedBinaryTree.BinaryTreeNode<Datum>) nextNode;
-        System.out.println("Is this animal " + currentNode.getElement().getPrompt() + "? (Y/N) > ");
-        String answer;
-        Scanner in = new Scanner(System.in);
-        answer = in.next().toUpperCase();
-
-        if (answer.equals("N")) {
-            if (currentNode.getRight() == null) {
-                System.out.println("I don't know about an animal with these characteristics that isn't " + currentNode.getElement().getPrompt() + ".");
-                System.out.println("What is the new animal? >");
-                String newAnimal = in.next();
-                System.out.println(("What characteristic does a " + newAnimal + " have that " + currentNode.getElement().getPrompt() + " does not? >"));
-                String newCharacteristic = in.next();
-                tree.addRight(currentNode, new Datum(currentNode.getElement().getPrompt()));
-                tree.addLeft(currentNode, new Datum("a " + newAnimal));
-                currentNode.setElement(new Datum(newCharacteristic));
-                System.out.println("Do you have another animal to identify? (Y/N) > ");
-                answer = in.next().toUpperCase();
-
-                if (answer.equals("Y")) {
-                    identify();
-                } else {
-                    System.out.println("Enter a file name to save the tree to > ");
-                    String fileName;
-                    fileName = in.next();
-                    save(fileName);
-                    System.exit(0);
-                }
-            } else {
-                currentNode = currentNode.getRight();
-                identify(currentNode);
-            }
-        } else if (answer.equals("Y")) {
-            if (currentNode.getLeft() == null) {
-                if (answer.equals("Y")) {
-                    System.out.println("Found your animal!");
-                    System.out.println("Do you have another animal to identify? (Y/N) > ");
-                    answer = in.next().toUpperCase();
-
-                    if (answer.equals("Y")) {
-                        identify();
-                    } else {
-                        System.out.println("Enter a file name to save the tree to > ");
-                        String fileName;
-                        fileName = in.next();
-                        save(fileName);
-                        System.exit(0);
+     * Main method which controls the identification and tree management loop,
+     * reading answers from the console.
+     */
+    public void identify() throws IOException {
+        identify(tree.root());
+    }
+
+    /**
+     * Runs the identification loop on the console, starting at the provided
+     * node.
+     *
+     * @param nextNode Node to ask about first.
+     * @throws IOException If learning an animal or saving the tree fails.
+     */
+    public void identify(Node<Datum> nextNode) throws IOException {
+        identify(console(), nextNode);
+    }
+
+    /**
+     * Runs the identification loop, reading answers from the provided
+     * scanner, and returns once the user has saved the tree or the input
+     * ends. The same scanner should be used for all input, since each
+     * scanner buffers input ahead of what it has returned.
+     *
+     * @param in Scanner to read answers from.
+     * @throws IOException If learning an animal or saving the tree fails.
+     */
+    public void identify(Scanner in) throws IOException {
+        identify(in, tree.root());
+    }
+
+    private void identify(Scanner in, Node<Datum> start) throws IOException {
+        IdentificationSession session = new IdentificationSession(this, start);
+        while (session.getState() != IdentificationSession.State.DONE) {
+            System.out.println(session.getPrompt());
+            if (!in.hasNext()) {
+                return;
+            }
+            String message = session.answer(in.next());
+            if (message != null) {
+                System.out.println(message);
+            }
+        }
+    }
+
+    private synchronized Scanner console() {
+        if (console == null) {
+            console = new Scanner(System.in);
+        }
+        return console;
+    }
+
+    /**
+     * @return The tree being managed, for sessions to walk.
+     */
+    BinaryTree<Datum> tree() {
+        return tree;
+    }
+
+    /**
+     * Classifies an animal from its answers without any console input or
+     * output. The answer at index i is the answer to the i-th question asked,
+     * true for yes (left) and false for no (right). Classification runs from
+     * a DecisionTable compiled from the tree, which is compiled again the
+     * first time it is needed after the tree learns a new animal, or from a
+     * generated classifier if setGenerateClassifiers has been enabled.
+     *
+     * @param answers Answers to the questions from the root down.
+     * @return The datum of the leaf the answers lead to, or of the last node
+     * reached if they lead to a missing child.
+     * @throws IllegalArgumentException If the answers run out before a leaf
+     * is reached.
+     * @throws IllegalStateException If the tree is empty.
+     */
+    public Datum classify(boolean[] answers) {
+        return classifier().classify(answers);
+    }
+
+    /**
+     * Classifies an animal from its answers without any console input or
+     * output. Bit i is the answer to the i-th question asked, set for yes
+     * (left) and clear for no (right), so missing answers count as no.
+     *
+     * @param answers Answers to the questions from the root down.
+     * @return The datum of the leaf the answers lead to, or of the last node
+     * reached if they lead to a missing child.
+     * @throws IllegalStateException If the tree is empty.
+     */
+    public Datum classify(BitSet answers) {
+        return classifier().classify(answers);
+    }
+
+    /**
+     * Classifies many animals in parallel from the same decision table, so
+     * animals learned while this runs are not seen.
+     *
+     * @param answers One answer vector per animal, as for classify.
+     * @return The datum each answer vector leads to, in the same order.
+     * @throws IllegalArgumentException If any answer vector runs out before a
+     * leaf is reached.
+     */
+    public Datum[] classifyAll(boolean[][] answers) {
+        Classifier current = classifier();
+        Datum[] results = new Datum[answers.length];
+        IntStream.range(0, answers.length).parallel().forEach(i -> results[i] = current.classify(answers[i]));
+        return results;
+    }
+
+    /**
+     * Classifies many animals in parallel from the same decision table, so
+     * animals learned while this runs are not seen.
+     *
+     * @param answers One answer bit set per animal, as for classify.
+     * @return The datum each answer bit set leads to, in the same order.
+     */
+    public Datum[] classifyAll(BitSet[] answers) {
+        Classifier current = classifier();
+        Datum[] results = new Datum[answers.length];
+        IntStream.range(0, answers.length).parallel().forEach(i -> results[i] = current.classify(answers[i]));
+        return results;
+    }
+
+    /**
+     * Turns generated classifiers on or off. While on, every time the
+     * decision table is compiled a classifier specialised to it is generated
+     * and compiled in the background, and classification switches to it once
+     * it is ready. Until then, or if it cannot be generated, the decision
+     * table is used. Generation only pays off for trees which are classified
+     * many times between changes.
+     *
+     * @param enabled True to generate classifiers.
+     */
+    public void setGenerateClassifiers(boolean enabled) {
+        generateClassifiers = enabled;
+        classifier.set(null);
+    }
+
+    /**
+     * @return The classifier for the tree, compiling a new decision table if
+     * the tree has changed since the last one was compiled.
+     */
+    private Classifier classifier() {
+        Classifier current = classifier.get();
+        if (current == null) {
+            synchronized (this) {
+                current = classifier.get();
+                if (current == null) {
+                    DecisionTable table = DecisionTable.compile(tree);
+                    classifier.set(table);
+                    current = table;
+                    if (generateClassifiers && ClassifierGenerator.isAvailable()
+                            && table.size() <= ClassifierGenerator.MAX_NODES) {
+                        try {
+                            ClassifierGenerator.generateAsync(table, background).whenComplete((generated, e) -> {
+                                if (generated != null) {
+                                    classifier.compareAndSet(table, generated);
+                                } else {
+                                    System.err.println("Could not generate a classifier: " + e.getMessage());
+                                }
+                            });
+                        } catch (RejectedExecutionException e) {
+                            // closed; keep classifying from the table
+                        }
                     }
                 }
-            } else {
-                currentNode = currentNode.getLeft();
-                identify(currentNode);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Learns a new animal at the provided leaf: the leaf's animal moves to a
+     * new right child, the new animal becomes the left child and the leaf
+     * takes the characteristic which tells them apart. The learn is handed to
+     * the tree's single writer thread, which applies it and appends it to the
+     * journal, and this returns once the journal entry is synced to disk,
+     * instead of the whole tree being saved; once the journal has grown past
+     * COMPACTION_THRESHOLD it is folded into a new snapshot in the background.
+     *
+     * @param node Leaf the new animal was mistaken for.
+     * @param animal The new animal.
+     * @param characteristic What the new animal has that the leaf's does not.
+     * @throws IOException If the journal cannot be written.
+     * @throws IllegalArgumentException If the node is invalid or not a leaf,
+     * which is also the case if another session learned an animal at it first.
+     */
+    public void learn(Node<Datum> node, String animal, String characteristic) throws IOException {
+        await(learnAsync(pathTo(node), animal, characteristic));
+    }
+
+    /**
+     * Learns a new animal at the leaf the provided answers lead to.
+     *
+     * @param path Answers leading from the root to the leaf, as Y for yes and
+     * N for no.
+     * @param animal The new animal.
+     * @param characteristic What the new animal has that the leaf's does not.
+     * @throws IOException If the journal cannot be written.
+     * @throws IllegalArgumentException If the answers do not lead to a leaf.
+     * @see #learn(Node, String, String)
+     */
+    public void learn(String path, String animal, String characteristic) throws IOException {
+        await(learnAsync(path, animal, characteristic));
+    }
+
+    /**
+     * Queues a new animal to be learned at the leaf the provided answers lead
+     * to, without waiting for it. Learns are applied in the order they are
+     * queued, in batches which share one journal sync.
+     *
+     * @param path Answers leading from the root to the leaf, as Y for yes and
+     * N for no.
+     * @param animal The new animal.
+     * @param characteristic What the new animal has that the leaf's does not.
+     * @return Completes once the animal is learned and journalled, or with the
+     * IllegalArgumentException or IOException which stopped it.
+     * @throws IllegalArgumentException If the answers are not all Y or N.
+     * @throws IllegalStateException If the tree has been closed.
+     */
+    public CompletableFuture<Void> learnAsync(String path, String animal, String characteristic) {
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) != 'Y' && path.charAt(i) != 'N') {
+                throw new IllegalArgumentException("Answers must be Y or N.");
+            }
+        }
+        if (animal == null || characteristic == null) {
+            throw new IllegalArgumentException("Animal and characteristic cannot be null.");
+        }
+        return learning.submit(path, animal, characteristic);
+    }
+
+    private static void await(CompletableFuture<Void> learned) throws IOException {
+        try {
+            learned.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the animal to be learned");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalArgumentException) {
+                throw new IllegalArgumentException(cause.getMessage(), cause);
+            } else if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Applies a learn and appends it to the journal, without syncing the
+     * journal. Called by the writer thread while holding this tree's lock.
+     *
+     * @return Sequence number of the journal entry.
+     * @throws IllegalArgumentException If the answers do not lead to a leaf,
+     * or the animal is already known.
+     * @throws IOException If the journal cannot be written.
+     */
+    long applyLearn(String path, String animal, String characteristic) throws IOException {
+        Node<Datum> node = nodeAt(path);
+        if (node == null) {
+            throw new IllegalArgumentException("The answers lead off the tree.");
+        }
+        if (!tree.isExternal(node)) {
+            throw new IllegalArgumentException("Can only learn at a leaf.");
+        }
+        KnownAnimals known = knownAnimals();
+        if (known.find(animal) != null) {
+            throw new IllegalArgumentException("The animal is already known.");
+        }
+        PromptIndex prompts = promptIndex();
+        long sequence = journal.append(path, animal, characteristic);
+        prompts.remove(node, true);
+        apply(node, animal, characteristic);
+        classifier.set(null);
+        node = nodeAt(path);
+        recordAncestry(node);
+        learnCount.incrementAndGet();
+        known.put(tree.left(node));
+        known.put(tree.right(node));
+        prompts.add(node, false);
+        prompts.add(tree.left(node), true);
+        prompts.add(tree.right(node), true);
+        return sequence;
+    }
+
+    /**
+     * Records the two leaves just grafted below the node in the ancestry
+     * index, in constant time, instead of dropping the index. Only a
+     * ConcurrentLinkedBinaryTree grafts in place; the nodes of other trees
+     * may be replaced by a learn, so their index is dropped and built again
+     * when next needed, as it is once recorded leaves have degraded it.
+     */
+    private void recordAncestry(Node<Datum> node) {
+        AncestryIndex<Datum> index = ancestry;
+        if (index == null) {
+            return;
+        }
+        if (tree instanceof ConcurrentLinkedBinaryTree && index.contains(node) && !index.isDegraded()) {
+            index.addLeaf(node, tree.left(node));
+            index.addLeaf(node, tree.right(node));
+        } else {
+            ancestry = null;
+        }
+    }
+
+    /**
+     * @return The index of known animals, built the first time it is needed
+     * after the tree was loaded.
+     */
+    private KnownAnimals knownAnimals() {
+        KnownAnimals known = knownAnimals;
+        if (known == null) {
+            synchronized (this) {
+                known = knownAnimals;
+                if (known == null) {
+                    known = new KnownAnimals(tree);
+                    knownAnimals = known;
+                }
+            }
+        }
+        return known;
+    }
+
+    /**
+     * @return The index of prompts, built the first time it is needed after
+     * the tree was loaded.
+     */
+    private PromptIndex promptIndex() {
+        PromptIndex prompts = promptIndex;
+        if (prompts == null) {
+            synchronized (this) {
+                prompts = promptIndex;
+                if (prompts == null) {
+                    prompts = new PromptIndex(tree);
+                    promptIndex = prompts;
+                }
+            }
+        }
+        return prompts;
+    }
+
+    /**
+     * Lists known animals starting with the provided prefix, for completing
+     * an animal as it is typed. A leading article and case are ignored.
+     *
+     * @param prefix What has been typed so far.
+     * @param limit Largest number of animals to return.
+     * @return Leaves holding matching animals, in order of prompt.
+     */
+    public List<Node<Datum>> completeAnimal(String prefix, int limit) {
+        return promptIndex().animals(prefix, limit);
+    }
+
+    /**
+     * Lists characteristics starting with the provided prefix, for
+     * completing a characteristic as it is typed. Case is ignored.
+     *
+     * @param prefix What has been typed so far.
+     * @param limit Largest number of characteristics to return.
+     * @return Internal nodes holding matching characteristics, in order of
+     * prompt.
+     */
+    public List<Node<Datum>> completeCharacteristic(String prefix, int limit) {
+        return promptIndex().characteristics(prefix, limit);
+    }
+
+    /**
+     * Lists the nodes whose prompts mention a word starting with the provided
+     * prefix, so that "fur" finds "furry" and "has fur". Case is ignored.
+     *
+     * @param word The word or start of a word.
+     * @param limit Largest number of nodes to return.
+     * @return Matching animals and characteristics, in order of the word.
+     */
+    public List<Node<Datum>> findMentions(String word, int limit) {
+        return promptIndex().mentioning(word, limit);
+    }
+
+    /**
+     * Finds the leaf holding an animal, ignoring case, extra spaces and a
+     * leading article, in constant time once the index of known animals has
+     * been built.
+     *
+     * @param animal The animal to look for.
+     * @return The leaf holding the animal, or null if it is not known.
+     */
+    public Node<Datum> findAnimal(String animal) {
+        return knownAnimals().find(animal);
+    }
+
+    /**
+     * Returns the ancestry index of the tree, which learns keep up to date,
+     * building it if a learn has dropped it. A tree which may be read while
+     * it learns is walked without holding the lock learns are applied under,
+     * so the writer carries on meanwhile, and the index is kept only if no
+     * learn was applied during the walk; otherwise, and for other trees, it
+     * is built holding the lock.
+     *
+     * @return The ancestry index, holding every node of the tree.
+     */
+    private AncestryIndex<Datum> ancestry() {
+        AncestryIndex<Datum> index = ancestry;
+        if (index == null) {
+            long learned = learnCount.get();
+            AncestryIndex<Datum> built = null;
+            if (tree instanceof ConcurrentLinkedBinaryTree || tree instanceof PersistentBinaryTree) {
+                built = new AncestryIndex<>(tree);
+            }
+            synchronized (this) {
+                index = ancestry;
+                if (index == null) {
+                    index = built != null && learnCount.get() == learned ? built : new AncestryIndex<>(tree);
+                    ancestry = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Finds the question which separates two known animals: the lowest node
+     * above both of them, answered yes for one and no for the other.
+     *
+     * @param animal One animal.
+     * @param other Another animal.
+     * @return The separating question, or null if either animal is not known
+     * or they are the same animal.
+     */
+    public Node<Datum> separatingQuestion(String animal, String other) {
+        Node<Datum> a = findAnimal(animal);
+        Node<Datum> b = findAnimal(other);
+        if (a == null || b == null || a.equals(b)) {
+            return null;
+        }
+        return lowestCommonAncestor(a, b);
+    }
+
+    /**
+     * Finds the lowest node which is an ancestor of both provided nodes, in
+     * O(log n) from an ancestry index of the tree.
+     *
+     * @param a A node of the tree.
+     * @param b Another node of the tree.
+     * @return The lowest common ancestor.
+     * @throws IllegalArgumentException If either node is not in the tree.
+     */
+    public Node<Datum> lowestCommonAncestor(Node<Datum> a, Node<Datum> b) {
+        return askAncestry(a, b, AncestryIndex::lowestCommonAncestor);
+    }
+
+    /**
+     * Tests whether a node is under a question, in constant time from an
+     * ancestry index of the tree. A node counts as under itself.
+     *
+     * @param node A node of the tree.
+     * @param question The question, or any other node of the tree.
+     * @return True if the node is in the subtree of the question.
+     * @throws IllegalArgumentException If either node is not in the tree.
+     */
+    public boolean isUnder(Node<Datum> node, Node<Datum> question) {
+        return askAncestry(question, node, AncestryIndex::isAncestor);
+    }
+
+    /**
+     * A question about two nodes answered from an ancestry index.
+     */
+    private interface AncestryQuestion<T> {
+
+        T ask(AncestryIndex<Datum> index, Node<Datum> a, Node<Datum> b);
+    }
+
+    /**
+     * Answers a question about two nodes from the ancestry index, as they are
+     * now. The index and the nodes are looked up without locking, so a learn
+     * in between can leave a node out of the index; the question is then
+     * asked again holding the lock learns are applied under, with the index
+     * rebuilt if the learn dropped it, so that both are of the same tree.
+     */
+    private <T> T askAncestry(Node<Datum> a, Node<Datum> b, AncestryQuestion<T> question) {
+        AncestryIndex<Datum> index = ancestry();
+        Node<Datum> x = current(a);
+        Node<Datum> y = current(b);
+        if (index.contains(x) && index.contains(y)) {
+            return question.ask(index, x, y);
+        }
+        synchronized (this) {
+            return question.ask(ancestry(), current(a), current(b));
+        }
+    }
+
+    /**
+     * Returns the answers which identify an animal, found by following parent
+     * links up from its leaf.
+     *
+     * @param animal The animal to look for.
+     * @return The answers leading from the root to the animal, as Y for yes
+     * and N for no, or null if it is not known.
+     */
+    public String pathToAnimal(String animal) {
+        Node<Datum> leaf = findAnimal(animal);
+        return leaf == null ? null : pathTo(leaf);
+    }
+
+    /**
+     * Syncs the journal up to the provided entry and starts a compaction if
+     * it has grown too large. Called by the writer thread after each batch.
+     *
+     * @param sequence Sequence number of the last entry of the batch.
+     * @throws IOException If the journal cannot be synced.
+     */
+    void commitLearns(long sequence) throws IOException {
+        journal.sync(sequence);
+        if (journal.size() >= COMPACTION_THRESHOLD && compactionPending.compareAndSet(false, true)) {
+            background.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    System.err.println("Could not compact the journal: " + e.getMessage());
+                } finally {
+                    compactionPending.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Turns the leaf into a question with the new animal below it on the left,
+     * as "a " and the animal without any article it was typed with, so that
+     * "dog" and "a dog" are both stored as "a dog".
+     */
+    private void apply(Node<Datum> node, String animal, String characteristic) {
+        String prompt = "a " + KnownAnimals.withoutArticle(animal);
+        if (tree instanceof PersistentBinaryTree) {
+            ((PersistentBinaryTree<Datum>) tree).graft(node, new Datum(characteristic),
+                    new Datum(prompt), new Datum(node.getElement().getPrompt()));
+            return;
+        }
+        if (tree instanceof ConcurrentLinkedBinaryTree) {
+            ((ConcurrentLinkedBinaryTree<Datum>) tree).graft(node, new Datum(characteristic),
+                    new Datum(prompt), new Datum(node.getElement().getPrompt()));
+            return;
+        }
+        tree.addRight(node, new Datum(node.getElement().getPrompt()));
+        tree.addLeft(node, new Datum(prompt));
+        node.setElement(new Datum(characteristic));
+    }
+
+    /**
+     * Returns the provided node as it is now. The nodes of a
+     * PersistentBinaryTree belong to the version they were read from, so a
+     * node held across a change is looked up again in the current version.
+     * Nodes of other trees are returned by validate as they are; a position
+     * of a CompactBinaryTree leaf which learning has promoted reads the
+     * internal node which took its place.
+     *
+     * @param node A node of the tree.
+     * @return The node at the same place in the current tree.
+     * @throws IllegalArgumentException If the node is invalid.
+     */
+    Node<Datum> current(Node<Datum> node) {
+        if (tree instanceof PersistentBinaryTree) {
+            return ((PersistentBinaryTree<Datum>) tree).current(node);
+        }
+        return tree.validate(node);
+    }
+
+    /**
+     * @return The answers leading from the root to the provided node, as Y
+     * for left and N for right.
+     */
+    private String pathTo(Node<Datum> node) {
+        StringBuilder path = new StringBuilder();
+        for (Node<Datum> parent = tree.parent(node); parent != null; node = parent, parent = tree.parent(node)) {
+            path.append(node.equals(tree.left(parent)) ? 'Y' : 'N');
+        }
+        return path.reverse().toString();
+    }
+
+    /**
+     * @return The node the provided answers lead to, as Y for left and N for
+     * right, or null if they lead off the tree.
+     */
+    private Node<Datum> nodeAt(String path) {
+        Node<Datum> node = tree.root();
+        for (int i = 0; i < path.length() && node != null; i++) {
+            node = path.charAt(i) == 'Y' ? tree.left(node) : tree.right(node);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the shape of the tree: how many animals and questions it holds,
+     * its height and how many questions identifying an animal takes on
+     * average. Linked and persistent trees maintain these as they learn, so
+     * this takes constant time once the nodes changed since the last call
+     * have been measured; a tree mapped from an indexed file is walked.
+     *
+     * @return Statistics of the whole tree.
+     */
+    public synchronized TreeStatistics statistics() {
+        return tree.isEmpty() ? TreeStatistics.EMPTY : tree.statistics(tree.root());
+    }
+
+    /**
+     * @return A new identification session starting at the root of the tree,
+     * which ends once the user has no more animals instead of asking for a
+     * file to save the tree to.
+     * @throws IllegalArgumentException If the tree is empty.
+     */
+    public IdentificationSession newSession() {
+        return new IdentificationSession(this, tree.root(), false);
+    }
+
+    /**
+     * Applies the journal to the loaded tree. An entry whose node is no
+     * longer a leaf is already part of the snapshot, which happens if the
+     * program stopped between saving a snapshot and emptying the journal, and
+     * is skipped.
+     */
+    private void replay() throws IOException {
+        for (LearningJournal.Entry entry : journal.replay()) {
+            Node<Datum> node = nodeAt(entry.getPath());
+            if (node != null && tree.isExternal(node)) {
+                apply(node, entry.getAnimal(), entry.getCharacteristic());
             }
         }
     }
 
     /**
-     * Saves a tree to a file.
+     * Saves the tree over the file it was loaded from, in the format it was
+     * loaded in, and empties the journal.
+     *
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public void compact() throws IOException {
+        save(snapshot.toString(), snapshotFormat);
+    }
+
+    /**
+     * Finishes the queued learns, stops the writer and background threads,
+     * closes the journal and, if the tree is mapped from a file, drops the
+     * mapping.
+     *
+     * @throws IOException If the journal cannot be closed.
+     */
+    public void close() throws IOException {
+        learning.close();
+        background.shutdown();
+        try {
+            journal.close();
+        } finally {
+            if (tree instanceof Closeable) {
+                ((Closeable) tree).close();
+            }
+        }
+    }
+
+    /**
+     * Saves a tree to a file in the text format. The nodes are numbered in
+     * order and written in breadth first order during a single traversal.
      */
     public void save(String fileName) throws FileNotFoundException {
+        save(fileName, TreeFormat.TEXT);
+    }
+
+    /**
+     * Saves a tree to a file in the given format. The tree is written to a
+     * temporary file which then replaces the named file, so a failed save
+     * leaves the old file intact and a file mapped by a MappedBinaryTree is
+     * never overwritten in place. The file is synced to disk before
+     * it replaces the old one, and saving over the file the tree was loaded
+     * from drops the saved changes from the journal, since the snapshot now
+     * holds them.
+     *
+     * A PersistentBinaryTree is saved from a snapshot of its current version,
+     * so animals can be learned while the save runs; they stay in the
+     * journal. Any other tree is copied while holding the lock learns are
+     * applied under, which takes time in proportion to its size, and the copy
+     * is then written and synced without it, so learns, statistics and
+     * classifiers wait for the copy but not for the disk.
+     *
+     * @param fileName name of the file to save to
+     * @param format format to write
+     * @throws FileNotFoundException If the file cannot be written.
+     */
+    public void save(String fileName, TreeFormat format) throws FileNotFoundException {
+        synchronized (saveLock) {
+            if (tree instanceof PersistentBinaryTree) {
+                BinaryTree<Datum> version;
+                long journalled;
+                synchronized (this) {
+                    version = ((PersistentBinaryTree<Datum>) tree).snapshot();
+                    journalled = journal.size();
+                }
+                save(version, journalled, fileName, format);
+            } else {
+                BinaryTree<Datum> copy;
+                long journalled;
+                synchronized (this) {
+                    copy = copyOf(tree);
+                    journalled = journal.size();
+                }
+                save(copy, journalled, fileName, format);
+            }
+        }
+    }
+
+    /**
+     * @return A LinkedBinaryTree holding copies of the provided tree's data,
+     * which saving may number without touching the tree.
+     */
+    private static BinaryTree<Datum> copyOf(BinaryTree<Datum> tree) {
+        LinkedBinaryTree<Datum> copy = new LinkedBinaryTree<>();
+        if (tree.isEmpty()) {
+            return copy;
+        }
+        Deque<Node<Datum>> nodes = new ArrayDeque<>();
+        Deque<Node<Datum>> copies = new ArrayDeque<>();
+        nodes.add(tree.root());
+        copies.add(copy.setRoot(copyOf(tree.root().getElement())));
+        while (!nodes.isEmpty()) {
+            Node<Datum> node = nodes.poll();
+            Node<Datum> parent = copies.poll();
+            Node<Datum> left = tree.left(node);
+            Node<Datum> right = tree.right(node);
+            if (left != null) {
+                nodes.add(left);
+                copies.add(copy.addLeft(parent, copyOf(left.getElement())));
+            }
+            if (right != null) {
+                nodes.add(right);
+                copies.add(copy.addRight(parent, copyOf(right.getElement())));
+            }
+        }
+        return copy;
+    }
+
+    private static Datum copyOf(Datum datum) {
+        Datum copy = new Datum(datum.getPrompt(), datum.getNumber());
+        copy.setSide(datum.getSide());
+        return copy;
+    }
+
+    /**
+     * Saves the provided tree, which holds the first journalled bytes of the
+     * journal.
+     */
+    private void save(BinaryTree<Datum> tree, long journalled, String fileName, TreeFormat format) throws FileNotFoundException {
+        Path target = Paths.get(fileName);
+        Path temp = Paths.get(fileName + ".tmp");
+        BreadthFirstTraversal<Datum> bft = new BreadthFirstTraversal<>(tree);
+        bft.addCommand(new InOrderEnumerationCommand(tree));
         try {
-            PrintWriter writer = new PrintWriter(fileName);
-            EnumeratedSaveCommand saveCommand = new EnumeratedSaveCommand(writer);
-            EnumerationCommand enumerationCommand = new EnumerationCommand();
-            InOrderTraversal iot = new InOrderTraversal(tree);
-            Iterable<Node<Datum>> nodeVisits = iot.traverse();
-            for (Node n : nodeVisits) {
-                enumerationCommand.execute(tree, n);
-            }
-            BreadthFirstTraversal bft = new BreadthFirstTraversal(tree);
-            Iterable<Node<Datum>> nodesSaves = bft.traverse();
-            for (Node n : nodesSaves) {
-                saveCommand.execute(tree, n);
+            if (format == TreeFormat.BINARY) {
+                try (BinaryTreeWriter writer = new BinaryTreeWriter(temp)) {
+                    bft.addCommand(new BinarySaveCommand(writer));
+                    bft.execute();
+                }
+            } else if (format == TreeFormat.INDEXED) {
+                try (IndexedTreeWriter writer = new IndexedTreeWriter(temp, tree.size())) {
+                    bft.addCommand(new IndexedSaveCommand(writer));
+                    bft.execute();
+                }
+            } else {
+                try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(temp.toFile()), 1 << 16))) {
+                    bft.addCommand(new EnumeratedSaveCommand(writer));
+                    bft.execute();
+                    if (writer.checkError()) {
+                        throw new IOException("Could not write " + fileName);
+                    }
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (target.toAbsolutePath().equals(snapshot.toAbsolutePath())) {
+                journal.discard(journalled);
             }
         } catch (IOException e) {
-            throw new FileNotFoundException();
+            deleteQuietly(temp);
+            throw new FileNotFoundException(e.getMessage());
+        } catch (UncheckedIOException e) {
+            deleteQuietly(temp);
+            throw new FileNotFoundException(e.getCause().getMessage());
         }
+    }
 
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // the save has already failed, and that is the error reported
+        }
     }
 
     /**
-     * Loads a tree from a file with a specified name
+     * Loads a tree from a file with a specified name, detecting whether it was
+     * saved in the text, binary or indexed format. An indexed file is mapped:
+     * a MappedBinaryTree serves it from the mapping, creating nodes as they
+     * are visited, while any other tree has it copied in like the other
+     * formats and the mapping dropped straight after.
      *
      * @param fileName name of the file to load
      * @throws IOException
      */
     public void load(String fileName) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(fileName));
-        String line;
-        Queue<Datum> datums = new LinkedList<>();
-
-        while ((line = reader.readLine()) != null) {
-            String[] arr = line.split(":");
-            int datumNum = Integer.parseInt(arr[1]);
-            String prompt = arr[3];
-            Datum datum = new Datum(prompt, datumNum);
-            datum.setSide(arr[2]);
-            datums.offer(datum);
-        }
-        while (!datums.isEmpty()) {
-            LinkedBinaryTree.BinaryTreeNode p = null;
-            if (tree.isEmpty()) {
-                p = (LinkedBinaryTree.BinaryTreeNode) tree.setRoot(datums.poll());
+        classifier.set(null);
+        knownAnimals = null;
+        promptIndex = null;
+        ancestry = null;
+        Path path = Paths.get(fileName);
+        TreeFormat format = TreeFormat.detect(path);
+        if (format == TreeFormat.INDEXED) {
+            if (tree instanceof MappedBinaryTree) {
+                ((MappedBinaryTree) tree).map(path);
             } else {
-                p = (LinkedBinaryTree.BinaryTreeNode) tree.root();
-                insertDatum(datums.poll(), p);
+                try (MappedBinaryTree mapped = new MappedBinaryTree(path)) {
+                    mapped.copyTo(tree);
+                }
+            }
+        } else if (format == TreeFormat.BINARY) {
+            new BinaryTreeLoader(tree).load(path);
+        } else {
+            try (BufferedReader reader = new BufferedReader(new FileReader(fileName), 1 << 16)) {
+                new EnumeratedTreeLoader(tree).load(reader);
             }
         }
     }
@@ -172,16 +978,24 @@ public class ClassificationTree {
     }
 
 
-    public void insertDatum(Datum datum, LinkedBinaryTree.BinaryTreeNode<Datum> p) {
+    /**
+     * Inserts a datum below the provided node by descending the tree and
+     * comparing node numbers. Loading no longer uses this, since it attaches
+     * each record directly to its parent.
+     *
+     * @param datum Datum to insert
+     * @param p Node at which to start descending
+     */
+    public void insertDatum(Datum datum, Node<Datum> p) {
         if (datum.getNumber() < p.getElement().getNumber()) {
-            if (p.getLeft() != null) {
-                insertDatum(datum, p.getLeft());
+            if (tree.left(p) != null) {
+                insertDatum(datum, tree.left(p));
             } else {
                 tree.addLeft(p, datum);
             }
         } else if (datum.getNumber() > p.getElement().getNumber()) {
-            if (p.getRight() != null) {
-                insertDatum(datum, p.getRight());
+            if (tree.right(p) != null) {
+                insertDatum(datum, tree.right(p));
             } else {
                 tree.addRight(p, datum);
             }
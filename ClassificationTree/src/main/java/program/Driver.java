@@ -1,6 +1,9 @@
 package program;
 
+import program.server.IdentificationServer;
+
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.Scanner;
 
 /**
@@ -10,27 +13,45 @@ import java.util.Scanner;
  */
 public class Driver {
 
+    private static final int DEFAULT_PORT = 8080;
+
     /**
-     * Runs the program
+     * Runs the program on the console, or as a server when started with
+     * "--serve file [port]".
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) throws IOException {
+        if (args.length > 1 && args[0].equals("--serve")) {
+            serve(args[1], args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PORT);
+            return;
+        }
         System.out.println("Enter a file to  load > ");
         Scanner in = new Scanner(System.in);
         String fileName = in.next();
         ClassificationTree tree = new ClassificationTree(fileName);
-        String more = "Y";
-        while (more.equals("Y")) {
-            System.out.println("Do you have another animal to identify? (Y/N) > ");
-            more = in.next().toUpperCase();
-
-            if (more.equals("Y")) {
-                tree.identify();
-            }
+        System.out.println("Do you have another animal to identify? (Y/N) > ");
+        if (in.next().toUpperCase().equals("Y")) {
+            // the session asks about further animals and saves at its end
+            tree.identify(in);
+        } else {
+            System.out.println("Enter a file name to save the tree to > ");
+            tree.save(in.next());
         }
-        System.out.println("Enter a file name to save the tree to > ");
-        fileName = in.next();
-        tree.save(fileName);
+        tree.close();
+    }
+
+    /**
+     * Serves the tree loaded from the given file over HTTP until the program
+     * is stopped.
+     *
+     * @param fileName file to load the tree from
+     * @param port port to listen on
+     */
+    private static void serve(String fileName, int port) throws IOException {
+        ClassificationTree tree = new ClassificationTree(fileName);
+        IdentificationServer server = new IdentificationServer(tree, new InetSocketAddress(port));
+        server.start();
+        System.out.println("Serving " + fileName + " on port " + server.getAddress().getPort());
     }
 }
@@ -0,0 +1,244 @@
+package program;
+
+import program.structures.BinaryTree;
+import program.structures.Node;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One conversation with a user identifying animals, held as an explicit state
+ * instead of on the call stack. The session shows a prompt for its current
+ * state and is advanced one answer at a time, so any number of sessions can
+ * be in progress at once, each taking a few fields, and none of them grows the
+ * stack however many animals it identifies.
+ *
+ */
+public class IdentificationSession {
+
+    /**
+     * What a session is waiting for.
+     */
+    public enum State {
+        /**
+         * A yes or no answer to whether the animal has the current node's
+         * prompt.
+         */
+        QUESTION,
+        /**
+         * The name of an animal the tree did not know.
+         */
+        NEW_ANIMAL,
+        /**
+         * The characteristic telling the new animal apart.
+         */
+        CHARACTERISTIC,
+        /**
+         * Whether there is another animal to identify.
+         */
+        ANOTHER,
+        /**
+         * The name of the file to save the tree to.
+         */
+        SAVE,
+        /**
+         * Nothing; the session is over.
+         */
+        DONE
+    }
+
+    private final ClassificationTree classificationTree;
+    private Node<Datum> node;
+    private State state = State.QUESTION;
+    private String newAnimal;
+    private final boolean saving;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Starts a session asking about the provided node, which asks for a file
+     * to save the tree to once the user has no more animals.
+     *
+     * @param classificationTree The tree to identify animals with.
+     * @param start Node to ask about first.
+     * @throws IllegalArgumentException If the node is invalid.
+     */
+    public IdentificationSession(ClassificationTree classificationTree, Node<Datum> start) {
+        this(classificationTree, start, true);
+    }
+
+    /**
+     * Starts a session asking about the provided node.
+     *
+     * @param classificationTree The tree to identify animals with.
+     * @param start Node to ask about first.
+     * @param saving False for a session which ends once the user has no more
+     * animals instead of asking for a file name, so that its answers are
+     * never used as a file name; every learned animal is in the journal
+     * anyway.
+     * @throws IllegalArgumentException If the node is invalid.
+     */
+    public IdentificationSession(ClassificationTree classificationTree, Node<Datum> start, boolean saving) {
+        this.classificationTree = classificationTree;
+        this.node = classificationTree.tree().validate(start);
+        this.saving = saving;
+    }
+
+    /**
+     * @return The lock to hold while answering the session and reading its
+     * state, for callers which share a session between threads. It is a
+     * ReentrantLock rather than the session's monitor, so a virtual thread
+     * holding it while a learn waits for the journal is not pinned to its
+     * carrier thread.
+     */
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
+    /**
+     * @return What the session is waiting for.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return The node the session is at.
+     */
+    public Node<Datum> getNode() {
+        return node;
+    }
+
+    /**
+     * @return The prompt to show for the current state, or null once the
+     * session is over.
+     */
+    public String getPrompt() {
+        switch (state) {
+            case QUESTION:
+                return "Is this animal " + node.getElement().getPrompt() + "? (Y/N) > ";
+            case NEW_ANIMAL:
+                return "What is the new animal? >";
+            case CHARACTERISTIC:
+                return "What characteristic does a " + KnownAnimals.withoutArticle(newAnimal) + " have that "
+                        + node.getElement().getPrompt() + " does not? >";
+            case ANOTHER:
+                return "Do you have another animal to identify? (Y/N) > ";
+            case SAVE:
+                return "Enter a file name to save the tree to > ";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Advances the session with the user's answer to the current prompt. An
+     * answer other than Y or N to a yes or no question leaves the session
+     * where it was.
+     *
+     * @param input The user's answer.
+     * @return A message to show before the next prompt, or null if there is
+     * none.
+     * @throws IOException If learning an animal or saving the tree fails.
+     * @throws IllegalStateException If the session is over.
+     */
+    public String answer(String input) throws IOException {
+        BinaryTree<Datum> tree = classificationTree.tree();
+        switch (state) {
+            case QUESTION:
+                String answer = input.trim().toUpperCase();
+                if (answer.equals("Y")) {
+                    Node<Datum> left = tree.left(node);
+                    if (left == null) {
+                        state = State.ANOTHER;
+                        return "Found your animal!";
+                    }
+                    node = left;
+                } else if (answer.equals("N")) {
+                    Node<Datum> right = tree.right(node);
+                    if (right == null) {
+                        state = State.NEW_ANIMAL;
+                        return "I don't know about an animal with these characteristics that isn't "
+                                + node.getElement().getPrompt() + ".";
+                    }
+                    node = right;
+                }
+                return null;
+            case NEW_ANIMAL:
+                Node<Datum> known = classificationTree.findAnimal(input);
+                if (known != null) {
+                    state = State.ANOTHER;
+                    return alreadyKnown(known, input);
+                }
+                newAnimal = input;
+                state = State.CHARACTERISTIC;
+                return null;
+            case CHARACTERISTIC:
+                node = classificationTree.current(node);
+                if (tree.isExternal(node)) {
+                    try {
+                        classificationTree.learn(node, newAnimal, input);
+                        newAnimal = null;
+                        state = State.ANOTHER;
+                        return null;
+                    } catch (IllegalArgumentException e) {
+                        // another session learned here, or learned the same
+                        // animal, after the checks
+                    }
+                }
+                Node<Datum> learned = classificationTree.findAnimal(newAnimal);
+                if (learned != null) {
+                    String message = alreadyKnown(learned, newAnimal);
+                    newAnimal = null;
+                    state = State.ANOTHER;
+                    return message;
+                }
+                // another session learned an animal here in the meantime
+                state = State.QUESTION;
+                return "I have just learned something new about this animal, so let me ask again.";
+            case ANOTHER:
+                if (input.trim().toUpperCase().equals("Y")) {
+                    node = tree.root();
+                    state = State.QUESTION;
+                } else {
+                    state = saving ? State.SAVE : State.DONE;
+                }
+                return null;
+            case SAVE:
+                if (!saving) {
+                    throw new IllegalStateException("The session does not save.");
+                }
+                classificationTree.save(input);
+                state = State.DONE;
+                return null;
+            default:
+                throw new IllegalStateException("The session is over.");
+        }
+    }
+
+    /**
+     * @return A message telling the user the tree knows the animal already,
+     * and how to find it.
+     */
+    private String alreadyKnown(Node<Datum> known, String animal) {
+        return "I already know about " + known.getElement().getPrompt()
+                + ". Answer " + answers(classificationTree.pathToAnimal(animal)) + " to find it.";
+    }
+
+    /**
+     * @return The answers of a path, separated by commas, or "nothing" if
+     * the path is empty.
+     */
+    private static String answers(String path) {
+        if (path == null || path.isEmpty()) {
+            return "nothing";
+        }
+        StringBuilder answers = new StringBuilder();
+        for (int i = 0; i < path.length(); i++) {
+            if (i > 0) {
+                answers.append(", ");
+            }
+            answers.append(path.charAt(i));
+        }
+        return answers.toString();
+    }
+}
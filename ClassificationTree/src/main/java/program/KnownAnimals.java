@@ -0,0 +1,93 @@
+package program;
+
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.traversals.PreOrderTraversal;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A hash index from the normalized prompt of each leaf of a classification
+ * tree to the leaf, so whether an animal is already known, and where, is
+ * answered in constant time instead of by a traversal. The index is built
+ * with one traversal of the tree and then kept up to date by the tree's
+ * writer as animals are learned; lookups take no lock.
+ *
+ * Prompts are normalized by ignoring case, surrounding and repeated spaces
+ * and a leading article, so "a Tiger", "tiger" and "The  tiger" are the same
+ * animal.
+ *
+ */
+final class KnownAnimals {
+
+    private static final String[] ARTICLES = {"a ", "an ", "the "};
+
+    private final Map<String, Node<Datum>> leaves = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes every leaf of the provided tree. Where two leaves share a
+     * prompt, the first in preorder is kept.
+     *
+     * @param tree The tree to index.
+     */
+    KnownAnimals(BinaryTree<Datum> tree) {
+        if (tree.isEmpty()) {
+            return;
+        }
+        for (Node<Datum> node : new PreOrderTraversal<>(tree).lazyTraverse()) {
+            if (tree.isExternal(node)) {
+                leaves.putIfAbsent(normalize(node.getElement().getPrompt()), node);
+            }
+        }
+    }
+
+    /**
+     * @param animal Name or prompt of an animal.
+     * @return The leaf holding the animal, or null if it is not known.
+     */
+    Node<Datum> find(String animal) {
+        return leaves.get(normalize(animal));
+    }
+
+    /**
+     * Records the leaf now holding an animal, replacing the leaf it was held
+     * by before.
+     *
+     * @param leaf The leaf.
+     */
+    void put(Node<Datum> leaf) {
+        leaves.put(normalize(leaf.getElement().getPrompt()), leaf);
+    }
+
+    /**
+     * @return The number of known animals.
+     */
+    int size() {
+        return leaves.size();
+    }
+
+    /**
+     * @param prompt A prompt or an animal's name.
+     * @return The key the animal is indexed under.
+     */
+    static String normalize(String prompt) {
+        return withoutArticle(prompt).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param name An animal's name, as typed.
+     * @return The name with surrounding and repeated spaces and a leading
+     * article removed, keeping its case.
+     */
+    static String withoutArticle(String name) {
+        String trimmed = name.trim().replaceAll("\\s+", " ");
+        for (String article : ARTICLES) {
+            if (trimmed.regionMatches(true, 0, article, 0, article.length())) {
+                return trimmed.substring(article.length());
+            }
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,189 @@
+package program;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The single writer of a ClassificationTree. Sessions hand their learned
+ * animals to the queue, and one dedicated thread takes them off in batches,
+ * applies every learn of a batch to the tree under one lock, syncs the
+ * journal once for the whole batch and then completes the learns. Readers
+ * of the tree never wait for a writer, and concurrent learners share a
+ * single journal sync instead of each forcing the file in turn.
+ *
+ * Learns are applied in the order they were queued. When two learns target
+ * the same leaf, the first one turns the leaf into a question, so the second
+ * no longer leads to a leaf and fails with an IllegalArgumentException; its
+ * session is expected to ask again. An exception thrown by a learn fails
+ * only that learn, so the writer keeps going and no later learn is left
+ * waiting. An Error leaves the tree possibly half changed, so it fails every
+ * learn still waiting, stops the writer and is thrown on; being interrupted
+ * stops the writer the same way. Either way the queue takes no more learns.
+ *
+ */
+final class LearningQueue {
+
+    /**
+     * Largest number of learns applied in one batch.
+     */
+    static final int MAX_BATCH = 256;
+
+    private final ClassificationTree tree;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private boolean closed;
+
+    /**
+     * A learn waiting to be applied.
+     */
+    static final class Request {
+
+        final String path;
+        final String animal;
+        final String characteristic;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        Request(String path, String animal, String characteristic) {
+            this.path = path;
+            this.animal = animal;
+            this.characteristic = characteristic;
+        }
+    }
+
+    private static final Request CLOSE = new Request("", "", "");
+
+    /**
+     * Creates the queue and starts its writer thread.
+     *
+     * @param tree The tree to apply learns to.
+     */
+    LearningQueue(ClassificationTree tree) {
+        this.tree = tree;
+        writer = new Thread(this::run, "classification-tree-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a learn.
+     *
+     * @param path Answers leading from the root to the leaf, as Y for yes and
+     * N for no.
+     * @param animal The new animal.
+     * @param characteristic What the new animal has that the leaf's does not.
+     * @return Completes once the animal is in the tree and its journal entry
+     * is on disk, or with whatever stopped it being learned: usually an
+     * IllegalArgumentException or IOException.
+     * @throws IllegalStateException If the queue has been closed.
+     */
+    synchronized CompletableFuture<Void> submit(String path, String animal, String characteristic) {
+        if (closed) {
+            throw new IllegalStateException("The tree has been closed.");
+        }
+        Request request = new Request(path, animal, characteristic);
+        queue.add(request);
+        return request.result;
+    }
+
+    /**
+     * Stops taking learns and waits for the writer to finish the ones already
+     * queued.
+     *
+     * @throws IOException If interrupted while waiting.
+     */
+    void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(CLOSE);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the learning queue");
+        }
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(MAX_BATCH);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stop(batch, new InterruptedIOException("The learning queue was interrupted"));
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            if (batch.remove(CLOSE)) {
+                running = false;
+            }
+            try {
+                apply(batch);
+            } catch (RuntimeException e) {
+                for (Request request : batch) {
+                    request.result.completeExceptionally(e);
+                }
+            } catch (Error e) {
+                stop(batch, e);
+                throw e;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Closes the queue and fails the provided learns and every learn still
+     * queued with the given cause.
+     */
+    private void stop(List<Request> batch, Throwable cause) {
+        synchronized (this) {
+            closed = true;
+        }
+        queue.drainTo(batch);
+        for (Request request : batch) {
+            request.result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Applies a batch of learns, completing each one.
+     */
+    private void apply(List<Request> batch) {
+        List<Request> applied = new ArrayList<>(batch.size());
+        long sequence = 0;
+        synchronized (tree) {
+            for (Request request : batch) {
+                try {
+                    sequence = tree.applyLearn(request.path, request.animal, request.characteristic);
+                    applied.add(request);
+                } catch (IOException | RuntimeException e) {
+                    request.result.completeExceptionally(e);
+                }
+            }
+        }
+        if (applied.isEmpty()) {
+            return;
+        }
+        try {
+            tree.commitLearns(sequence);
+        } catch (IOException | RuntimeException e) {
+            for (Request request : applied) {
+                request.result.completeExceptionally(e);
+            }
+            return;
+        }
+        for (Request request : applied) {
+            request.result.complete(null);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package program;
+
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.traversals.PreOrderTraversal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A sorted index over the prompts of every node of a classification tree,
+ * answering prefix queries for autocompletion and word queries such as which
+ * questions mention "fur". Animals (leaves) and characteristics (internal
+ * nodes) are indexed by their whole normalized prompt, and every node is also
+ * indexed by each word of its prompt. A prefix query seeks to the first key
+ * with the prefix and reads keys only while they match, so it takes time in
+ * proportion to the length of the prefix's range and the number of results,
+ * not to the size of the tree.
+ *
+ * Like KnownAnimals, the index is built with one traversal and then kept up
+ * to date by the tree's writer; lookups take no lock.
+ *
+ */
+final class PromptIndex {
+
+    private final NavigableMap<String, Set<Node<Datum>>> animals = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<Node<Datum>>> characteristics = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<Node<Datum>>> words = new ConcurrentSkipListMap<>();
+
+    /**
+     * Indexes every node of the provided tree.
+     *
+     * @param tree The tree to index.
+     */
+    PromptIndex(BinaryTree<Datum> tree) {
+        if (tree.isEmpty()) {
+            return;
+        }
+        for (Node<Datum> node : new PreOrderTraversal<>(tree).lazyTraverse()) {
+            add(node, tree.isExternal(node));
+        }
+    }
+
+    /**
+     * Indexes a node.
+     *
+     * @param node The node.
+     * @param leaf True if the node holds an animal, false if it holds a
+     * characteristic.
+     */
+    void add(Node<Datum> node, boolean leaf) {
+        String prompt = node.getElement().getPrompt();
+        add(leaf ? animals : characteristics, KnownAnimals.normalize(prompt), node);
+        for (String word : words(prompt)) {
+            add(words, word, node);
+        }
+    }
+
+    /**
+     * Removes a node from the index, with the prompt and kind it was
+     * indexed with.
+     *
+     * @param node The node.
+     * @param leaf True if the node was indexed as an animal.
+     */
+    void remove(Node<Datum> node, boolean leaf) {
+        String prompt = node.getElement().getPrompt();
+        remove(leaf ? animals : characteristics, KnownAnimals.normalize(prompt), node);
+        for (String word : words(prompt)) {
+            remove(words, word, node);
+        }
+    }
+
+    /**
+     * @param prefix Start of an animal's name, ignoring a leading article.
+     * @param limit Largest number of animals to return.
+     * @return Leaves whose animals start with the prefix, in order of prompt.
+     */
+    List<Node<Datum>> animals(String prefix, int limit) {
+        return find(animals, KnownAnimals.normalize(prefix), limit);
+    }
+
+    /**
+     * @param prefix Start of a characteristic.
+     * @param limit Largest number of characteristics to return.
+     * @return Internal nodes whose characteristics start with the prefix, in
+     * order of prompt.
+     */
+    List<Node<Datum>> characteristics(String prefix, int limit) {
+        return find(characteristics, KnownAnimals.normalize(prefix), limit);
+    }
+
+    /**
+     * @param prefix Start of a word.
+     * @param limit Largest number of nodes to return.
+     * @return Nodes with a word in their prompt which starts with the prefix,
+     * in order of the word.
+     */
+    List<Node<Datum>> mentioning(String prefix, int limit) {
+        return find(words, prefix.trim().toLowerCase(Locale.ROOT), limit);
+    }
+
+    private static List<Node<Datum>> find(NavigableMap<String, Set<Node<Datum>>> index, String prefix, int limit) {
+        Set<Node<Datum>> found = new LinkedHashSet<>();
+        for (Map.Entry<String, Set<Node<Datum>>> entry : index.tailMap(prefix, true).entrySet()) {
+            if (found.size() >= limit || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            for (Node<Datum> node : entry.getValue()) {
+                if (found.size() >= limit) {
+                    break;
+                }
+                found.add(node);
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    private static void add(NavigableMap<String, Set<Node<Datum>>> index, String key, Node<Datum> node) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(node);
+    }
+
+    private static void remove(NavigableMap<String, Set<Node<Datum>>> index, String key, Node<Datum> node) {
+        Set<Node<Datum>> nodes = index.get(key);
+        if (nodes != null) {
+            nodes.remove(node);
+            if (nodes.isEmpty()) {
+                index.remove(key, nodes);
+            }
+        }
+    }
+
+    /**
+     * @return The distinct lower case words of a prompt.
+     */
+    private static Set<String> words(String prompt) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : prompt.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
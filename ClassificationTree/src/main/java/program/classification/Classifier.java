@@ -0,0 +1,31 @@
+package program.classification;
+
+import program.Datum;
+
+import java.util.BitSet;
+
+/**
+ * Classifies an animal from its answers to the questions of a classification
+ * tree. The answer at index i is the answer to the i-th question asked, yes
+ * leading to the left child and no to the right child.
+ *
+ */
+public interface Classifier {
+
+    /**
+     * @param answers Answers to the questions from the root down.
+     * @return The datum of the leaf the answers lead to, or of the last node
+     * reached if they lead to a missing child.
+     * @throws IllegalArgumentException If the answers run out before a leaf
+     * is reached.
+     */
+    Datum classify(boolean[] answers);
+
+    /**
+     * @param answers Answers to the questions from the root down, with
+     * missing answers counting as no.
+     * @return The datum of the leaf the answers lead to, or of the last node
+     * reached if they lead to a missing child.
+     */
+    Datum classify(BitSet answers);
+}
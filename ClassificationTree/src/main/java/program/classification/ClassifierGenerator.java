@@ -0,0 +1,335 @@
+package program.classification;
+
+import program.Datum;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a classifier specialised to one decision table: Java source with
+ * the tree written out as nested if statements on the answers, compiled in
+ * process with the system JavaCompiler and loaded by its own class loader.
+ * The questions and child indices become constants in the code, so the JIT
+ * can compile a whole decision path into straight line branches.
+ *
+ * The tree is split into methods of at most METHOD_NODES nodes each, which
+ * keeps every method small enough for the JIT to compile. Generation is only
+ * worth it for trees which are classified many times between changes, and is
+ * refused for trees larger than MAX_NODES. The generated class is loaded by a
+ * class loader of its own, so it can be unloaded once the tree changes and
+ * its classifier is dropped.
+ *
+ */
+public final class ClassifierGenerator {
+
+    /**
+     * Largest number of nodes in a tree a classifier is generated for.
+     */
+    public static final int MAX_NODES = 100000;
+
+    /**
+     * Largest number of nodes written into a single generated method.
+     */
+    public static final int METHOD_NODES = 256;
+
+    private static final String CLASS_NAME = "GeneratedFinder";
+    private static final AtomicInteger GENERATED = new AtomicInteger();
+
+    /**
+     * Interface implemented by the generated class. Each method returns the
+     * index in the decision table of the node the answers lead to.
+     */
+    public interface Finder {
+
+        int find(boolean[] answers);
+
+        int find(BitSet answers);
+    }
+
+    private ClassifierGenerator() {
+    }
+
+    /**
+     * @return True if a Java compiler is available to generate classifiers
+     * with, which is not the case when running on a JRE.
+     */
+    public static boolean isAvailable() {
+        return ToolProvider.getSystemJavaCompiler() != null;
+    }
+
+    /**
+     * @return The number of classifiers generated so far.
+     */
+    public static int generatedCount() {
+        return GENERATED.get();
+    }
+
+    /**
+     * Generates and compiles a classifier for the provided decision table.
+     *
+     * @param table Decision table to generate a classifier for.
+     * @return The generated classifier, which classifies exactly as the table
+     * does.
+     * @throws IllegalArgumentException If the table has more than MAX_NODES
+     * nodes.
+     * @throws IllegalStateException If no compiler is available or the
+     * generated source cannot be compiled and loaded.
+     */
+    public static Classifier generate(DecisionTable table) {
+        if (table.size() > MAX_NODES) {
+            throw new IllegalArgumentException("Cannot generate a classifier for more than " + MAX_NODES + " nodes.");
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler is available.");
+        }
+        String source = source(table);
+        byte[] bytes = compile(compiler, source);
+        try {
+            Class<?> finderClass = new GeneratedClassLoader(Finder.class.getClassLoader(), bytes)
+                    .loadClass(CLASS_NAME);
+            Finder finder = (Finder) finderClass.getDeclaredConstructor().newInstance();
+            GENERATED.incrementAndGet();
+            return new GeneratedClassifier(table, finder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Could not load the generated classifier.", e);
+        }
+    }
+
+    /**
+     * Generates a classifier on the provided executor.
+     *
+     * @param table Decision table to generate a classifier for.
+     * @param executor Executor to generate and compile on.
+     * @return A future which completes with the generated classifier, or
+     * exceptionally if it could not be generated.
+     */
+    public static CompletableFuture<Classifier> generateAsync(DecisionTable table, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> generate(table), executor);
+    }
+
+    /**
+     * Writes the source of the finder class for the provided table.
+     */
+    static String source(DecisionTable table) {
+        StringBuilder out = new StringBuilder(table.size() * 64);
+        out.append("public final class ").append(CLASS_NAME)
+                .append(" implements ").append(Finder.class.getCanonicalName()).append(" {\n");
+        writeMethods(table, out, "boolean[]", true);
+        writeMethods(table, out, "java.util.BitSet", false);
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Writes one find method, and the methods it calls for the parts of the
+     * tree which do not fit in it, for one type of answers.
+     */
+    private static void writeMethods(DecisionTable table, StringBuilder out, String type, boolean array) {
+        Deque<Integer> roots = new ArrayDeque<>();
+        roots.add(0);
+        boolean first = true;
+        while (!roots.isEmpty()) {
+            int root = roots.poll();
+            out.append(first ? "public int find(" : "private static int n" + root + "(")
+                    .append(type).append(" a) {\n");
+            first = false;
+            int[] budget = {METHOD_NODES};
+            writeNode(table, out, root, array, roots, budget, 1);
+            out.append("}\n");
+        }
+    }
+
+    /**
+     * Writes the statements for the subtree below the provided node. Once the
+     * budget of nodes for the current method is used up, the remaining
+     * subtrees are left to methods of their own.
+     */
+    private static void writeNode(DecisionTable table, StringBuilder out, int node, boolean array,
+                                  Deque<Integer> roots, int[] budget, int indent) {
+        budget[0]--;
+        if (table.isLeaf(node)) {
+            indent(out, indent).append("return ").append(node).append(";\n");
+            return;
+        }
+        int question = table.question(node);
+        indent(out, indent).append("if (a").append(array ? "[" + question + "]" : ".get(" + question + ")")
+                .append(") {\n");
+        writeChild(table, out, node, table.yes(node), array, roots, budget, indent + 1);
+        indent(out, indent).append("} else {\n");
+        writeChild(table, out, node, table.no(node), array, roots, budget, indent + 1);
+        indent(out, indent).append("}\n");
+    }
+
+    private static void writeChild(DecisionTable table, StringBuilder out, int parent, int child, boolean array,
+                                   Deque<Integer> roots, int[] budget, int indent) {
+        if (child < 0) {
+            indent(out, indent).append("return ").append(parent).append(";\n");
+        } else if (budget[0] <= 0) {
+            roots.add(child);
+            indent(out, indent).append("return n").append(child).append("(a);\n");
+        } else {
+            writeNode(table, out, child, array, roots, budget, indent);
+        }
+    }
+
+    private static StringBuilder indent(StringBuilder out, int indent) {
+        for (int i = 0; i < indent; i++) {
+            out.append("    ");
+        }
+        return out;
+    }
+
+    /**
+     * Compiles the generated source in memory, returning the class file.
+     */
+    private static byte[] compile(JavaCompiler compiler, String source) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, null);
+        ClassFileCollector files = new ClassFileCollector(standard);
+        List<String> options = new ArrayList<>();
+        options.add("-classpath");
+        options.add(classPath());
+        options.add("-g:none");
+        options.add("-proc:none");
+        JavaFileObject unit = new SimpleJavaFileObject(URI.create("string:///" + CLASS_NAME + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        Boolean compiled = compiler.getTask(null, files, diagnostics, options, null,
+                Collections.singletonList(unit)).call();
+        if (!compiled || files.bytes == null) {
+            StringBuilder message = new StringBuilder("Could not compile the generated classifier:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append('\n').append(diagnostic.getMessage(null));
+            }
+            throw new IllegalStateException(message.toString());
+        }
+        return files.bytes.toByteArray();
+    }
+
+    /**
+     * @return The class path of the running program, with the location
+     * Finder was loaded from added in case it is not on it.
+     */
+    private static String classPath() {
+        String classPath = System.getProperty("java.class.path", "");
+        CodeSource codeSource = Finder.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            try {
+                classPath = new File(codeSource.getLocation().toURI()).getPath() + File.pathSeparator + classPath;
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // not a file location; rely on the class path alone
+            }
+        }
+        return classPath;
+    }
+
+    /**
+     * File manager which keeps the compiled class in memory.
+     */
+    private static final class ClassFileCollector extends ForwardingJavaFileManager<JavaFileManager> {
+
+        private ByteArrayOutputStream bytes;
+
+        ClassFileCollector(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("bytes:///" + className + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    bytes = new ByteArrayOutputStream();
+                    return bytes;
+                }
+            };
+        }
+    }
+
+    /**
+     * Class loader holding nothing but one generated class.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+
+        private final byte[] bytes;
+
+        GeneratedClassLoader(ClassLoader parent, byte[] bytes) {
+            super(parent);
+            this.bytes = bytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!CLASS_NAME.equals(name)) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Classifier which finds nodes with a generated Finder and takes their
+     * data from the decision table it was generated from.
+     */
+    private static final class GeneratedClassifier implements Classifier {
+
+        private final DecisionTable table;
+        private final Finder finder;
+
+        GeneratedClassifier(DecisionTable table, Finder finder) {
+            this.table = table;
+            this.finder = finder;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Datum classify(boolean[] answers) {
+            int index;
+            try {
+                index = finder.find(answers);
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Ran out of answers.", e);
+            }
+            return table.datum(index);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Datum classify(BitSet answers) {
+            return table.datum(finder.find(answers));
+        }
+    }
+}
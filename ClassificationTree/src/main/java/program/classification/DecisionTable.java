@@ -0,0 +1,224 @@
+package program.classification;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A classification tree compiled into a flat table, so that classifying an
+ * animal is a loop over an int array instead of a walk through linked nodes.
+ *
+ * Each node takes ENTRY_SIZE consecutive ints: the index of the answer it
+ * asks for (its depth), the index of its yes (left) child, the index of its
+ * no (right) child, with -1 for missing children, and a leaf flag. Nodes are
+ * numbered in preorder, so the yes child of a node directly follows it. The
+ * table is a snapshot: changes to the tree after it was compiled are not
+ * seen, and the table must be compiled again.
+ *
+ */
+public final class DecisionTable implements Classifier {
+
+    /**
+     * Number of ints used for each node.
+     */
+    public static final int ENTRY_SIZE = 4;
+
+    private static final int QUESTION = 0;
+    private static final int YES = 1;
+    private static final int NO = 2;
+    private static final int LEAF = 3;
+
+    private final int[] table;
+    private final Datum[] data;
+
+    private DecisionTable(int[] table, Datum[] data) {
+        this.table = table;
+        this.data = data;
+    }
+
+    /**
+     * Compiles the provided tree into a decision table.
+     *
+     * @param tree Tree to compile.
+     * @return The decision table for the tree as it is now.
+     * @throws IllegalStateException If the tree is empty.
+     */
+    public static DecisionTable compile(BinaryTree<Datum> tree) {
+        Node<Datum> root = tree.root();
+        if (root == null) {
+            throw new IllegalStateException("Cannot compile an empty tree.");
+        }
+        int capacity = Math.max(tree.size(), 1);
+        int[] table = new int[capacity * ENTRY_SIZE];
+        Datum[] data = new Datum[capacity];
+
+        // the stack holds nodes still to be numbered with the table slot
+        // which must point at them and their depth
+        Object[] nodes = new Object[16];
+        int[] slots = new int[16];
+        int[] depths = new int[16];
+        nodes[0] = root;
+        slots[0] = -1;
+        int top = 1;
+        int count = 0;
+        while (top > 0) {
+            top--;
+            @SuppressWarnings("unchecked")
+            Node<Datum> node = (Node<Datum>) nodes[top];
+            nodes[top] = null;
+            int slot = slots[top];
+            int depth = depths[top];
+            if (count == data.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            int index = count++;
+            if (slot >= 0) {
+                table[slot] = index;
+            }
+            int base = index * ENTRY_SIZE;
+            Node<Datum> left = tree.left(node);
+            Node<Datum> right = tree.right(node);
+            table[base + QUESTION] = depth;
+            table[base + YES] = -1;
+            table[base + NO] = -1;
+            table[base + LEAF] = left == null && right == null ? 1 : 0;
+            data[index] = node.getElement();
+
+            if (top + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                slots = Arrays.copyOf(slots, slots.length * 2);
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            if (right != null) {
+                nodes[top] = right;
+                slots[top] = base + NO;
+                depths[top++] = depth + 1;
+            }
+            if (left != null) {
+                nodes[top] = left;
+                slots[top] = base + YES;
+                depths[top++] = depth + 1;
+            }
+        }
+        if (count < data.length) {
+            table = Arrays.copyOf(table, count * ENTRY_SIZE);
+            data = Arrays.copyOf(data, count);
+        }
+        return new DecisionTable(table, data);
+    }
+
+    /**
+     * Finds the node the provided answers lead to. The answer at index i is
+     * the answer to the i-th question asked, true for yes and false for no.
+     *
+     * @param answers Answers to the questions from the root down.
+     * @return Index of the leaf the answers lead to, or of the last node
+     * reached if they lead to a missing child.
+     * @throws IllegalArgumentException If the answers run out before a leaf
+     * is reached.
+     */
+    public int find(boolean[] answers) {
+        int[] t = table;
+        int base = 0;
+        while (t[base + LEAF] == 0) {
+            int question = t[base + QUESTION];
+            if (question >= answers.length) {
+                throw new IllegalArgumentException("Ran out of answers at depth " + question + ".");
+            }
+            int next = answers[question] ? t[base + YES] : t[base + NO];
+            if (next < 0) {
+                break;
+            }
+            base = next * ENTRY_SIZE;
+        }
+        return base / ENTRY_SIZE;
+    }
+
+    /**
+     * Finds the node the provided answers lead to. Bit i is the answer to the
+     * i-th question asked, set for yes and clear for no.
+     *
+     * @param answers Answers to the questions from the root down.
+     * @return Index of the leaf the answers lead to, or of the last node
+     * reached if they lead to a missing child.
+     */
+    public int find(BitSet answers) {
+        int[] t = table;
+        int base = 0;
+        while (t[base + LEAF] == 0) {
+            int next = answers.get(t[base + QUESTION]) ? t[base + YES] : t[base + NO];
+            if (next < 0) {
+                break;
+            }
+            base = next * ENTRY_SIZE;
+        }
+        return base / ENTRY_SIZE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Datum classify(boolean[] answers) {
+        return data[find(answers)];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Datum classify(BitSet answers) {
+        return data[find(answers)];
+    }
+
+    /**
+     * @param index Index of a node in the table.
+     * @return The datum of the node.
+     */
+    public Datum datum(int index) {
+        return data[index];
+    }
+
+    /**
+     * @param index Index of a node in the table.
+     * @return The index of the answer the node asks for.
+     */
+    public int question(int index) {
+        return table[index * ENTRY_SIZE + QUESTION];
+    }
+
+    /**
+     * @param index Index of a node in the table.
+     * @return The index of the node's yes child, or -1 if it has none.
+     */
+    public int yes(int index) {
+        return table[index * ENTRY_SIZE + YES];
+    }
+
+    /**
+     * @param index Index of a node in the table.
+     * @return The index of the node's no child, or -1 if it has none.
+     */
+    public int no(int index) {
+        return table[index * ENTRY_SIZE + NO];
+    }
+
+    /**
+     * @param index Index of a node in the table.
+     * @return True if the node is a leaf.
+     */
+    public boolean isLeaf(int index) {
+        return table[index * ENTRY_SIZE + LEAF] != 0;
+    }
+
+    /**
+     * @return The number of nodes in the table.
+     */
+    public int size() {
+        return data.length;
+    }
+}
@@ -0,0 +1,145 @@
+package program.persistence;
+
+import program.Datum;
+import program.structures.BinaryTree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads a tree saved in the binary format of the BinaryTreeWriter, reading it
+ * through a FileChannel and a large direct buffer in a single streaming pass.
+ * As with the text loader, each record is attached directly below its parent.
+ *
+ */
+public class BinaryTreeLoader {
+
+    private final TreeBuilder builder;
+    private final int bufferSize;
+    private ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Constructs a new loader which will place the loaded nodes into the
+     * provided tree, replacing any nodes it currently holds.
+     *
+     * @param tree Tree to load into.
+     * @throws IllegalArgumentException If the tree is null.
+     */
+    public BinaryTreeLoader(BinaryTree<Datum> tree) throws IllegalArgumentException {
+        this(tree, BinaryTreeWriter.BUFFER_SIZE);
+    }
+
+    BinaryTreeLoader(BinaryTree<Datum> tree, int bufferSize) throws IllegalArgumentException {
+        this.builder = new TreeBuilder(tree, "Record");
+        this.bufferSize = Math.max(bufferSize, 16);
+    }
+
+    /**
+     * Loads the tree from the given file.
+     *
+     * @param path File to load.
+     * @throws IOException If reading fails or the file is not a valid binary
+     * tree.
+     */
+    public void load(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            load(file);
+        }
+    }
+
+    /**
+     * Loads the tree from the given channel, which must be positioned at the
+     * magic number.
+     *
+     * @param in Channel to read.
+     * @throws IOException If reading fails or the data is not a valid binary
+     * tree.
+     */
+    public void load(ReadableByteChannel in) throws IOException {
+        channel = in;
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.limit(0);
+        byte[] magic = TreeFormat.BINARY.magic();
+        if (!ensure(magic.length + 1)) {
+            throw new IOException("Not a binary tree file");
+        }
+        for (byte b : magic) {
+            if (buffer.get() != b) {
+                throw new IOException("Not a binary tree file");
+            }
+        }
+        int version = buffer.get();
+        if (version != BinaryTreeWriter.VERSION) {
+            throw new IOException("Unsupported binary tree version " + version);
+        }
+        while (ensure(1)) {
+            builder.next();
+            long number = readVarint();
+            long link = readVarint();
+            long length = readVarint();
+            if (number > Integer.MAX_VALUE || (link >>> 1) > Integer.MAX_VALUE + 1L || length > Integer.MAX_VALUE) {
+                throw builder.malformed("value out of range");
+            }
+            boolean left = (link & 1) != 0;
+            Datum datum = new Datum(readString((int) length), (int) number);
+            datum.setSide(left ? "l" : "r");
+            builder.add((int) ((link >>> 1) - 1), datum, left);
+        }
+    }
+
+    /**
+     * Makes sure at least the given number of bytes are buffered, reading more
+     * from the channel if needed.
+     *
+     * @return False if the channel ended first.
+     */
+    private boolean ensure(int count) throws IOException {
+        if (buffer.remaining() >= count) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < count && channel.read(buffer) >= 0) {
+            // keep reading until enough bytes are buffered or the channel ends
+        }
+        buffer.flip();
+        return buffer.remaining() >= count;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 7 * BinaryTreeWriter.MAX_VARINT_LENGTH; shift += 7) {
+            if (!ensure(1)) {
+                throw builder.malformed("file ends inside a record");
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw builder.malformed("varint is too long");
+    }
+
+    private String readString(int length) throws IOException {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int offset = 0;
+        while (offset < length) {
+            if (!ensure(1)) {
+                throw builder.malformed("file ends inside a prompt");
+            }
+            int count = Math.min(buffer.remaining(), length - offset);
+            buffer.get(scratch, offset, count);
+            offset += count;
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
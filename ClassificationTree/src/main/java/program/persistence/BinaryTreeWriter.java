@@ -0,0 +1,119 @@
+package program.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a tree in the compact binary format through a FileChannel and a
+ * large direct buffer. The file starts with the BINARY magic number and a
+ * version byte, followed by one record per node:
+ * <ul>
+ *  <li>the number of the node, as a varint
+ *  <li>the number of the parent plus one, shifted left by one bit, with the
+ *  low bit set if the node is the left child of its parent, as a varint
+ *  <li>the length of the UTF-8 encoded prompt, as a varint
+ *  <li>the UTF-8 encoded prompt
+ * </ul>
+ * Varints hold seven bits per byte, least significant first, with the high
+ * bit set on every byte but the last. As with the text format, parents must
+ * be written before their children.
+ *
+ */
+public class BinaryTreeWriter implements Closeable {
+
+    /**
+     * Version of the binary format written after the magic number.
+     */
+    public static final int VERSION = 1;
+
+    static final int BUFFER_SIZE = 1 << 20;
+    static final int MAX_VARINT_LENGTH = 10;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates or truncates the given file and writes the header.
+     *
+     * @param path File to write.
+     * @throws IOException If the file cannot be opened.
+     */
+    public BinaryTreeWriter(Path path) throws IOException {
+        this(path, BUFFER_SIZE);
+    }
+
+    BinaryTreeWriter(Path path, int bufferSize) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 3 * MAX_VARINT_LENGTH));
+        buffer.put(TreeFormat.BINARY.magic()).put((byte) VERSION);
+    }
+
+    /**
+     * Writes the record for one node.
+     *
+     * @param parentNum Number of the parent, or -1 for the root.
+     * @param number Number of the node.
+     * @param left True if the node is the left child of its parent.
+     * @param prompt Prompt of the node.
+     * @throws IOException If writing fails.
+     */
+    public void write(int parentNum, int number, boolean left, String prompt) throws IOException {
+        byte[] bytes = prompt.getBytes(StandardCharsets.UTF_8);
+        if (buffer.remaining() < 3 * MAX_VARINT_LENGTH) {
+            flush();
+        }
+        putVarint(number & 0xFFFFFFFFL);
+        putVarint(((parentNum + 1L) << 1) | (left ? 1 : 0));
+        putVarint(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes everything buffered so far to the file.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the buffer and closes the file.
+     *
+     * @throws IOException If writing or closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
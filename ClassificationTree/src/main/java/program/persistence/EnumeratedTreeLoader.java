@@ -0,0 +1,96 @@
+package program.persistence;
+
+import program.Datum;
+import program.structures.BinaryTree;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Loads a tree saved by the EnumeratedSaveCommand in a single streaming pass.
+ * Each line names its parent's number and the side it hangs on, so every
+ * record is attached directly below its parent, which is found by number
+ * rather than by walking down from the root. Parents must therefore appear
+ * before their children, as they do in the breadth first order the save
+ * command writes.
+ *
+ */
+public class EnumeratedTreeLoader {
+
+    private final TreeBuilder builder;
+
+    /**
+     * Constructs a new loader which will place the loaded nodes into the
+     * provided tree, replacing any nodes it currently holds.
+     *
+     * @param tree Tree to load into.
+     * @throws IllegalArgumentException If the tree is null.
+     */
+    public EnumeratedTreeLoader(BinaryTree<Datum> tree) throws IllegalArgumentException {
+        this.builder = new TreeBuilder(tree, "Line");
+    }
+
+    /**
+     * Reads every line of the provided reader and adds it to the tree. Each
+     * line has the format parent:number:side:prompt, where parent is -1 for
+     * the root and side is either l or r.
+     *
+     * @param reader Reader positioned at the first line of a saved tree.
+     * @throws IOException If reading fails, or a line is malformed or refers
+     * to a parent which has not been loaded yet.
+     */
+    public void load(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            builder.next();
+            if (!line.isEmpty()) {
+                loadLine(line);
+            }
+        }
+    }
+
+    /**
+     * Parses a single line and attaches the resulting Datum to its parent.
+     */
+    private void loadLine(String line) throws IOException {
+        int first = line.indexOf(':');
+        int second = first < 0 ? -1 : line.indexOf(':', first + 1);
+        int third = second < 0 ? -1 : line.indexOf(':', second + 1);
+        if (third < 0) {
+            throw builder.malformed("expected parent:number:side:prompt");
+        }
+        int parentNum = parseInt(line, 0, first);
+        int datumNum = parseInt(line, first + 1, second);
+        String side = line.substring(second + 1, third);
+        if (parentNum != -1 && !side.equals("l") && !side.equals("r")) {
+            throw builder.malformed("side must be l or r");
+        }
+        Datum datum = new Datum(line.substring(third + 1), datumNum);
+        datum.setSide(side);
+        builder.add(parentNum, datum, side.equals("l"));
+    }
+
+    /**
+     * Parses the decimal integer between start (inclusive) and end
+     * (exclusive) without creating a substring.
+     */
+    private int parseInt(String line, int start, int end) throws IOException {
+        boolean negative = start < end && line.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i >= end) {
+            throw builder.malformed("expected a number");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                throw builder.malformed("expected a number");
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw builder.malformed("number out of range");
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+}
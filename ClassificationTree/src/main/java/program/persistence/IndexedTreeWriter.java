@@ -0,0 +1,192 @@
+package program.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a tree in the indexed binary format, which is laid out so that it
+ * can be memory mapped and any node found without reading the rest of the
+ * file. The file has three parts:
+ * <ul>
+ *  <li>a header of HEADER_SIZE bytes: the INDEXED magic number, the version
+ *  as an int, the node count as a long and the offset of the prompt heap as a
+ *  long
+ *  <li>a table with one ENTRY_SIZE byte entry per node in breadth first
+ *  order, holding the offset of the prompt within the heap as a long, the
+ *  prompt length, the node number and the table indices of the parent, left
+ *  child and right child as ints, with -1 for missing nodes
+ *  <li>the heap of UTF-8 encoded prompts
+ * </ul>
+ * Since nodes are written in breadth first order, the table indices of each
+ * node's children are known as soon as the node itself is written.
+ *
+ */
+public class IndexedTreeWriter implements Closeable {
+
+    /**
+     * Version of the indexed format written after the magic number.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * Size of each table entry in bytes.
+     */
+    public static final int ENTRY_SIZE = 32;
+
+    private final FileChannel channel;
+    private final ByteBuffer table;
+    private final ByteBuffer heap;
+    private final long count;
+    private final long heapStart;
+    private long tablePosition;
+    private long heapPosition;
+    private long heapOffset;
+    private int written;
+    private int nextChild = 1;
+    private int[] parents = new int[64];
+    private int parentsHead;
+    private int parentsTail;
+
+    /**
+     * Creates or truncates the given file and writes the header.
+     *
+     * @param path File to write.
+     * @param count Number of nodes which will be written.
+     * @throws IOException If the file cannot be opened.
+     */
+    public IndexedTreeWriter(Path path, int count) throws IOException {
+        this(path, count, BinaryTreeWriter.BUFFER_SIZE);
+    }
+
+    IndexedTreeWriter(Path path, int count, int bufferSize) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative.");
+        }
+        this.count = count;
+        this.heapStart = HEADER_SIZE + (long) count * ENTRY_SIZE;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        table = ByteBuffer.allocateDirect(Math.max(bufferSize / ENTRY_SIZE, 1) * ENTRY_SIZE);
+        heap = ByteBuffer.allocateDirect(Math.max(bufferSize, 16));
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(TreeFormat.INDEXED.magic()).putInt(VERSION).putLong(count).putLong(heapStart);
+        header.clear();
+        writeFully(header, 0);
+        tablePosition = HEADER_SIZE;
+        heapPosition = heapStart;
+    }
+
+    /**
+     * Writes the entry for the next node in breadth first order.
+     *
+     * @param number Number of the node.
+     * @param hasLeft True if the node has a left child.
+     * @param hasRight True if the node has a right child.
+     * @param prompt Prompt of the node.
+     * @throws IOException If writing fails, or more nodes are written than
+     * the count given when the writer was created.
+     */
+    public void write(int number, boolean hasLeft, boolean hasRight, String prompt) throws IOException {
+        if (written == count) {
+            throw new IOException("More nodes written than the " + count + " expected");
+        }
+        int parent = written == 0 ? -1 : pollParent();
+        int left = hasLeft ? addChild() : -1;
+        int right = hasRight ? addChild() : -1;
+        byte[] bytes = prompt.getBytes(StandardCharsets.UTF_8);
+
+        if (!table.hasRemaining()) {
+            flushTable();
+        }
+        table.putLong(heapOffset).putInt(bytes.length).putInt(number)
+                .putInt(parent).putInt(left).putInt(right).putInt(0);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!heap.hasRemaining()) {
+                flushHeap();
+            }
+            int length = Math.min(heap.remaining(), bytes.length - offset);
+            heap.put(bytes, offset, length);
+            offset += length;
+        }
+        heapOffset += bytes.length;
+        written++;
+    }
+
+    /**
+     * Gives the next table index to a child of the node being written, and
+     * remembers the node as that child's parent.
+     */
+    private int addChild() {
+        if (parentsTail == parents.length) {
+            if (parentsHead > 0) {
+                System.arraycopy(parents, parentsHead, parents, 0, parentsTail - parentsHead);
+                parentsTail -= parentsHead;
+                parentsHead = 0;
+            } else {
+                int[] larger = new int[parents.length * 2];
+                System.arraycopy(parents, 0, larger, 0, parentsTail);
+                parents = larger;
+            }
+        }
+        parents[parentsTail++] = written;
+        return nextChild++;
+    }
+
+    private int pollParent() throws IOException {
+        if (parentsHead == parentsTail) {
+            throw new IOException("Node " + written + " is not the child of any node written");
+        }
+        return parents[parentsHead++];
+    }
+
+    private void flushTable() throws IOException {
+        table.flip();
+        tablePosition += writeFully(table, tablePosition);
+        table.clear();
+    }
+
+    private void flushHeap() throws IOException {
+        heap.flip();
+        heapPosition += writeFully(heap, heapPosition);
+        heap.clear();
+    }
+
+    private int writeFully(ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return length;
+    }
+
+    /**
+     * Flushes the buffers and closes the file.
+     *
+     * @throws IOException If writing fails, or fewer nodes were written than
+     * the count given when the writer was created.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushTable();
+            flushHeap();
+            if (written != count) {
+                throw new IOException("Only " + written + " of " + count + " nodes were written");
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
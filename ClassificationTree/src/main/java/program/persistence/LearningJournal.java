@@ -0,0 +1,337 @@
+package program.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the animals learned since the tree was last
+ * saved. Each entry records the path from the root to the leaf that was
+ * split, as a string of Y (left) and N (right) answers, the new animal and
+ * the characteristic which tells it apart from the old leaf.
+ *
+ * Every entry is stored as its payload length, a CRC32 of the payload and the
+ * payload itself, so an entry torn by a crash is detected and dropped on
+ * replay. Appending and syncing are separate steps: many threads may append
+ * and then wait in sync, and one force of the file makes all of their entries
+ * durable at once.
+ *
+ */
+public class LearningJournal implements Closeable {
+
+    private static final int HEADER_SIZE = 8;
+
+    private final Path path;
+    private FileChannel channel;
+    private long size;
+    private long appended;
+
+    private final Object syncLock = new Object();
+    private long synced;
+    private boolean syncing;
+
+    /**
+     * An entry of the journal.
+     */
+    public static final class Entry {
+
+        private final String path;
+        private final String animal;
+        private final String characteristic;
+
+        public Entry(String path, String animal, String characteristic) {
+            this.path = path;
+            this.animal = animal;
+            this.characteristic = characteristic;
+        }
+
+        /**
+         * @return The answers leading from the root to the learned node, as Y
+         * for left and N for right.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        public String getAnimal() {
+            return animal;
+        }
+
+        public String getCharacteristic() {
+            return characteristic;
+        }
+    }
+
+    /**
+     * Creates a journal stored in the given file. The file is not created
+     * until the first entry is appended.
+     *
+     * @param path File holding the journal.
+     * @throws IOException If the size of an existing journal cannot be read.
+     */
+    public LearningJournal(Path path) throws IOException {
+        this.path = path;
+        this.size = Files.exists(path) ? Files.size(path) : 0;
+    }
+
+    /**
+     * Writes an entry to the end of the journal. The entry is not durable
+     * until sync has been called with the returned sequence number.
+     *
+     * @param nodePath Answers leading from the root to the learned node.
+     * @param animal The new animal.
+     * @param characteristic The characteristic of the new animal.
+     * @return Sequence number of the entry.
+     * @throws IOException If the entry cannot be written.
+     */
+    public synchronized long append(String nodePath, String animal, String characteristic) throws IOException {
+        byte[] pathBytes = nodePath.getBytes(StandardCharsets.UTF_8);
+        byte[] animalBytes = animal.getBytes(StandardCharsets.UTF_8);
+        byte[] characteristicBytes = characteristic.getBytes(StandardCharsets.UTF_8);
+        int length = 12 + pathBytes.length + animalBytes.length + characteristicBytes.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+        record.position(HEADER_SIZE);
+        record.putInt(pathBytes.length).put(pathBytes)
+                .putInt(animalBytes.length).put(animalBytes)
+                .putInt(characteristicBytes.length).put(characteristicBytes);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_SIZE, length);
+        record.putInt(0, length).putInt(4, (int) crc.getValue());
+        record.clear();
+
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        long position = size;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        size = position;
+        return ++appended;
+    }
+
+    /**
+     * Waits until the entry with the given sequence number, and all before
+     * it, are on disk. If no other thread is forcing the journal the caller
+     * does so, covering every entry appended so far; otherwise it waits for
+     * that force and only starts another if its entry was not covered.
+     *
+     * @param sequence Sequence number returned by append.
+     * @throws IOException If the journal cannot be forced to disk.
+     */
+    public void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            while (synced < sequence && syncing) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for the journal");
+                }
+            }
+            if (synced >= sequence) {
+                return;
+            }
+            syncing = true;
+        }
+        long target;
+        FileChannel current;
+        synchronized (this) {
+            target = appended;
+            current = channel;
+        }
+        boolean forced = false;
+        try {
+            if (current != null) {
+                current.force(false);
+            }
+            forced = true;
+        } catch (ClosedChannelException e) {
+            // replaced by discard, which forced the entries it kept
+            forced = true;
+        } finally {
+            synchronized (syncLock) {
+                syncing = false;
+                if (forced) {
+                    synced = Math.max(synced, target);
+                }
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Appends an entry and waits until it is on disk.
+     *
+     * @param nodePath Answers leading from the root to the learned node.
+     * @param animal The new animal.
+     * @param characteristic The characteristic of the new animal.
+     * @throws IOException If the entry cannot be written.
+     */
+    public void record(String nodePath, String animal, String characteristic) throws IOException {
+        sync(append(nodePath, animal, characteristic));
+    }
+
+    /**
+     * Reads every complete entry of the journal. A torn or corrupt entry at
+     * the end, left by a crash during an append, is cut off the file.
+     *
+     * @return The entries in the order they were appended.
+     * @throws IOException If the journal cannot be read.
+     */
+    public synchronized List<Entry> replay() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        long valid = 0;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 12 || length > size - valid - HEADER_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                Entry entry = decode(ByteBuffer.wrap(payload));
+                if (entry == null) {
+                    break;
+                }
+                entries.add(entry);
+                valid += HEADER_SIZE + length;
+            }
+        }
+        if (valid < size) {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                file.truncate(valid);
+                file.force(false);
+            }
+            size = valid;
+        }
+        return entries;
+    }
+
+    private static Entry decode(ByteBuffer payload) {
+        String[] fields = new String[3];
+        for (int i = 0; i < fields.length; i++) {
+            if (payload.remaining() < 4) {
+                return null;
+            }
+            int length = payload.getInt();
+            if (length < 0 || length > payload.remaining()) {
+                return null;
+            }
+            fields[i] = new String(payload.array(), payload.position(), length, StandardCharsets.UTF_8);
+            payload.position(payload.position() + length);
+        }
+        return new Entry(fields[0], fields[1], fields[2]);
+    }
+
+    /**
+     * Empties the journal, once its entries are part of a saved tree.
+     *
+     * @throws IOException If the journal cannot be truncated.
+     */
+    public synchronized void reset() throws IOException {
+        if (channel != null) {
+            channel.truncate(0);
+            channel.force(false);
+        } else if (Files.exists(path)) {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                file.truncate(0);
+                file.force(false);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Drops the given number of bytes from the start of the journal, once the
+     * entries they hold are part of a saved tree, keeping any entries
+     * appended since. The kept entries are copied to a new file which is
+     * synced to disk and then replaces the journal.
+     *
+     * @param length Size of the journal when the saved tree was taken.
+     * @throws IOException If the journal cannot be rewritten.
+     */
+    public synchronized void discard(long length) throws IOException {
+        if (length >= size) {
+            reset();
+            return;
+        }
+        if (length <= 0) {
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = length;
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+            target.force(false);
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        size -= length;
+    }
+
+    /**
+     * @return The size of the journal in bytes.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Closes the journal file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
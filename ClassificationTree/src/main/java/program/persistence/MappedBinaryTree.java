@@ -0,0 +1,320 @@
+package program.persistence;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.TreeStatistics;
+import program.structures.impl.ConcurrentLinkedBinaryTree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A ConcurrentLinkedBinaryTree of Datum objects which is served from a memory
+ * mapped file in the indexed format. Mapping a file only creates the root; a
+ * node's children are created, with their Datum objects, the first time they
+ * are asked for, so startup time does not depend on the size of the file and
+ * memory use grows only with the parts of the tree that are actually visited.
+ *
+ * Once created, nodes are ordinary concurrent nodes, so sessions may walk the
+ * tree while learning adds to and changes it in memory as usual; the mapped
+ * file is never written to. Saving the tree visits and therefore creates
+ * every node, and must not overwrite the mapped file in place.
+ *
+ * Closing the tree drops its mapping, after which nodes not yet created can
+ * no longer be read. The file stays mapped until the mapping is garbage
+ * collected, since Java 8 offers no way to unmap it at once.
+ *
+ */
+public class MappedBinaryTree extends ConcurrentLinkedBinaryTree<Datum> implements Closeable {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private volatile Mapping mapping;
+    private final AtomicInteger materialized = new AtomicInteger();
+
+    /**
+     * A mapped file, split into segments of at most a gigabyte each.
+     */
+    private static final class Mapping {
+
+        private volatile ByteBuffer[] segments;
+        private final long count;
+        private final long heapStart;
+
+        Mapping(Path path) throws IOException {
+            ByteBuffer[] mapped;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long length = channel.size();
+                mapped = new ByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+                for (int i = 0; i < mapped.length; i++) {
+                    long start = (long) i << SEGMENT_SHIFT;
+                    MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                            Math.min(SEGMENT_MASK + 1, length - start));
+                    mapped[i] = segment;
+                }
+                if (length < IndexedTreeWriter.HEADER_SIZE) {
+                    throw new IOException("Not an indexed tree file");
+                }
+                byte[] magic = TreeFormat.INDEXED.magic();
+                for (int i = 0; i < magic.length; i++) {
+                    if (mapped[0].get(i) != magic[i]) {
+                        throw new IOException("Not an indexed tree file");
+                    }
+                }
+                int version = mapped[0].getInt(4);
+                if (version != IndexedTreeWriter.VERSION) {
+                    throw new IOException("Unsupported indexed tree version " + version);
+                }
+                count = mapped[0].getLong(8);
+                heapStart = mapped[0].getLong(16);
+                if (count < 0 || count > Integer.MAX_VALUE
+                        || heapStart != IndexedTreeWriter.HEADER_SIZE + count * IndexedTreeWriter.ENTRY_SIZE
+                        || heapStart > length) {
+                    throw new IOException("Indexed tree file is corrupt");
+                }
+            }
+            segments = mapped;
+        }
+
+        long entry(int index) {
+            return IndexedTreeWriter.HEADER_SIZE + (long) index * IndexedTreeWriter.ENTRY_SIZE;
+        }
+
+        /**
+         * @return The index of a child of the entry, or -1 if it has none on
+         * that side.
+         */
+        int child(int index, boolean left) {
+            int child = getInt(entry(index) + (left ? 20 : 24));
+            if (child >= count) {
+                throw new UncheckedIOException(new IOException("Indexed tree file is corrupt"));
+            }
+            return child;
+        }
+
+        Datum readDatum(int index) {
+            ByteBuffer[] mapped = segments();
+            long entry = entry(index);
+            long offset = heapStart + getLong(entry);
+            int length = getInt(entry + 8);
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; ) {
+                ByteBuffer segment = mapped[(int) ((offset + i) >>> SEGMENT_SHIFT)];
+                int position = (int) ((offset + i) & SEGMENT_MASK);
+                int chunk = Math.min(length - i, segment.capacity() - position);
+                ByteBuffer view = segment.duplicate();
+                view.position(position);
+                view.get(bytes, i, chunk);
+                i += chunk;
+            }
+            Datum datum = new Datum(new String(bytes, StandardCharsets.UTF_8), getInt(entry + 12));
+            int parent = getInt(entry + 16);
+            datum.setSide(parent >= 0 && getInt(entry(parent) + 20) == index ? "l" : "r");
+            return datum;
+        }
+
+        private int getInt(long position) {
+            return segments()[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & SEGMENT_MASK));
+        }
+
+        private long getLong(long position) {
+            return segments()[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & SEGMENT_MASK));
+        }
+
+        private ByteBuffer[] segments() {
+            ByteBuffer[] mapped = segments;
+            if (mapped == null) {
+                throw new IllegalStateException("The mapped file has been closed.");
+            }
+            return mapped;
+        }
+
+        void close() {
+            segments = null;
+        }
+    }
+
+    /**
+     * Where in the mapped file the children of a node are found.
+     */
+    private static final class Entry {
+
+        final Mapping mapping;
+        final int index;
+
+        Entry(Mapping mapping, int index) {
+            this.mapping = mapping;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Creates an empty tree, to which a file may be mapped later.
+     */
+    public MappedBinaryTree() {
+    }
+
+    /**
+     * Maps the given file, which must be in the indexed format, and creates
+     * the root node of the tree.
+     *
+     * @param path File to map.
+     * @throws IOException If the file cannot be mapped or is not a valid
+     * indexed tree file.
+     */
+    public MappedBinaryTree(Path path) throws IOException {
+        map(path);
+    }
+
+    /**
+     * Replaces the tree with the one in the given file, which must be in the
+     * indexed format, creating only its root, and closes the file mapped
+     * before.
+     *
+     * @param path File to map.
+     * @throws IOException If the file cannot be mapped or is not a valid
+     * indexed tree file, in which case the tree is left as it was.
+     */
+    public void map(Path path) throws IOException {
+        Mapping next = new Mapping(path);
+        Mapping previous = mapping;
+        mapping = next;
+        if (next.count > 0) {
+            setDeferredRoot(next.readDatum(0), new Entry(next, 0), (int) next.count);
+            materialized.set(1);
+        } else {
+            setRoot(null);
+            materialized.set(0);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Reads the child from the entry the node was created from.
+     * {@inheritDoc}
+     */
+    @Override
+    protected BinaryTreeNode<Datum> deferredChild(BinaryTreeNode<Datum> parent, Object source, boolean left) {
+        Entry entry = (Entry) source;
+        int child = entry.mapping.child(entry.index, left);
+        if (child < 0) {
+            return null;
+        }
+        materialized.incrementAndGet();
+        return createDeferredNode(entry.mapping.readDatum(child), parent, new Entry(entry.mapping, child));
+    }
+
+    /**
+     * Nodes are created from the file as they are visited, so their subtree
+     * statistics are not maintained; nothing is measured.
+     */
+    @Override
+    protected void updateAncestors(BinaryTreeNode<Datum> node) {
+    }
+
+    /**
+     * Measures the subtree by walking it, which creates every node of the
+     * subtree from the mapped file.
+     * {@inheritDoc}
+     */
+    @Override
+    public TreeStatistics statistics(Node<Datum> node) throws IllegalArgumentException {
+        return TreeStatistics.measure(this, validate(node));
+    }
+
+    /**
+     * Nodes are created from the file as they are visited, so their subtree
+     * statistics are not maintained.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean maintainsStatistics() {
+        return false;
+    }
+
+    /**
+     * @return The number of nodes which have been created from the mapped
+     * file so far.
+     */
+    public int materializedCount() {
+        return materialized.get();
+    }
+
+    /**
+     * Copies the whole tree as it is stored in the mapped file into the given
+     * tree, replacing any nodes it currently holds. The entries are read from
+     * the file directly, so no mapped nodes are created and the copy keeps
+     * whatever guarantees its own implementation gives.
+     *
+     * @param tree Tree to copy into.
+     * @throws IOException If the entries of the file do not form a tree.
+     * @throws IllegalArgumentException If the tree is null.
+     * @throws IllegalStateException If no file is mapped.
+     */
+    public void copyTo(BinaryTree<Datum> tree) throws IOException, IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("Tree cannot be null.");
+        }
+        Mapping mapped = mapping;
+        if (mapped == null) {
+            throw new IllegalStateException("No file is mapped.");
+        }
+        if (mapped.count == 0) {
+            return;
+        }
+        Deque<Integer> indices = new ArrayDeque<>();
+        Deque<Node<Datum>> copies = new ArrayDeque<>();
+        indices.add(0);
+        copies.add(tree.setRoot(mapped.readDatum(0)));
+        long copied = 1;
+        try {
+            while (!indices.isEmpty()) {
+                int index = indices.poll();
+                Node<Datum> copy = copies.poll();
+                int left = mapped.child(index, true);
+                int right = mapped.child(index, false);
+                copied += (left >= 0 ? 1 : 0) + (right >= 0 ? 1 : 0);
+                if (copied > mapped.count) {
+                    throw new IOException("Indexed tree file is corrupt");
+                }
+                if (left >= 0) {
+                    indices.add(left);
+                    copies.add(tree.addLeft(copy, mapped.readDatum(left)));
+                }
+                if (right >= 0) {
+                    indices.add(right);
+                    copies.add(tree.addRight(copy, mapped.readDatum(right)));
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Drops the mapping of the file. Nodes already created stay readable;
+     * those not yet created can no longer be.
+     */
+    @Override
+    public void close() {
+        Mapping mapped = mapping;
+        mapping = null;
+        if (mapped != null) {
+            mapped.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package program.persistence;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds a tree from the records of a saved tree, each of which names its
+ * parent's number and the side it hangs on. Records are attached directly
+ * below their parent, which is found by number rather than by walking down
+ * from the root, so parents must be added before their children.
+ *
+ * Numbers are normally dense, so they index straight into an array; numbers
+ * far beyond the count loaded so far go to a map to avoid allocating a huge,
+ * mostly empty array.
+ *
+ */
+class TreeBuilder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final BinaryTree<Datum> tree;
+    private final String unit;
+    private Node<Datum>[] nodes;
+    private Map<Integer, Node<Datum>> sparseNodes;
+    private Node<Datum> root;
+    private long count;
+
+    /**
+     * Constructs a new builder which will place the loaded nodes into the
+     * provided tree, replacing any nodes it currently holds.
+     *
+     * @param tree Tree to load into.
+     * @param unit Name of a record in error messages, such as Line.
+     * @throws IllegalArgumentException If the tree is null.
+     */
+    @SuppressWarnings("unchecked")
+    TreeBuilder(BinaryTree<Datum> tree, String unit) throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException("Tree cannot be null.");
+        }
+        this.tree = tree;
+        this.unit = unit;
+        this.nodes = new Node[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds the current record to the tree.
+     *
+     * @param parentNum Number of the parent, or -1 for the root.
+     * @param datum Datum of the record, holding its number.
+     * @param left True if the record is the left child of its parent.
+     * @return The node created for the record.
+     * @throws IOException If the record repeats a number, is a second root, or
+     * refers to a parent which has not been added yet.
+     */
+    Node<Datum> add(int parentNum, Datum datum, boolean left) throws IOException {
+        int number = datum.getNumber();
+        if (number < 0) {
+            throw malformed("node numbers cannot be negative");
+        }
+        if (get(number) != null) {
+            throw malformed("node " + number + " is defined twice");
+        }
+        Node<Datum> node;
+        if (parentNum == -1) {
+            if (root != null) {
+                throw malformed("tree has more than one root");
+            }
+            node = tree.setRoot(datum);
+            root = node;
+        } else {
+            Node<Datum> parent = get(parentNum);
+            if (parent == null) {
+                throw malformed("parent " + parentNum + " has not been loaded yet");
+            }
+            node = left ? tree.addLeft(parent, datum) : tree.addRight(parent, datum);
+        }
+        put(number, node);
+        return node;
+    }
+
+    /**
+     * Returns an exception describing a problem with the current record.
+     *
+     * @param reason Description of the problem.
+     * @return The exception to throw.
+     */
+    IOException malformed(String reason) {
+        return new IOException(unit + " " + count + ": " + reason);
+    }
+
+    /**
+     * Moves on to the next record, so that error messages give its position.
+     * Loaders call this before reading each record, including any they skip.
+     */
+    void next() {
+        count++;
+    }
+
+    private Node<Datum> get(int number) {
+        if (number >= 0 && number < nodes.length) {
+            return nodes[number];
+        }
+        return sparseNodes == null ? null : sparseNodes.get(number);
+    }
+
+    private void put(int number, Node<Datum> node) {
+        if (number >= nodes.length && number <= 4L * count + INITIAL_CAPACITY) {
+            nodes = Arrays.copyOf(nodes, Math.max(number + 1, nodes.length * 2));
+        }
+        if (number < nodes.length) {
+            nodes[number] = node;
+        } else {
+            if (sparseNodes == null) {
+                sparseNodes = new HashMap<>();
+            }
+            sparseNodes.put(number, node);
+        }
+    }
+}
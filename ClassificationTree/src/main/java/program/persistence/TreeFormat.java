@@ -0,0 +1,79 @@
+package program.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The file formats a classification tree can be saved in. Binary formats
+ * start with a magic number, which lets the format of a file be detected
+ * before it is loaded.
+ *
+ */
+public enum TreeFormat {
+
+    /**
+     * The colon separated text format written by the EnumeratedSaveCommand.
+     */
+    TEXT(null),
+
+    /**
+     * The compact binary format written by the BinaryTreeWriter.
+     */
+    BINARY(new byte[]{'C', 'T', 'R', 'B'}),
+
+    /**
+     * The indexed binary format written by the IndexedTreeWriter, which can be
+     * memory mapped and read lazily by a MappedBinaryTree.
+     */
+    INDEXED(new byte[]{'C', 'T', 'R', 'I'});
+
+    private static final int MAGIC_LENGTH = 4;
+
+    private final byte[] magic;
+
+    TreeFormat(byte[] magic) {
+        this.magic = magic;
+    }
+
+    /**
+     * Returns a copy of the magic number which starts files of this format.
+     *
+     * @return The magic number, or null for the text format.
+     */
+    public byte[] magic() {
+        return magic == null ? null : magic.clone();
+    }
+
+    /**
+     * Detects the format of a saved tree from the start of the file. Files
+     * which do not start with a known magic number are taken to be text.
+     *
+     * @param path File to inspect.
+     * @return The format of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static TreeFormat detect(Path path) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(MAGIC_LENGTH);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // keep reading until the magic number is complete or the file ends
+            }
+        }
+        head.flip();
+        for (TreeFormat format : values()) {
+            if (format.magic != null && format.magic.length == head.remaining()) {
+                boolean matches = true;
+                for (int i = 0; i < format.magic.length; i++) {
+                    matches &= format.magic[i] == head.get(i);
+                }
+                if (matches) {
+                    return format;
+                }
+            }
+        }
+        return TEXT;
+    }
+}
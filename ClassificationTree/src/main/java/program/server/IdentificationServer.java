@@ -0,0 +1,371 @@
+package program.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import program.ClassificationTree;
+import program.Datum;
+import program.IdentificationSession;
+import program.structures.Node;
+import program.structures.TreeStatistics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves a classification tree over HTTP, so that many clients can identify
+ * animals with one shared tree at once. Requests are form encoded and
+ * responses are plain text lines of the form "name: value":
+ * <ul>
+ *  <li>POST /sessions starts a session and responds with its id, state and
+ *  prompt
+ *  <li>POST /sessions/{id} with an answer advances the session and responds
+ *  with its state, prompt and any message
+ *  <li>DELETE /sessions/{id} ends a session
+ *  <li>POST /learn with a path of Y and N answers, an animal and a
+ *  characteristic learns an animal at the leaf the path leads to
+ *  <li>POST /save saves the tree over the file it was loaded from
+ *  <li>GET /complete with an animal, characteristic or word prefix, and an
+ *  optional limit, responds with the matching prompts
+ *  <li>GET /stats responds with the session store's counts and the shape
+ *  of the tree
+ * </ul>
+ * Sessions end instead of asking for a file name once the user has no more
+ * animals, since every learned animal is already in the tree's journal. The
+ * server never writes to a file named by a client. Sessions are kept in a
+ * SessionStore, so sessions abandoned part way through expire, and the least
+ * recently used are evicted once the store is full.
+ *
+ * Each request runs on a thread of its own: a virtual thread where the
+ * runtime has them, otherwise a thread from a cached pool. Answers to the same
+ * session are taken in turn under the session's lock, and the response is
+ * sent once the lock is released.
+ *
+ */
+public class IdentificationServer implements Closeable {
+
+    private static final int BACKLOG = 1024;
+    private static final String PLAIN_TEXT = "text/plain; charset=utf-8";
+
+    /**
+     * Number of sessions held by default.
+     */
+    public static final int DEFAULT_MAX_SESSIONS = 100000;
+
+    /**
+     * Minutes a session may go unused by default before it expires.
+     */
+    public static final long DEFAULT_SESSION_TTL_MINUTES = 30;
+
+    /**
+     * Number of matches /complete responds with unless a limit is given.
+     */
+    public static final int DEFAULT_COMPLETIONS = 10;
+
+    private final ClassificationTree tree;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SessionStore<IdentificationSession> sessions;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates a server for the provided tree listening on the given address,
+     * with the default session limits. The server does not accept requests
+     * until it is started.
+     *
+     * @param tree The tree to serve.
+     * @param address Address to listen on; port 0 picks a free port.
+     * @throws IOException If the address cannot be bound.
+     */
+    public IdentificationServer(ClassificationTree tree, InetSocketAddress address) throws IOException {
+        this(tree, address, new SessionStore<>(DEFAULT_MAX_SESSIONS, DEFAULT_SESSION_TTL_MINUTES, TimeUnit.MINUTES));
+    }
+
+    /**
+     * Creates a server for the provided tree listening on the given address,
+     * keeping sessions in the provided store.
+     *
+     * @param tree The tree to serve.
+     * @param address Address to listen on; port 0 picks a free port.
+     * @param sessions Store to keep sessions in.
+     * @throws IOException If the address cannot be bound.
+     */
+    public IdentificationServer(ClassificationTree tree, InetSocketAddress address,
+                                SessionStore<IdentificationSession> sessions) throws IOException {
+        this.tree = tree;
+        this.sessions = sessions;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/sessions", this::handleSessions);
+        server.createContext("/learn", this::handleLearn);
+        server.createContext("/save", this::handleSave);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/complete", this::handleComplete);
+    }
+
+    /**
+     * @return An executor running each task on a new virtual thread if the
+     * runtime supports them, otherwise on a cached pool of daemon threads.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "identification-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return The address the server is listening on.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * @return The store holding the sessions in progress.
+     */
+    public SessionStore<IdentificationSession> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Stops accepting requests and stops the request threads.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleSessions(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals("/sessions") || path.equals("/sessions/")) {
+                if (!method.equals("POST")) {
+                    respond(exchange, 405, "error: use POST to start a session\n");
+                    return;
+                }
+                IdentificationSession session = tree.newSession();
+                String id = add(session);
+                respond(exchange, 201, "session: " + id + "\n" + describe(session, null));
+                return;
+            }
+            String id = path.substring("/sessions/".length());
+            IdentificationSession session = sessions.get(id);
+            if (session == null) {
+                respond(exchange, 404, "error: no session " + id + "\n");
+            } else if (method.equals("DELETE")) {
+                sessions.remove(id);
+                respond(exchange, 200, "state: DONE\n");
+            } else if (method.equals("POST")) {
+                String answer = form(exchange).get("answer");
+                if (answer == null) {
+                    respond(exchange, 400, "error: missing answer\n");
+                    return;
+                }
+                String response;
+                session.getLock().lock();
+                try {
+                    if (session.getState() == IdentificationSession.State.DONE || !sessions.contains(id, session)) {
+                        response = null;
+                    } else {
+                        String message = session.answer(answer);
+                        if (session.getState() == IdentificationSession.State.DONE) {
+                            sessions.remove(id);
+                        }
+                        response = describe(session, message);
+                    }
+                } finally {
+                    session.getLock().unlock();
+                }
+                if (response == null) {
+                    respond(exchange, 404, "error: no session " + id + "\n");
+                } else {
+                    respond(exchange, 200, response);
+                }
+            } else {
+                respond(exchange, 405, "error: use POST to answer or DELETE to end a session\n");
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            respond(exchange, 400, "error: " + e.getMessage() + "\n");
+        } catch (IOException e) {
+            respond(exchange, 500, "error: " + e.getMessage() + "\n");
+        }
+    }
+
+    private void handleLearn(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "error: use POST to learn\n");
+                return;
+            }
+            Map<String, String> form = form(exchange);
+            String path = form.get("path");
+            String animal = form.get("animal");
+            String characteristic = form.get("characteristic");
+            if (path == null || animal == null || characteristic == null) {
+                respond(exchange, 400, "error: path, animal and characteristic are required\n");
+                return;
+            }
+            tree.learn(path, animal, characteristic);
+            respond(exchange, 200, "learned: " + animal + "\n");
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, "error: " + e.getMessage() + "\n");
+        } catch (IOException e) {
+            respond(exchange, 500, "error: " + e.getMessage() + "\n");
+        }
+    }
+
+    private void handleSave(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            respond(exchange, 405, "error: use POST to save\n");
+            return;
+        }
+        try {
+            tree.compact();
+            respond(exchange, 200, "saved: true\n");
+        } catch (IOException e) {
+            respond(exchange, 500, "error: " + e.getMessage() + "\n");
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        sessions.cleanUp();
+        TreeStatistics shape = tree.statistics();
+        respond(exchange, 200, "sessions: " + sessions.size() + "\n"
+                + "hits: " + sessions.hitCount() + "\n"
+                + "misses: " + sessions.missCount() + "\n"
+                + "evictions: " + sessions.evictionCount() + "\n"
+                + "expirations: " + sessions.expirationCount() + "\n"
+                + "nodes: " + shape.getSize() + "\n"
+                + "animals: " + shape.getLeafCount() + "\n"
+                + "height: " + shape.getHeight() + "\n"
+                + "average-questions: " + shape.getAverageLeafDepth() + "\n"
+                + "imbalance: " + shape.getImbalance() + "\n");
+    }
+
+    private void handleComplete(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> query = form(exchange);
+            int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_COMPLETIONS;
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            List<Node<Datum>> matches;
+            if (query.containsKey("animal")) {
+                matches = tree.completeAnimal(query.get("animal"), limit);
+            } else if (query.containsKey("characteristic")) {
+                matches = tree.completeCharacteristic(query.get("characteristic"), limit);
+            } else if (query.containsKey("word")) {
+                matches = tree.findMentions(query.get("word"), limit);
+            } else {
+                respond(exchange, 400, "error: animal, characteristic or word is required\n");
+                return;
+            }
+            StringBuilder out = new StringBuilder();
+            for (Node<Datum> match : matches) {
+                out.append("match: ").append(match.getElement().getPrompt()).append('\n');
+            }
+            respond(exchange, 200, out.toString());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, "error: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Adds a session to the store under a new random id.
+     */
+    private String add(IdentificationSession session) {
+        String id;
+        do {
+            id = Long.toHexString(random.nextLong() & Long.MAX_VALUE);
+        } while (!sessions.putIfAbsent(id, session));
+        return id;
+    }
+
+    private static String describe(IdentificationSession session, String message) {
+        StringBuilder out = new StringBuilder();
+        if (message != null) {
+            out.append("message: ").append(message).append('\n');
+        }
+        out.append("state: ").append(session.getState()).append('\n');
+        String prompt = session.getPrompt();
+        if (prompt != null) {
+            out.append("prompt: ").append(prompt).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads the form encoded request body, or the query if there is no body.
+     */
+    private static Map<String, String> form(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                body.write(buffer, 0, read);
+            }
+        }
+        String encoded = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        if (encoded.isEmpty() && exchange.getRequestURI().getRawQuery() != null) {
+            encoded = exchange.getRequestURI().getRawQuery();
+        }
+        Map<String, String> form = new HashMap<>();
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            form.put(decode(name), decode(value));
+        }
+        return form;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", PLAIN_TEXT);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
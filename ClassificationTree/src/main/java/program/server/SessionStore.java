@@ -0,0 +1,248 @@
+package program.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded registry of sessions keyed by id. A session which has not been
+ * used for longer than the idle time to live is expired, and when the store
+ * is full the least recently used session is evicted to make room, so
+ * abandoned sessions cannot pile up.
+ *
+ * The store is split into stripes, each a LinkedHashMap in access order
+ * guarded by its own lock, so threads working on different sessions rarely
+ * contend. Least recently used is tracked per stripe, which is exact enough
+ * when ids are spread evenly. Hits, misses, evictions and expirations are
+ * counted so the capacity and time to live can be sized from real use.
+ *
+ * @param <V> Type of the sessions stored.
+ */
+public class SessionStore<V> {
+
+    private static final int DEFAULT_STRIPES = 16;
+
+    private final Stripe<V>[] stripes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private static final class Entry<V> {
+
+        final V value;
+        long lastAccess;
+
+        Entry(V value, long lastAccess) {
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static final class Stripe<V> {
+
+        final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        final int capacity;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Creates a store holding at most the given number of sessions.
+     *
+     * @param capacity Largest number of sessions held.
+     * @param ttl Time a session may go unused before it expires.
+     * @param unit Unit of the time to live.
+     * @throws IllegalArgumentException If the capacity or time to live is not
+     * positive.
+     */
+    public SessionStore(int capacity, long ttl, TimeUnit unit) {
+        this(capacity, unit.toNanos(ttl), DEFAULT_STRIPES, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    SessionStore(int capacity, long ttlNanos, int stripeCount, LongSupplier clock) {
+        if (capacity <= 0 || ttlNanos <= 0 || stripeCount <= 0) {
+            throw new IllegalArgumentException("Capacity, time to live and stripes must be positive.");
+        }
+        stripeCount = Math.min(stripeCount, capacity);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // spread the capacity so the stripes add up to exactly capacity
+            this.stripes[i] = new Stripe<>(capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0));
+        }
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+    }
+
+    private Stripe<V> stripe(String id) {
+        int hash = id.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[(hash & Integer.MAX_VALUE) % stripes.length];
+    }
+
+    /**
+     * Returns the session with the given id and marks it as used.
+     *
+     * @param id Id of the session.
+     * @return The session, or null if there is none or it has expired.
+     */
+    public V get(String id) {
+        Stripe<V> stripe = stripe(id);
+        synchronized (stripe) {
+            long now = clock.getAsLong();
+            Entry<V> entry = stripe.entries.get(id);
+            if (entry != null && now - entry.lastAccess > ttlNanos) {
+                stripe.entries.remove(id);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            entry.lastAccess = now;
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Tests whether the given session is still held under the id, without
+     * counting a hit.
+     *
+     * @param id Id of the session.
+     * @param session The session.
+     * @return True if the id maps to that same session and it has not
+     * expired.
+     */
+    public boolean contains(String id, V session) {
+        Stripe<V> stripe = stripe(id);
+        synchronized (stripe) {
+            Entry<V> entry = stripe.entries.get(id);
+            return entry != null && entry.value == session && clock.getAsLong() - entry.lastAccess <= ttlNanos;
+        }
+    }
+
+    /**
+     * Adds a session unless one with the same id is already held. Expired
+     * sessions of the same stripe are dropped first, then the least recently
+     * used one is evicted if the stripe is still full.
+     *
+     * @param id Id of the session.
+     * @param session The session.
+     * @return True if the session was added.
+     */
+    public boolean putIfAbsent(String id, V session) {
+        if (session == null) {
+            throw new IllegalArgumentException("Session cannot be null.");
+        }
+        Stripe<V> stripe = stripe(id);
+        synchronized (stripe) {
+            long now = clock.getAsLong();
+            expire(stripe, now);
+            if (stripe.entries.containsKey(id)) {
+                return false;
+            }
+            if (stripe.entries.size() >= stripe.capacity) {
+                Iterator<Map.Entry<String, Entry<V>>> eldest = stripe.entries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+            stripe.entries.put(id, new Entry<>(session, now));
+            return true;
+        }
+    }
+
+    /**
+     * Removes the session with the given id.
+     *
+     * @param id Id of the session.
+     * @return The removed session, or null if there was none.
+     */
+    public V remove(String id) {
+        Stripe<V> stripe = stripe(id);
+        synchronized (stripe) {
+            Entry<V> entry = stripe.entries.remove(id);
+            return entry == null ? null : entry.value;
+        }
+    }
+
+    /**
+     * Drops every expired session.
+     */
+    public void cleanUp() {
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                expire(stripe, clock.getAsLong());
+            }
+        }
+    }
+
+    /**
+     * Drops the expired sessions of a stripe, which being in access order are
+     * all at its start.
+     */
+    private void expire(Stripe<V> stripe, long now) {
+        Iterator<Entry<V>> entries = stripe.entries.values().iterator();
+        while (entries.hasNext()) {
+            if (now - entries.next().lastAccess <= ttlNanos) {
+                return;
+            }
+            entries.remove();
+            expirations.increment();
+        }
+    }
+
+    /**
+     * @return The number of sessions held, including any expired ones not yet
+     * dropped.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The number of gets which found their session.
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of gets which found no session.
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of sessions evicted to make room for new ones.
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The number of sessions dropped because they went unused for
+     * longer than the time to live.
+     */
+    public long expirationCount() {
+        return expirations.sum();
+    }
+}
@@ -0,0 +1,333 @@
+package program.structures;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * An index answering ancestry questions about the nodes of a tree without
+ * walking parent links. The nodes are numbered in preorder, so the subtree of
+ * a node is the interval from its number up to its exit number, and a node is
+ * an ancestor of another exactly when the other's number falls in its
+ * interval, which is checked in constant time. Besides its parent, every node
+ * keeps one jump pointer to an ancestor chosen by the skew binary scheme of
+ * Myers, so that following jumps where they do not overshoot and parents
+ * where they do reaches any ancestor in O(log n) steps. This finds the lowest
+ * common ancestor of two nodes, or the ancestor a given number of generations
+ * up.
+ *
+ * The index is a snapshot of the tree when it was built, and it can be
+ * shared between threads without locking. Building it walks the whole tree
+ * once, in O(n), and it holds four ints and an array slot per node, plus an
+ * entry of the hash map from nodes to their numbers, which at around 50 bytes
+ * is the largest part: a tree of ten million nodes takes some 700MB, however
+ * deep it is. It is worth building only when it answers many questions
+ * between changes to the tree.
+ *
+ * A tree which only grows, its nodes staying where they are, need not be
+ * indexed again after every change: addLeaf records a node added below an
+ * indexed or recorded one without renumbering anything. A question about a
+ * recorded node walks up the recorded nodes above it to the indexed node
+ * they hang from and goes on from there, so it takes time in proportion to
+ * how many recorded nodes are stacked there; once isDegraded says they have
+ * grown too many or too high, the tree should be indexed again. Leaves are
+ * recorded by one thread at a time, while questions may be asked from any
+ * thread and see each recorded leaf either whole or not at all.
+ *
+ * @param <E> The type of data stored in the tree.
+ */
+public final class AncestryIndex<E> {
+
+    private final Map<Node<E>, Integer> numbers;
+    private final Node<E>[] nodes;
+    private final int[] exit;
+    private final int[] depth;
+    private final int[] parent;
+    private final int[] jump;
+    private final Map<Node<E>, Recorded<E>> recorded = new ConcurrentHashMap<>();
+    private volatile int recordedHeight;
+
+    /**
+     * A node added below the tree after it was indexed.
+     */
+    private static final class Recorded<E> {
+
+        final Node<E> node;
+        final Node<E> parent;
+        final int anchor;
+        final int depth;
+
+        /**
+         * @param anchor Number of the indexed node the recorded nodes above
+         * this one hang from.
+         */
+        Recorded(Node<E> node, Node<E> parent, int anchor, int depth) {
+            this.node = node;
+            this.parent = parent;
+            this.anchor = anchor;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Indexes the provided tree.
+     *
+     * @param tree The tree to index.
+     */
+    @SuppressWarnings("unchecked")
+    public AncestryIndex(Tree<E> tree) {
+        List<Node<E>> order = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+        numbers = new HashMap<>();
+        if (!tree.isEmpty()) {
+            Deque<Node<E>> stack = new ArrayDeque<>();
+            Deque<Integer> stackParents = new ArrayDeque<>();
+            List<Node<E>> children = new ArrayList<>(2);
+            Consumer<Node<E>> collect = children::add;
+            stack.push(tree.root());
+            stackParents.push(-1);
+            while (!stack.isEmpty()) {
+                Node<E> node = stack.pop();
+                int above = stackParents.pop();
+                int number = order.size();
+                numbers.put(node, number);
+                order.add(node);
+                parents.add(above);
+                tree.forEachChild(node, collect);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                    stackParents.push(number);
+                }
+                children.clear();
+            }
+        }
+        int n = order.size();
+        nodes = order.toArray(new Node[n]);
+        exit = new int[n];
+        depth = new int[n];
+        parent = new int[n];
+        jump = new int[n];
+        for (int i = 1; i < n; i++) {
+            int p = parents.get(i);
+            parent[i] = p;
+            depth[i] = depth[p] + 1;
+            // jump twice as far when the parent's jump and the one after it
+            // cover equal distances, otherwise start again from the parent
+            int j = jump[p];
+            jump[i] = depth[p] - depth[j] == depth[j] - depth[jump[j]] ? jump[j] : p;
+        }
+        if (n > 0) {
+            parent[0] = -1;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            exit[i] = Math.max(exit[i], i + 1);
+            if (i > 0) {
+                exit[parent[i]] = Math.max(exit[parent[i]], exit[i]);
+            }
+        }
+    }
+
+    /**
+     * @return The number of nodes indexed or recorded.
+     */
+    public int size() {
+        return nodes.length + recorded.size();
+    }
+
+    /**
+     * @param node A node.
+     * @return True if the node was in the tree when it was indexed, or has
+     * been recorded since.
+     */
+    public boolean contains(Node<E> node) {
+        return node != null && (numbers.containsKey(node) || recorded.containsKey(node));
+    }
+
+    /**
+     * Records a node added to the tree below a node which is indexed or
+     * recorded, in constant time. Must not be called by two threads at once.
+     *
+     * @param parent The node the new node was added below.
+     * @param node The new node.
+     * @throws IllegalArgumentException If the parent is neither indexed nor
+     * recorded, or the node already is.
+     */
+    public void addLeaf(Node<E> parent, Node<E> node) throws IllegalArgumentException {
+        if (node == null || contains(node)) {
+            throw new IllegalArgumentException("Node is null or indexed already.");
+        }
+        Integer number = parent == null ? null : numbers.get(parent);
+        Recorded<E> leaf;
+        if (number != null) {
+            leaf = new Recorded<>(node, parent, number, depth[number] + 1);
+        } else {
+            Recorded<E> above = recorded(parent);
+            leaf = new Recorded<>(node, parent, above.anchor, above.depth + 1);
+        }
+        recorded.put(node, leaf);
+        recordedHeight = Math.max(recordedHeight, leaf.depth - depth[leaf.anchor]);
+    }
+
+    /**
+     * @return True once more nodes have been recorded than were indexed, or
+     * recorded nodes are stacked deeper than log2 of the nodes indexed, so
+     * that questions about them may no longer take O(log n) and the tree is
+     * better indexed again.
+     */
+    public boolean isDegraded() {
+        return recorded.size() > nodes.length || recordedHeight > 32 - Integer.numberOfLeadingZeros(nodes.length);
+    }
+
+    /**
+     * Tests whether a node is an ancestor of another, in constant time. A
+     * node counts as its own ancestor.
+     *
+     * @param ancestor The possible ancestor.
+     * @param node The possible descendant.
+     * @return True if node is in the subtree of ancestor.
+     * @throws IllegalArgumentException If either node was not indexed.
+     */
+    public boolean isAncestor(Node<E> ancestor, Node<E> node) throws IllegalArgumentException {
+        int below = anchor(node);
+        Integer number = numbers.get(ancestor);
+        if (number != null) {
+            return isAncestor(number, below);
+        }
+        Recorded<E> above = recorded(ancestor);
+        Recorded<E> n = recorded.get(node);
+        while (n != null && n.depth > above.depth) {
+            n = recorded.get(n.parent);
+        }
+        return n == above;
+    }
+
+    /**
+     * Finds the deepest node which is an ancestor of both provided nodes, in
+     * O(log n).
+     *
+     * @param a A node.
+     * @param b Another node.
+     * @return The lowest common ancestor, which is one of the nodes if it is
+     * an ancestor of the other.
+     * @throws IllegalArgumentException If either node was not indexed.
+     */
+    public Node<E> lowestCommonAncestor(Node<E> a, Node<E> b) throws IllegalArgumentException {
+        int x = anchor(a);
+        int y = anchor(b);
+        Recorded<E> ra = recorded.get(a);
+        Recorded<E> rb = recorded.get(b);
+        if (ra != null || rb != null) {
+            // lift the deeper of the two until they meet, or until one runs
+            // out of recorded nodes above it, when the answer is indexed
+            for (Recorded<E> p = ra, q = rb; p != null && q != null; ) {
+                if (p == q) {
+                    return p == ra ? a : p == rb ? b : p.node;
+                }
+                if (p.depth >= q.depth) {
+                    p = recorded.get(p.parent);
+                } else {
+                    q = recorded.get(q.parent);
+                }
+            }
+        }
+        if (isAncestor(x, y)) {
+            return ra == null ? a : rb == null && x == y ? b : nodes[x];
+        }
+        if (isAncestor(y, x)) {
+            return rb == null ? b : nodes[y];
+        }
+        return nodes[lowestCommonAncestor(x, y)];
+    }
+
+    /**
+     * @return The number of the lowest common ancestor of two indexed nodes
+     * neither of which is an ancestor of the other.
+     */
+    private int lowestCommonAncestor(int x, int y) {
+        while (!isAncestor(parent[x], y)) {
+            x = isAncestor(jump[x], y) ? parent[x] : jump[x];
+        }
+        return parent[x];
+    }
+
+    /**
+     * Finds the ancestor of a node the given number of generations up, in
+     * O(log n).
+     *
+     * @param node A node.
+     * @param generations How far up to go; 0 is the node itself.
+     * @return The ancestor, or null if the node is not that deep.
+     * @throws IllegalArgumentException If the node was not indexed or the
+     * number of generations is negative.
+     */
+    public Node<E> ancestor(Node<E> node, int generations) throws IllegalArgumentException {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Generations cannot be negative.");
+        }
+        int x = anchor(node);
+        Recorded<E> r = recorded.get(node);
+        if (r != null) {
+            if (generations > r.depth) {
+                return null;
+            }
+            for (; r != null; r = recorded.get(r.parent), generations--) {
+                if (generations == 0) {
+                    return r.node;
+                }
+            }
+            // the recorded nodes are used up one below the indexed anchor
+        }
+        if (generations > depth[x]) {
+            return null;
+        }
+        int target = depth[x] - generations;
+        while (depth[x] > target) {
+            x = depth[jump[x]] >= target ? jump[x] : parent[x];
+        }
+        return nodes[x];
+    }
+
+    /**
+     * @param node A node.
+     * @return The depth of the node, in constant time.
+     * @throws IllegalArgumentException If the node was not indexed.
+     */
+    public int depth(Node<E> node) throws IllegalArgumentException {
+        Recorded<E> r = recorded.get(node);
+        return r != null ? r.depth : depth[number(node)];
+    }
+
+    private boolean isAncestor(int ancestor, int node) {
+        return ancestor <= node && node < exit[ancestor];
+    }
+
+    private int number(Node<E> node) {
+        Integer number = node == null ? null : numbers.get(node);
+        if (number == null) {
+            throw new IllegalArgumentException("Node was not in the tree when it was indexed.");
+        }
+        return number;
+    }
+
+    /**
+     * @return The number of the node if it is indexed, or else of the indexed
+     * node the recorded nodes above it hang from.
+     */
+    private int anchor(Node<E> node) {
+        Recorded<E> r = node == null ? null : recorded.get(node);
+        return r != null ? r.anchor : number(node);
+    }
+
+    private Recorded<E> recorded(Node<E> node) {
+        Recorded<E> r = node == null ? null : recorded.get(node);
+        if (r == null) {
+            throw new IllegalArgumentException("Node was neither indexed nor recorded.");
+        }
+        return r;
+    }
+}
@@ -1,11 +1,14 @@
 package program.structures;
 
+import java.util.function.Consumer;
+
 /**
- * Interface containing the binary tree specific methods.
+ * Interface containing the binary tree specific methods. A binary tree is also
+ * a general Tree, so implementations can be used wherever a Tree is expected.
  *
  * @param <E> The type of data to be stored in this binary tree.
  */
-public interface BinaryTree<E> {
+public interface BinaryTree<E> extends Tree<E> {
 
     /**
      * Returns the left child of the provided node.
@@ -64,4 +67,21 @@ public interface BinaryTree<E> {
      * child.
      */
     Node<E> addRight(Node<E> p, E element) throws IllegalArgumentException;
+
+    /**
+     * Passes the left and then the right child of the provided node to the
+     * action, skipping missing children.
+     * {@inheritDoc}
+     */
+    @Override
+    default void forEachChild(Node<E> p, Consumer<? super Node<E>> action) throws IllegalArgumentException {
+        Node<E> left = left(p);
+        Node<E> right = right(p);
+        if (left != null) {
+            action.accept(left);
+        }
+        if (right != null) {
+            action.accept(right);
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package program.structures;
 
+import java.util.function.Consumer;
+
 /**
  * A Tree ADT
  *
@@ -45,6 +47,22 @@ public interface Tree<E> {
      */
     Iterable<Node<E>> children(Node<E> p) throws IllegalArgumentException;
 
+    /**
+     * Passes each child of the provided node to the action, in order, without
+     * creating a collection of them as children does. Traversals call this
+     * for every node they visit, so trees should override it to allocate
+     * nothing.
+     *
+     * @param p The node whose children are to be visited.
+     * @param action What to do with each child.
+     * @throws IllegalArgumentException If the provided node is invalid
+     */
+    default void forEachChild(Node<E> p, Consumer<? super Node<E>> action) throws IllegalArgumentException {
+        for (Node<E> c : children(p)) {
+            action.accept(c);
+        }
+    }
+
     /**
      * Returns the number of children currently attached to the provided node.
      *
@@ -174,4 +192,25 @@ public interface Tree<E> {
      * @throws IllegalArgumentException If the provided node is not valid.
      */
     boolean isLastChild(Node<E> node) throws IllegalArgumentException;
+
+    /**
+     * Returns the size, height, leaf count and leaf depths of the subtree
+     * rooted at the provided node. Trees which maintain these as they change
+     * answer in constant time; by default the subtree is walked.
+     *
+     * @param node Root of the subtree.
+     * @return Statistics of the subtree.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    default TreeStatistics statistics(Node<E> node) throws IllegalArgumentException {
+        return TreeStatistics.measure(this, node);
+    }
+
+    /**
+     * @return True if the tree maintains the statistics of its subtrees as it
+     * changes, so that subTreeSize and statistics do not walk the subtree.
+     */
+    default boolean maintainsStatistics() {
+        return false;
+    }
 }
@@ -0,0 +1,137 @@
+package program.structures;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Shape statistics of a tree or subtree: how many nodes and leaves it has,
+ * how tall it is and how deep its leaves are on average. For a classification
+ * tree the average leaf depth is the average number of questions asked to
+ * identify an animal, and the imbalance is how many more questions the
+ * longest identification asks than a perfectly balanced tree with the same
+ * animals would.
+ *
+ */
+public final class TreeStatistics {
+
+    /**
+     * Statistics of an empty tree.
+     */
+    public static final TreeStatistics EMPTY = new TreeStatistics(0, 0, 0, 0);
+
+    private final int size;
+    private final int height;
+    private final int leafCount;
+    private final long leafDepthSum;
+
+    /**
+     * Creates statistics from their parts.
+     *
+     * @param size Number of nodes.
+     * @param height Number of edges on the longest path down from the root.
+     * @param leafCount Number of leaves.
+     * @param leafDepthSum Sum of the depths of the leaves below the root.
+     */
+    public TreeStatistics(int size, int height, int leafCount, long leafDepthSum) {
+        this.size = size;
+        this.height = height;
+        this.leafCount = leafCount;
+        this.leafDepthSum = leafDepthSum;
+    }
+
+    /**
+     * Measures the subtree of a node by walking it, for trees which do not
+     * maintain their statistics.
+     *
+     * @param tree The tree.
+     * @param node Root of the subtree to measure.
+     * @param <E> The type of data stored in the tree.
+     * @return The statistics of the subtree.
+     * @throws IllegalArgumentException If the node is invalid.
+     */
+    public static <E> TreeStatistics measure(Tree<E> tree, Node<E> node) throws IllegalArgumentException {
+        Deque<Node<E>> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        Consumer<Node<E>> push = stack::push;
+        stack.push(node);
+        depths.push(0);
+        int size = 0;
+        int height = 0;
+        int leaves = 0;
+        long depthSum = 0;
+        while (!stack.isEmpty()) {
+            Node<E> n = stack.pop();
+            int depth = depths.pop();
+            size++;
+            int pending = stack.size();
+            tree.forEachChild(n, push);
+            for (int i = stack.size() - pending; i > 0; i--) {
+                depths.push(depth + 1);
+            }
+            if (stack.size() == pending) {
+                leaves++;
+                depthSum += depth;
+                height = Math.max(height, depth);
+            }
+        }
+        return new TreeStatistics(size, height, leaves, depthSum);
+    }
+
+    /**
+     * @return The number of nodes.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The number of edges on the longest path down from the root.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The number of leaves.
+     */
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * @return The sum of the depths of the leaves below the root.
+     */
+    public long getLeafDepthSum() {
+        return leafDepthSum;
+    }
+
+    /**
+     * @return The average depth of the leaves below the root, or 0 if there
+     * are none.
+     */
+    public double getAverageLeafDepth() {
+        return leafCount == 0 ? 0 : (double) leafDepthSum / leafCount;
+    }
+
+    /**
+     * @return How much taller the tree is than the shortest binary tree with
+     * as many leaves.
+     */
+    public int getImbalance() {
+        if (leafCount <= 1) {
+            return height;
+        }
+        int balanced = 32 - Integer.numberOfLeadingZeros(leafCount - 1);
+        return height - balanced;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "TreeStatistics{size=" + size + ", height=" + height + ", leafCount=" + leafCount
+                + ", averageLeafDepth=" + getAverageLeafDepth() + '}';
+    }
+}
@@ -0,0 +1,639 @@
+package program.structures.impl;
+
+import program.structures.BinaryTree;
+import program.structures.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ArrayBinaryTree class which stores its nodes in parallel arrays rather than
+ * as linked node objects. Each node is identified by an index into the element
+ * array, and the left, right and parent links are held as primitive int
+ * indices, so a tree of millions of nodes costs a handful of arrays instead of
+ * millions of node objects.
+ *
+ * The Node objects handed out by this tree are lightweight positions (the tree
+ * and an index) which are created on demand. Two positions referring to the
+ * same slot are equal, so they can be compared with equals() but not with ==.
+ * Each slot has a generation which is advanced whenever its node is removed
+ * or the root is set, and each position holds the generation of the slot it
+ * was created for, so a position left over from a removed node is rejected
+ * rather than referring to whichever node reuses its slot.
+ *
+ * @param <E> Type of data to be contained in the tree
+ */
+public class ArrayBinaryTree<E extends Comparable> implements BinaryTree<E> {
+
+    /**
+     * Index used to represent a missing node.
+     */
+    public static final int NIL = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] elements;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private int[] generation;
+    private int root = NIL;
+    private int size = 0;
+    private int used = 0;
+    private int free = NIL;
+
+    /**
+     * Nested ArrayNode class used as the position of a node in an
+     * ArrayBinaryTree.
+     *
+     * @param <E> The type of the element contained in the node.
+     */
+    public static class ArrayNode<E extends Comparable> implements Node<E> {
+
+        private final ArrayBinaryTree<E> tree;
+        private final int index;
+        private final int generation;
+
+        private ArrayNode(ArrayBinaryTree<E> tree, int index, int generation) {
+            this.tree = tree;
+            this.index = index;
+            this.generation = generation;
+        }
+
+        /**
+         * @return The index of this node in the arrays of its tree.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return The element contained in this node.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public E getElement() {
+            return (E) tree.elements[index];
+        }
+
+        /**
+         * Sets the new value of this node to the provided one. Throws an
+         * IllegalArgumentException if the provided value is null.
+         *
+         * @param element New value to be contained in this node.
+         */
+        @Override
+        public void setElement(E element) throws IllegalArgumentException {
+            if (element == null) {
+                throw new IllegalArgumentException();
+            } else {
+                tree.elements[index] = element;
+            }
+        }
+
+        /**
+         * @return The parent node of this class. Can be null.
+         */
+        @Override
+        public Node<E> getParent() {
+            return tree.nodeAt(tree.parent[index]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ArrayNode)) {
+                return false;
+            }
+            ArrayNode other = (ArrayNode) obj;
+            return tree == other.tree && index == other.index && generation == other.generation;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(tree) + index) + generation;
+        }
+    }
+
+    /**
+     * Constructs a new empty ArrayBinaryTree with a default initial capacity.
+     */
+    public ArrayBinaryTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new empty ArrayBinaryTree with room for the given number of
+     * nodes before its arrays need to grow.
+     *
+     * @param capacity Initial number of node slots.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public ArrayBinaryTree(int capacity) throws IllegalArgumentException {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        elements = new Object[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        generation = new int[capacity];
+    }
+
+    /**
+     * Returns the position for the node stored at the provided index.
+     *
+     * @param index Index of the node.
+     * @return The position of the node, or null if index is NIL.
+     */
+    public Node<E> nodeAt(int index) {
+        if (index == NIL) {
+            return null;
+        }
+        return new ArrayNode<>(this, index, generation[index]);
+    }
+
+    /**
+     * Returns the left child of the provided node.
+     *
+     * @param p The parent node of whom the left child is desired.
+     * @return The left child of the provided node, can be null if no such child
+     * exists.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public Node<E> left(Node<E> p) throws IllegalArgumentException {
+        return nodeAt(left[validate(p).index]);
+    }
+
+    /**
+     * Returns the right child of the provided node.
+     *
+     * @param p The parent node of whom the right child is desired.
+     * @return The right child of the provided node, can be null if no such
+     * child exists.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public Node<E> right(Node<E> p) throws IllegalArgumentException {
+        return nodeAt(right[validate(p).index]);
+    }
+
+    /**
+     * Returns the sibling node of the provided node, if such a sibling exists.
+     * That is, if the right node is provided the left node will be returned
+     * from the same parent.
+     *
+     * @param p The node of whom a sibling is requested.
+     * @return The sibling of the provided node, or null if no such sibling
+     * exists.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public Node<E> sibling(Node<E> p) throws IllegalArgumentException {
+        int index = validate(p).index;
+        int above = parent[index];
+        if (above == NIL) {
+            return null;
+        } else if (left[above] == index) {
+            return nodeAt(right[above]);
+        } else {
+            return nodeAt(left[above]);
+        }
+    }
+
+    /**
+     * Adds the provided element as a new node to the left side of the provided
+     * node.
+     *
+     * @param p       The node to which the element is to be added as the left child.
+     * @param element Element to be added
+     * @return The newly created left child of the provided node
+     * @throws IllegalArgumentException If the provided node is invalid, if the
+     *                                  provided element is null, or if the provided node already has a left
+     *                                  child.
+     */
+    @Override
+    public Node<E> addLeft(Node<E> p, E element) throws IllegalArgumentException {
+        int above = validate(p).index;
+        if (left[above] != NIL) {
+            throw new IllegalArgumentException("Node already has a left child.");
+        }
+        int child = allocate(element, above);
+        left[above] = child;
+        return nodeAt(child);
+    }
+
+    /**
+     * Adds the provided element as a new node to the right side of the provided
+     * node.
+     *
+     * @param p       The node to which the element is to be added as the right child.
+     * @param element Element to be added
+     * @return The newly created right child of the provided node
+     * @throws IllegalArgumentException If the provided node is invalid, if the
+     *                                  provided element is null, or if the provided node already has a right
+     *                                  child.
+     */
+    @Override
+    public Node<E> addRight(Node<E> p, E element) throws IllegalArgumentException {
+        int above = validate(p).index;
+        if (right[above] != NIL) {
+            throw new IllegalArgumentException("Node already has a right child.");
+        }
+        int child = allocate(element, above);
+        right[above] = child;
+        return nodeAt(child);
+    }
+
+    /**
+     * @return The root node of this tree or null if the Tree is empty.
+     */
+    @Override
+    public Node<E> root() {
+        return nodeAt(root);
+    }
+
+    /**
+     * Sets the tree's root node to the provided item, by creating a new node
+     * (unless the given item is the same as the current root's item). Note that
+     * this must also reset the size of the tree to the correct value if the
+     * current node is replaced.
+     *
+     * @param item New item for the root node.
+     * @return The new root node.
+     */
+    @Override
+    public Node<E> setRoot(E item) {
+        Arrays.fill(elements, 0, used, null);
+        for (int i = 0; i < used; i++) {
+            generation[i]++;
+        }
+        used = 0;
+        free = NIL;
+        size = 0;
+        root = NIL;
+        if (item == null) {
+            return null;
+        }
+        root = allocate(item, NIL);
+        return nodeAt(root);
+    }
+
+    /**
+     * Returns the parent node of the node provided, or null if the node is also
+     * the root of the tree.
+     *
+     * @param p Node whose parent is being requested.
+     * @return The parent of the provided node, or null if the provided node is
+     * the root.
+     * @throws IllegalArgumentException If the node is invalid
+     */
+    @Override
+    public Node<E> parent(Node<E> p) throws IllegalArgumentException {
+        return nodeAt(parent[validate(p).index]);
+    }
+
+    /**
+     * Returns an iterable collection of the children attached to the provided
+     * node.
+     *
+     * @param p The node whose children are requested.
+     * @return An iterable collection of the children attached to the provided
+     * node.
+     * @throws IllegalArgumentException If the provided node is invalid
+     */
+    @Override
+    public Iterable<Node<E>> children(Node<E> p) throws IllegalArgumentException {
+        int index = validate(p).index;
+        List<Node<E>> children = new ArrayList<>(2);
+        if (left[index] != NIL) {
+            children.add(nodeAt(left[index]));
+        }
+        if (right[index] != NIL) {
+            children.add(nodeAt(right[index]));
+        }
+        return children;
+    }
+
+    /**
+     * Returns the number of children currently attached to the provided node.
+     *
+     * @param p Node whose number of children is requested.
+     * @return The number of children attached to the provided node.
+     * @throws IllegalArgumentException If the node is invalid.
+     */
+    @Override
+    public int numChildren(Node<E> p) throws IllegalArgumentException {
+        int index = validate(p).index;
+        int count = 0;
+        if (left[index] != NIL) {
+            count++;
+        }
+        if (right[index] != NIL) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Tests whether the node is an internal node or not. That is whether the
+     * node has children.
+     *
+     * @param p The node to test.
+     * @return True if the node is an internal node, false otherwise.
+     * @throws IllegalArgumentException If the node is invalid.
+     */
+    @Override
+    public boolean isInternal(Node<E> p) throws IllegalArgumentException {
+        return numChildren(p) > 0;
+    }
+
+    /**
+     * Tests whether the node is an external node of the tree. That is whether
+     * the node has no children and thus is a leaf of the tree.
+     *
+     * @param p The node to test.
+     * @return True if the node is a leaf node, false otherwise.
+     * @throws IllegalArgumentException If the node is invalid
+     */
+    @Override
+    public boolean isExternal(Node<E> p) throws IllegalArgumentException {
+        return numChildren(p) == 0;
+    }
+
+    /**
+     * Tests whether this node is the root node of the tree. That is that the
+     * provided node has children but not parent.
+     *
+     * @param p Node to test.
+     * @return True if the node is the root of the tree.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public boolean isRoot(Node<E> p) throws IllegalArgumentException {
+        return p instanceof ArrayNode && ((ArrayNode) p).tree == this
+                && root != NIL && ((ArrayNode) p).index == root;
+    }
+
+    /**
+     * Inserts the item into the tree under the provided node. The item is added
+     * as the left child if the node has no children, and as the right child if
+     * the node only has a left child.
+     *
+     * @param item Item to be inserted into the tree.
+     * @param p    The parent node of the item.
+     * @return The newly created node, or null if the item could not be placed.
+     * @throws IllegalArgumentException if the provided parent node is invalid,
+     *                                  already has two children, or the provided value is null.
+     */
+    @Override
+    public Node<E> insert(E item, Node<E> p) throws IllegalArgumentException {
+        if (p == null) {
+            throw new IllegalArgumentException();
+        }
+        int index = validate(p).index;
+        if (left[index] != NIL && right[index] != NIL) {
+            throw new IllegalArgumentException("Node has two children");
+        }
+        if (item == null || item == p.getElement()) {
+            throw new IllegalArgumentException("Item invalid.");
+        } else if (left[index] == NIL && right[index] == NIL) {
+            return addLeft(p, item);
+        } else if (right[index] == NIL) {
+            return addRight(p, item);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the given item from the subtree below the provided node, searching
+     * for it by comparison as in a binary search tree. A removed node with a
+     * single child is replaced by that child, and a removed node with two
+     * children takes the smallest element of its right subtree.
+     *
+     * @param item Item to be removed from the subtree of the provided node.
+     * @param p    Node at which to start searching.
+     * @return true if the item was removed, false otherwise.
+     * @throws IllegalArgumentException If the provided parent node is not valid.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(E item, Node<E> p) throws IllegalArgumentException {
+        if (item == null || p == null) {
+            return false;
+        }
+        int index = validate(p).index;
+        while (index != NIL) {
+            int cmp = item.compareTo(elements[index]);
+            if (cmp < 0) {
+                index = left[index];
+            } else if (cmp > 0) {
+                index = right[index];
+            } else {
+                break;
+            }
+        }
+        if (index == NIL) {
+            return false;
+        }
+        if (left[index] != NIL && right[index] != NIL) {
+            int min = right[index];
+            while (left[min] != NIL) {
+                min = left[min];
+            }
+            elements[index] = elements[min];
+            index = min;
+        }
+        unlink(index);
+        return true;
+    }
+
+    /**
+     * @return The number of nodes currently in the tree.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree contains no nodes (that is the root = null),
+     * false otherwise.
+     */
+    @Override
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    /**
+     * Updates the value of the node to the provided value. Throws an
+     * IllegalArgumentException if the value is null, the node is null, or the
+     * node is not in this Tree.
+     *
+     * @param node    Node whose value is to be updated.
+     * @param element New value for the node.
+     * @throws IllegalArgumentException If the provided node is invalid, or the
+     *                                  element value is null.
+     */
+    @Override
+    public E set(Node<E> node, E element) throws IllegalArgumentException {
+        int index = validate(node).index;
+        if (element == null) {
+            throw new IllegalArgumentException("Element cannot be null");
+        }
+        elements[index] = element;
+        return element;
+    }
+
+    /**
+     * Validates that the provided node is not null, is a position created by
+     * this tree, and refers to a slot that still holds the node it was
+     * created for.
+     *
+     * @param p The node to be validated.
+     * @return A node of the expected type specific to the implementing tree.
+     * @throws IllegalArgumentException Thrown if the provided node is null, not
+     *                                  in the current tree, or is not of a type supported by the current tree.
+     */
+    @Override
+    public ArrayNode<E> validate(Node<E> p) throws IllegalArgumentException {
+        if (!(p instanceof ArrayNode)) {
+            throw new IllegalArgumentException();
+        }
+        ArrayNode<E> node = (ArrayNode<E>) p;
+        if (node.tree != this || node.index >= used || generation[node.index] != node.generation) {
+            throw new IllegalArgumentException("Provided node is not in the tree.");
+        }
+        return node;
+    }
+
+    /**
+     * Calculates the depth of the given node in the current tree.
+     *
+     * @param node Node whose depth is to be calculated
+     * @return Depth of the node in the tree.
+     * @throws IllegalArgumentException If the provided node is invalid
+     */
+    @Override
+    public int depth(Node<E> node) throws IllegalArgumentException {
+        int depth = 0;
+        for (int i = parent[validate(node).index]; i != NIL; i = parent[i]) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Calculates the size of a subtree rooted at the provided node.
+     *
+     * @param node Node whose subtree size is to be calculated
+     * @return Size of the subtree (including the root)
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public int subTreeSize(Node<E> node) throws IllegalArgumentException {
+        int[] stack = new int[16];
+        int top = 0;
+        int count = 0;
+        stack[top++] = validate(node).index;
+        while (top > 0) {
+            int i = stack[--top];
+            count++;
+            if (top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (left[i] != NIL) {
+                stack[top++] = left[i];
+            }
+            if (right[i] != NIL) {
+                stack[top++] = right[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the provided node is the last child of it's parent node. Note
+     * that the root node always returns true.
+     *
+     * @param node Node to check.
+     * @return True if the node is the last child of it's parent node or is the
+     * root, false otherwise.
+     * @throws IllegalArgumentException If the provided node is not valid.
+     */
+    @Override
+    public boolean isLastChild(Node<E> node) throws IllegalArgumentException {
+        int index = validate(node).index;
+        int above = parent[index];
+        return above == NIL || right[above] == index || right[above] == NIL;
+    }
+
+    /**
+     * Claims a slot for a new node, reusing a removed slot when one is
+     * available and growing the arrays otherwise.
+     */
+    private int allocate(E element, int above) {
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot create a node with null elements");
+        }
+        int index;
+        if (free != NIL) {
+            index = free;
+            free = left[index];
+        } else {
+            if (used == elements.length) {
+                grow();
+            }
+            index = used++;
+        }
+        elements[index] = element;
+        left[index] = NIL;
+        right[index] = NIL;
+        parent[index] = above;
+        size++;
+        return index;
+    }
+
+    private void grow() {
+        int capacity = Math.max(DEFAULT_CAPACITY, elements.length + (elements.length >> 1));
+        elements = Arrays.copyOf(elements, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        generation = Arrays.copyOf(generation, capacity);
+    }
+
+    /**
+     * Removes a node with at most one child, putting that child in its place
+     * and returning the slot to the free list.
+     */
+    private void unlink(int index) {
+        int child = left[index] != NIL ? left[index] : right[index];
+        int above = parent[index];
+        if (child != NIL) {
+            parent[child] = above;
+        }
+        if (above == NIL) {
+            root = child;
+        } else if (left[above] == index) {
+            left[above] = child;
+        } else {
+            right[above] = child;
+        }
+        elements[index] = null;
+        generation[index]++;
+        left[index] = free;
+        free = index;
+        size--;
+    }
+}
@@ -0,0 +1,682 @@
+package program.structures.impl;
+
+import program.structures.BinaryTree;
+import program.structures.Node;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CompactBinaryTree class whose stored nodes hold as little as possible. A
+ * leaf holds only its element and an internal node only its element and two
+ * child links: there are no parent links, owner tokens or statistics. With
+ * compressed references a leaf takes 16 bytes and an internal node 24, where
+ * a node holding an element, a parent and two children takes 32. In a
+ * classification tree about half of the nodes are animals at the leaves, so
+ * the nodes take about 20 bytes each, 37.5% less.
+ *
+ * Without parent links, the path to a node is kept by the Node objects this
+ * tree hands out instead: each is a small position holding the stored node
+ * and the position of its parent, created when a child, sibling or root is
+ * asked for, so the positions on the path of a walk down the tree form its
+ * path stack. Depth and subtree size are computed by walking.
+ *
+ * Adding a child to a leaf promotes it: an internal node with the same
+ * element takes the leaf's place in its parent, which the position knows, and
+ * the leaf forwards to it, so a position held by a caller across the
+ * promotion still reads and changes the same place in the tree. Two positions
+ * are equal when they refer to the same place. An internal node whose
+ * children are removed stays internal.
+ *
+ * Like LinkedBinaryTree, the tree is not safe for use by several threads at
+ * once without outside locking.
+ *
+ * @param <E> Type of data to be contained in the tree
+ */
+public class CompactBinaryTree<E extends Comparable> implements BinaryTree<E> {
+
+    private Cell root;
+    private int size = 0;
+    private Object owner = new Object();
+
+    /**
+     * A stored node. Its value is its element, or for a leaf which has been
+     * promoted the internal node which took its place, or for a removed node
+     * a Removed holding its last element. Elements are Comparable, so they
+     * can never be mistaken for either.
+     */
+    private abstract static class Cell {
+
+        Object value;
+
+        Cell(Object value) {
+            this.value = value;
+        }
+
+        /**
+         * @return The node now at this node's place in the tree: the node
+         * itself, or the internal node a leaf was promoted to.
+         */
+        abstract Cell live();
+    }
+
+    /**
+     * A stored node without children.
+     */
+    private static final class Leaf extends Cell {
+
+        Leaf(Object value) {
+            super(value);
+        }
+
+        @Override
+        Cell live() {
+            Object promoted = value;
+            return promoted instanceof Internal ? (Internal) promoted : this;
+        }
+    }
+
+    /**
+     * A stored node which has, or has had, children.
+     */
+    private static final class Internal extends Cell {
+
+        Cell left;
+        Cell right;
+
+        Internal(Object value) {
+            super(value);
+        }
+
+        @Override
+        Cell live() {
+            return this;
+        }
+    }
+
+    /**
+     * The value of a removed node.
+     */
+    private static final class Removed {
+
+        final Object element;
+
+        Removed(Object element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * Nested Position class used as the Node of a CompactBinaryTree: a stored
+     * node together with the position of its parent.
+     *
+     * @param <E> The type of the element contained in the node.
+     */
+    public static final class Position<E extends Comparable> implements Node<E> {
+
+        private final Object owner;
+        final Cell cell;
+        private final Position<E> parent;
+
+        private Position(Object owner, Cell cell, Position<E> parent) {
+            this.owner = owner;
+            this.cell = cell;
+            this.parent = parent;
+        }
+
+        /**
+         * @return The element contained in this node.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public E getElement() {
+            Object value = cell.live().value;
+            return (E) (value instanceof Removed ? ((Removed) value).element : value);
+        }
+
+        /**
+         * Sets the new value of this node to the provided one.
+         *
+         * @param element New value to be contained in this node.
+         * @throws IllegalArgumentException If the provided value is null.
+         */
+        @Override
+        public void setElement(E element) throws IllegalArgumentException {
+            if (element == null) {
+                throw new IllegalArgumentException();
+            }
+            cell.live().value = element;
+        }
+
+        /**
+         * @return The parent node of this node. Can be null.
+         */
+        @Override
+        public Node<E> getParent() {
+            return parent;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Position)) {
+                return false;
+            }
+            Position other = (Position) obj;
+            return owner == other.owner && cell.live() == other.cell.live();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(cell.live());
+        }
+    }
+
+    /**
+     * Returns the left child of the provided node.
+     *
+     * @param p The parent node of whom the left child is desired.
+     * @return The left child of the provided node, can be null if no such child
+     * exists.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public Node<E> left(Node<E> p) throws IllegalArgumentException {
+        Position<E> node = validate(p);
+        Cell cell = node.cell.live();
+        return cell instanceof Internal ? position(((Internal) cell).left, node) : null;
+    }
+
+    /**
+     * Returns the right child of the provided node.
+     *
+     * @param p The parent node of whom the right child is desired.
+     * @return The right child of the provided node, can be null if no such
+     * child exists.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public Node<E> right(Node<E> p) throws IllegalArgumentException {
+        Position<E> node = validate(p);
+        Cell cell = node.cell.live();
+        return cell instanceof Internal ? position(((Internal) cell).right, node) : null;
+    }
+
+    /**
+     * Returns the sibling node of the provided node, if such a sibling exists.
+     *
+     * @param p The node of whom a sibling is requested.
+     * @return The sibling of the provided node, or null if no such sibling
+     * exists.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public Node<E> sibling(Node<E> p) throws IllegalArgumentException {
+        Position<E> node = validate(p);
+        if (node.parent == null) {
+            return null;
+        }
+        Internal parent = (Internal) node.parent.cell.live();
+        return position(parent.left == node.cell.live() ? parent.right : parent.left, node.parent);
+    }
+
+    /**
+     * Adds the provided element as a new leaf to the left side of the provided
+     * node, promoting the node first if it is a leaf.
+     *
+     * @param p       The node to which the element is to be added as the left child.
+     * @param element Element to be added
+     * @return The newly created left child of the provided node
+     * @throws IllegalArgumentException If the provided node is invalid, if the
+     *                                  provided element is null, or if the provided node already has a left
+     *                                  child.
+     */
+    @Override
+    public Node<E> addLeft(Node<E> p, E element) throws IllegalArgumentException {
+        Position<E> node = validate(p);
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot create a node with null elements");
+        }
+        Internal parent = internal(node);
+        if (parent.left != null) {
+            throw new IllegalArgumentException("Node already has a left child.");
+        }
+        Leaf child = new Leaf(element);
+        parent.left = child;
+        size++;
+        return position(child, node);
+    }
+
+    /**
+     * Adds the provided element as a new leaf to the right side of the
+     * provided node, promoting the node first if it is a leaf.
+     *
+     * @param p       The node to which the element is to be added as the right child.
+     * @param element Element to be added
+     * @return The newly created right child of the provided node
+     * @throws IllegalArgumentException If the provided node is invalid, if the
+     *                                  provided element is null, or if the provided node already has a right
+     *                                  child.
+     */
+    @Override
+    public Node<E> addRight(Node<E> p, E element) throws IllegalArgumentException {
+        Position<E> node = validate(p);
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot create a node with null elements");
+        }
+        Internal parent = internal(node);
+        if (parent.right != null) {
+            throw new IllegalArgumentException("Node already has a right child.");
+        }
+        Leaf child = new Leaf(element);
+        parent.right = child;
+        size++;
+        return position(child, node);
+    }
+
+    /**
+     * Returns the node at the provided position as an internal node,
+     * promoting it if it is a leaf: an internal node with the leaf's element
+     * takes its place in its parent, and the leaf forwards to it.
+     */
+    private Internal internal(Position<E> node) {
+        Cell cell = node.cell.live();
+        if (cell instanceof Internal) {
+            return (Internal) cell;
+        }
+        Internal promoted = new Internal(cell.value);
+        replace(node.parent == null ? null : node.parent.cell.live(), cell, promoted);
+        cell.value = promoted;
+        return promoted;
+    }
+
+    /**
+     * Puts the replacement, which may be null, where the node was in its
+     * parent, or at the root if the parent is null.
+     */
+    private void replace(Cell parent, Cell node, Cell replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (((Internal) parent).left == node) {
+            ((Internal) parent).left = replacement;
+        } else {
+            ((Internal) parent).right = replacement;
+        }
+    }
+
+    /**
+     * @return The position of the provided stored node below the provided
+     * parent position, or null if there is no node.
+     */
+    private Position<E> position(Cell cell, Position<E> parent) {
+        return cell == null ? null : new Position<>(owner, cell, parent);
+    }
+
+    /**
+     * @return The root node of this tree or null if the Tree is empty.
+     */
+    @Override
+    public Node<E> root() {
+        return position(root, null);
+    }
+
+    /**
+     * Replaces the whole tree with a single root node holding the provided
+     * item, or empties it if the item is null. Nodes of the old tree are no
+     * longer valid.
+     *
+     * @param item New item for the root node.
+     * @return The new root node.
+     */
+    @Override
+    public Node<E> setRoot(E item) {
+        owner = new Object();
+        if (item == null) {
+            root = null;
+            size = 0;
+            return null;
+        }
+        root = new Leaf(item);
+        size = 1;
+        return position(root, null);
+    }
+
+    /**
+     * Returns the parent node of the node provided, or null if the node is also
+     * the root of the tree.
+     *
+     * @param p Node whose parent is being requested.
+     * @return The parent of the provided node, or null if the provided node is
+     * the root.
+     * @throws IllegalArgumentException If the node is invalid
+     */
+    @Override
+    public Node<E> parent(Node<E> p) throws IllegalArgumentException {
+        return validate(p).parent;
+    }
+
+    /**
+     * Returns an iterable collection of the children attached to the provided
+     * node.
+     *
+     * @param p The node whose children are requested.
+     * @return An iterable collection of the children attached to the provided
+     * node.
+     * @throws IllegalArgumentException If the provided node is invalid
+     */
+    @Override
+    public Iterable<Node<E>> children(Node<E> p) throws IllegalArgumentException {
+        List<Node<E>> children = new ArrayList<>(2);
+        forEachChild(p, children::add);
+        return children;
+    }
+
+    /**
+     * Passes the left and then the right child of the provided node to the
+     * action, validating the node once. The positions passed are created for
+     * the call, as positions always are.
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachChild(Node<E> p, Consumer<? super Node<E>> action) throws IllegalArgumentException {
+        Position<E> node = validate(p);
+        Cell cell = node.cell.live();
+        if (cell instanceof Internal) {
+            Internal internal = (Internal) cell;
+            if (internal.left != null) {
+                action.accept(position(internal.left, node));
+            }
+            if (internal.right != null) {
+                action.accept(position(internal.right, node));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of children currently attached to the provided node.
+     *
+     * @param p Node whose number of children is requested.
+     * @return The number of children attached to the provided node.
+     * @throws IllegalArgumentException If the node is invalid.
+     */
+    @Override
+    public int numChildren(Node<E> p) throws IllegalArgumentException {
+        Cell cell = validate(p).cell.live();
+        if (!(cell instanceof Internal)) {
+            return 0;
+        }
+        Internal internal = (Internal) cell;
+        return (internal.left == null ? 0 : 1) + (internal.right == null ? 0 : 1);
+    }
+
+    /**
+     * Tests whether the node is an internal node or not. That is whether the
+     * node has children.
+     *
+     * @param p The node to test.
+     * @return True if the node is an internal node, false otherwise.
+     * @throws IllegalArgumentException If the node is invalid.
+     */
+    @Override
+    public boolean isInternal(Node<E> p) throws IllegalArgumentException {
+        return numChildren(p) > 0;
+    }
+
+    /**
+     * Tests whether the node is an external node of the tree. That is whether
+     * the node has no children and thus is a leaf of the tree.
+     *
+     * @param p The node to test.
+     * @return True if the node is a leaf node, false otherwise.
+     * @throws IllegalArgumentException If the node is invalid
+     */
+    @Override
+    public boolean isExternal(Node<E> p) throws IllegalArgumentException {
+        return numChildren(p) == 0;
+    }
+
+    /**
+     * Tests whether this node is the root node of the tree.
+     *
+     * @param p Node to test.
+     * @return True if the node is the root of the tree.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public boolean isRoot(Node<E> p) throws IllegalArgumentException {
+        return validate(p).parent == null;
+    }
+
+    /**
+     * Inserts the item into the tree under the provided node. The item is added
+     * as the left child if the node has no children, and as the right child if
+     * the node only has a left child.
+     *
+     * @param item Item to be inserted into the tree.
+     * @param p    The parent node of the item.
+     * @return The newly created node.
+     * @throws IllegalArgumentException if the provided parent node is invalid,
+     *                                  already has two children, or the provided value is null.
+     */
+    @Override
+    public Node<E> insert(E item, Node<E> p) throws IllegalArgumentException {
+        if (p == null) {
+            throw new IllegalArgumentException();
+        }
+        Position<E> node = validate(p);
+        Cell cell = node.cell.live();
+        if (item == null || item == cell.value) {
+            throw new IllegalArgumentException("Item invalid.");
+        }
+        Internal internal = cell instanceof Internal ? (Internal) cell : null;
+        if (internal == null || internal.left == null && internal.right == null) {
+            return addLeft(node, item);
+        } else if (internal.right == null) {
+            return addRight(node, item);
+        }
+        throw new IllegalArgumentException("Node has two children");
+    }
+
+    /**
+     * Removes the given item from the subtree below the provided node, searching
+     * for it by comparison as in a binary search tree. A removed node with a
+     * single child is replaced by that child, and a removed node with two
+     * children takes the smallest element of its right subtree. Positions
+     * below the removed node are no longer valid.
+     *
+     * @param item Item to be removed from the subtree of the provided node.
+     * @param p    Node at which to start searching.
+     * @return true if the item was removed, false otherwise.
+     * @throws IllegalArgumentException If the provided parent node is not valid.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(E item, Node<E> p) throws IllegalArgumentException {
+        if (item == null || p == null) {
+            return false;
+        }
+        Position<E> start = validate(p);
+        Cell parent = start.parent == null ? null : start.parent.cell.live();
+        Cell node = start.cell.live();
+        while (node != null) {
+            int cmp = item.compareTo(node.value);
+            if (cmp == 0) {
+                break;
+            }
+            if (!(node instanceof Internal)) {
+                return false;
+            }
+            parent = node;
+            node = cmp < 0 ? ((Internal) node).left : ((Internal) node).right;
+        }
+        if (node == null) {
+            return false;
+        }
+        if (node instanceof Internal && ((Internal) node).left != null && ((Internal) node).right != null) {
+            Cell target = node;
+            parent = node;
+            node = ((Internal) node).right;
+            while (node instanceof Internal && ((Internal) node).left != null) {
+                parent = node;
+                node = ((Internal) node).left;
+            }
+            target.value = node.value;
+        }
+        Cell child = null;
+        if (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            child = internal.left != null ? internal.left : internal.right;
+        }
+        replace(parent, node, child);
+        node.value = new Removed(node.value);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return The number of nodes currently in the tree.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree contains no nodes (that is the root = null),
+     * false otherwise.
+     */
+    @Override
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Updates the value of the node to the provided value.
+     *
+     * @param node    Node whose value is to be updated.
+     * @param element New value for the node.
+     * @throws IllegalArgumentException If the provided node is invalid, or the
+     *                                  element value is null.
+     */
+    @Override
+    public E set(Node<E> node, E element) throws IllegalArgumentException {
+        Position<E> n = validate(node);
+        if (element == null) {
+            throw new IllegalArgumentException("Element cannot be null");
+        }
+        n.cell.live().value = element;
+        return element;
+    }
+
+    /**
+     * Validates that the provided node is a position handed out by this tree
+     * since its root was last set, that the node at it has not been removed,
+     * and that it is still a child of the node at its parent position. A
+     * position of a leaf which has been promoted stands for the internal node
+     * which took its place.
+     *
+     * @param p The node to be validated.
+     * @return A node of the expected type specific to the implementing tree.
+     * @throws IllegalArgumentException Thrown if the provided node is null, not
+     *                                  in the current tree, or is not of a type supported by the current tree.
+     */
+    @Override
+    public Position<E> validate(Node<E> p) throws IllegalArgumentException {
+        if (!(p instanceof Position)) {
+            throw new IllegalArgumentException();
+        }
+        Position<E> node = (Position<E>) p;
+        if (node.owner != owner) {
+            throw new IllegalArgumentException("Provided node is not in the tree.");
+        }
+        Cell cell = node.cell.live();
+        if (cell.value instanceof Removed) {
+            throw new IllegalArgumentException("Provided node is not in the tree.");
+        }
+        if (node.parent == null ? root != cell : !isChild(node.parent.cell.live(), cell)) {
+            throw new IllegalArgumentException("Provided node is not in the tree.");
+        }
+        return node;
+    }
+
+    private static boolean isChild(Cell parent, Cell cell) {
+        return parent instanceof Internal && !(parent.value instanceof Removed)
+                && (((Internal) parent).left == cell || ((Internal) parent).right == cell);
+    }
+
+    /**
+     * Returns the depth of the given node, the length of the path its
+     * position holds.
+     *
+     * @param node Node whose depth is to be calculated
+     * @return Depth of the node in the tree.
+     * @throws IllegalArgumentException If the provided node is invalid
+     */
+    @Override
+    public int depth(Node<E> node) throws IllegalArgumentException {
+        int depth = 0;
+        for (Position<E> p = validate(node).parent; p != null; p = p.parent) {
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * Calculates the size of a subtree rooted at the provided node by walking
+     * it.
+     *
+     * @param node Node whose subtree size is to be calculated
+     * @return Size of the subtree (including the root)
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public int subTreeSize(Node<E> node) throws IllegalArgumentException {
+        Deque<Cell> stack = new ArrayDeque<>();
+        stack.push(validate(node).cell.live());
+        int count = 0;
+        while (!stack.isEmpty()) {
+            Cell n = stack.pop();
+            count++;
+            if (n instanceof Internal) {
+                Internal internal = (Internal) n;
+                if (internal.left != null) {
+                    stack.push(internal.left);
+                }
+                if (internal.right != null) {
+                    stack.push(internal.right);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the provided node is the last child of it's parent node. Note
+     * that the root node always returns true.
+     *
+     * @param node Node to check.
+     * @return True if the node is the last child of it's parent node or is the
+     * root, false otherwise.
+     * @throws IllegalArgumentException If the provided node is not valid.
+     */
+    @Override
+    public boolean isLastChild(Node<E> node) throws IllegalArgumentException {
+        Position<E> n = validate(node);
+        if (n.parent == null) {
+            return true;
+        }
+        Internal parent = (Internal) n.parent.cell.live();
+        return parent.right == n.cell.live() || parent.right == null;
+    }
+}
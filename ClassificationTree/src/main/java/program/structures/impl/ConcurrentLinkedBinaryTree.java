@@ -0,0 +1,681 @@
+package program.structures.impl;
+
+import program.structures.Node;
+import program.structures.TreeStatistics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A LinkedBinaryTree which may be read by any number of threads while other
+ * threads add to it and change elements.
+ *
+ * Each node is guarded by one of a fixed set of StampedLocks, handed out in
+ * turn as nodes are created. Reading a node's element or children is an
+ * optimistic read of its lock, which costs no more than a volatile read
+ * unless a writer holds the lock at that moment, so readers never contend
+ * with each other. Adding a child or changing an element takes the write lock
+ * of the one node changed, so changes to different parts of the tree go
+ * ahead in parallel, while two changes to the same node are serialized.
+ * Operations which restructure the tree, such as setting the root or
+ * removing, take every lock; the calls they make to each other while holding
+ * them do not lock again.
+ *
+ * Subtree statistics are kept current rather than marked and measured when
+ * read: adding nodes adds to the statistics of every ancestor, each under its
+ * own lock, which takes time in proportion to the depth of the change, and
+ * removing measures the ancestors again while every lock is held. Reading the
+ * statistics of a node is then an optimistic read of its lock, like reading
+ * its children. Adding holds a shared structure lock, which the restructuring
+ * operations take exclusively, so no removal moves the ancestors of an
+ * addition while it is updating them.
+ *
+ * A subclass which reads its nodes from elsewhere, such as a file, may create
+ * them on demand: setDeferredRoot and createDeferredNode create nodes whose
+ * children are left to deferredChild, which is called the first time the
+ * children are read or changed, under the node's lock, so every thread sees
+ * them created once.
+ *
+ * @param <E> Type of data to be contained in the tree
+ */
+public class ConcurrentLinkedBinaryTree<E extends Comparable> extends LinkedBinaryTree<E> {
+
+    private final Stripe[] stripes;
+    private final AtomicInteger nextStripe = new AtomicInteger();
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile BinaryTreeNode<E> currentRoot;
+    private volatile Thread exclusiveOwner;
+    private final StampedLock structureLock = new StampedLock();
+
+    /**
+     * One of the locks shared among the nodes.
+     */
+    private final class Stripe {
+
+        final StampedLock lock = new StampedLock();
+
+        /**
+         * @return True if the current thread holds every lock of the tree, in
+         * which case it reads and writes nodes without locking them again.
+         */
+        boolean heldByCurrentThread() {
+            return exclusiveOwner == Thread.currentThread();
+        }
+
+        /**
+         * Creates the deferred children of a node of this stripe.
+         */
+        void expand(ConcurrentNode<E> node) {
+            ConcurrentLinkedBinaryTree.this.expand(node);
+        }
+    }
+
+    /**
+     * Node whose fields are read and written under its stripe's lock.
+     *
+     * @param <E> The type of the element to be contained in the node.
+     */
+    private static final class ConcurrentNode<E extends Comparable> extends BinaryTreeNode<E> {
+
+        private final ConcurrentLinkedBinaryTree<E>.Stripe stripe;
+        private volatile Object source;
+
+        ConcurrentNode(E e, BinaryTreeNode<E> above, BinaryTreeNode<E> leftChild, BinaryTreeNode<E> rightChild,
+                       ConcurrentLinkedBinaryTree<E>.Stripe stripe) {
+            super(e, above, leftChild, rightChild);
+            this.stripe = stripe;
+        }
+
+        @Override
+        public E getElement() {
+            StampedLock lock = stripe.lock;
+            long stamp = lock.tryOptimisticRead();
+            E e = element;
+            if (!lock.validate(stamp)) {
+                if (stripe.heldByCurrentThread()) {
+                    return element;
+                }
+                stamp = lock.readLock();
+                try {
+                    e = element;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return e;
+        }
+
+        @Override
+        public Node<E> getParent() {
+            StampedLock lock = stripe.lock;
+            long stamp = lock.tryOptimisticRead();
+            Node<E> parent = super.getParent();
+            if (!lock.validate(stamp)) {
+                if (stripe.heldByCurrentThread()) {
+                    return super.getParent();
+                }
+                stamp = lock.readLock();
+                try {
+                    parent = super.getParent();
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return parent;
+        }
+
+        @Override
+        public BinaryTreeNode<E> getLeft() {
+            if (source != null) {
+                stripe.expand(this);
+            }
+            StampedLock lock = stripe.lock;
+            long stamp = lock.tryOptimisticRead();
+            BinaryTreeNode<E> left = super.getLeft();
+            if (!lock.validate(stamp)) {
+                if (stripe.heldByCurrentThread()) {
+                    return super.getLeft();
+                }
+                stamp = lock.readLock();
+                try {
+                    left = super.getLeft();
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return left;
+        }
+
+        @Override
+        public BinaryTreeNode<E> getRight() {
+            if (source != null) {
+                stripe.expand(this);
+            }
+            StampedLock lock = stripe.lock;
+            long stamp = lock.tryOptimisticRead();
+            BinaryTreeNode<E> right = super.getRight();
+            if (!lock.validate(stamp)) {
+                if (stripe.heldByCurrentThread()) {
+                    return super.getRight();
+                }
+                stamp = lock.readLock();
+                try {
+                    right = super.getRight();
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return right;
+        }
+
+        @Override
+        public void setElement(E element) throws IllegalArgumentException {
+            if (element == null) {
+                throw new IllegalArgumentException();
+            }
+            if (stripe.heldByCurrentThread()) {
+                this.element = element;
+                return;
+            }
+            long stamp = stripe.lock.writeLock();
+            try {
+                this.element = element;
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public void setParent(BinaryTreeNode<E> parentNode) {
+            if (stripe.heldByCurrentThread()) {
+                super.setParent(parentNode);
+                return;
+            }
+            long stamp = stripe.lock.writeLock();
+            try {
+                super.setParent(parentNode);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public void setLeft(BinaryTreeNode<E> leftChild) {
+            if (source != null) {
+                stripe.expand(this);
+            }
+            if (stripe.heldByCurrentThread()) {
+                super.setLeft(leftChild);
+                return;
+            }
+            long stamp = stripe.lock.writeLock();
+            try {
+                super.setLeft(leftChild);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public void setRight(BinaryTreeNode<E> rightChild) {
+            if (source != null) {
+                stripe.expand(this);
+            }
+            if (stripe.heldByCurrentThread()) {
+                super.setRight(rightChild);
+                return;
+            }
+            long stamp = stripe.lock.writeLock();
+            try {
+                super.setRight(rightChild);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+
+        BinaryTreeNode<E> rawLeft() {
+            return super.getLeft();
+        }
+
+        BinaryTreeNode<E> rawRight() {
+            return super.getRight();
+        }
+
+        void rawSetLeft(BinaryTreeNode<E> leftChild) {
+            super.setLeft(leftChild);
+        }
+
+        void rawSetRight(BinaryTreeNode<E> rightChild) {
+            super.setRight(rightChild);
+        }
+    }
+
+    /**
+     * Creates an empty tree with a lock stripe for every few available
+     * processors.
+     */
+    public ConcurrentLinkedBinaryTree() {
+        this(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+    }
+
+    /**
+     * Creates an empty tree with the given number of lock stripes.
+     *
+     * @param stripeCount Number of locks shared among the nodes.
+     * @throws IllegalArgumentException If the number of stripes is not
+     * positive.
+     */
+    public ConcurrentLinkedBinaryTree(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive.");
+        }
+        @SuppressWarnings("unchecked")
+        Stripe[] created = (Stripe[]) new ConcurrentLinkedBinaryTree.Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            created[i] = new Stripe();
+        }
+        stripes = created;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BinaryTreeNode<E> createNode(E element, BinaryTreeNode<E> parent, BinaryTreeNode<E> left,
+                                        BinaryTreeNode<E> right) {
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot create a node with null elements");
+        }
+        Stripe stripe = stripes[(nextStripe.getAndIncrement() & Integer.MAX_VALUE) % stripes.length];
+        return new ConcurrentNode<>(element, parent, left, right, stripe);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BinaryTreeNode<E> validate(Node<E> p) throws IllegalArgumentException {
+        if (!(p instanceof ConcurrentNode)) {
+            throw new IllegalArgumentException();
+        }
+        return super.validate(p);
+    }
+
+    /**
+     * Adds the provided element as the left child of the provided node,
+     * holding the node's lock so that no other thread can add a left child to
+     * it at the same time.
+     * {@inheritDoc}
+     */
+    @Override
+    public Node<E> addLeft(Node<E> p, E element) throws IllegalArgumentException {
+        return addChild(p, element, true);
+    }
+
+    /**
+     * Adds the provided element as the right child of the provided node,
+     * holding the node's lock so that no other thread can add a right child to
+     * it at the same time.
+     * {@inheritDoc}
+     */
+    @Override
+    public Node<E> addRight(Node<E> p, E element) throws IllegalArgumentException {
+        return addChild(p, element, false);
+    }
+
+    private Node<E> addChild(Node<E> p, E element, boolean left) {
+        long shared = structureLock.readLock();
+        try {
+            ConcurrentNode<E> parent = (ConcurrentNode<E>) validate(p);
+            expand(parent);
+            BinaryTreeNode<E> child = createNode(element, parent, null, null);
+            int leaves;
+            StampedLock lock = parent.stripe.lock;
+            long stamp = lock.writeLock();
+            try {
+                if (left) {
+                    if (parent.rawLeft() != null) {
+                        throw new IllegalArgumentException("Node already has a left child.");
+                    }
+                    parent.rawSetLeft(adopt(child));
+                    leaves = parent.rawRight() == null ? 0 : 1;
+                } else {
+                    if (parent.rawRight() != null) {
+                        throw new IllegalArgumentException("Node already has a right child.");
+                    }
+                    parent.rawSetRight(adopt(child));
+                    leaves = parent.rawLeft() == null ? 0 : 1;
+                }
+                grow(parent, 1, leaves, 1, 1);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            count.incrementAndGet();
+            growAncestors(parent, 1, leaves);
+            return child;
+        } finally {
+            structureLock.unlockRead(shared);
+        }
+    }
+
+    /**
+     * Replaces the leaf at the provided node with a question holding the given
+     * element and two new leaves, under the node's lock, so that no reader
+     * sees the change half made: a reader finds either the old leaf or the
+     * new element with both of its children.
+     *
+     * @param p The leaf to change.
+     * @param element New element of the node.
+     * @param leftElement Element of the new left leaf.
+     * @param rightElement Element of the new right leaf.
+     * @return The changed node.
+     * @throws IllegalArgumentException If any element is null, the node is
+     * invalid, or the node is not a leaf.
+     */
+    public Node<E> graft(Node<E> p, E element, E leftElement, E rightElement) throws IllegalArgumentException {
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot create a node with null elements");
+        }
+        long shared = structureLock.readLock();
+        try {
+            ConcurrentNode<E> node = (ConcurrentNode<E>) validate(p);
+            expand(node);
+            BinaryTreeNode<E> left = createNode(leftElement, node, null, null);
+            BinaryTreeNode<E> right = createNode(rightElement, node, null, null);
+            StampedLock lock = node.stripe.lock;
+            long stamp = lock.writeLock();
+            try {
+                if (node.rawLeft() != null || node.rawRight() != null) {
+                    throw new IllegalArgumentException("Node is not a leaf.");
+                }
+                node.rawSetLeft(adopt(left));
+                node.rawSetRight(adopt(right));
+                node.element = element;
+                grow(node, 2, 1, 2, 1);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            count.addAndGet(2);
+            growAncestors(node, 2, 1);
+            return node;
+        } finally {
+            structureLock.unlockRead(shared);
+        }
+    }
+
+    /**
+     * Replaces the tree with one of the given size held elsewhere, of which
+     * only the root is created; the children of each node are created by
+     * deferredChild the first time they are needed.
+     *
+     * @param item Element of the root.
+     * @param source What deferredChild needs to find the root's children.
+     * @param size Number of nodes of the tree.
+     * @return The new root node.
+     * @throws IllegalArgumentException If the item or source is null.
+     */
+    protected Node<E> setDeferredRoot(E item, Object source, int size) throws IllegalArgumentException {
+        if (item == null || source == null) {
+            throw new IllegalArgumentException("Root and source cannot be null.");
+        }
+        long[] stamps = lockAll();
+        try {
+            ConcurrentNode<E> newRoot = (ConcurrentNode<E>) super.setRoot(item);
+            newRoot.source = source;
+            currentRoot = root;
+            this.size = size;
+            count.set(size);
+            return newRoot;
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    /**
+     * Creates a node for deferredChild to return, whose own children are in
+     * turn created by deferredChild the first time they are needed.
+     *
+     * @param element Element of the node.
+     * @param parent Node the new node is a child of.
+     * @param source What deferredChild needs to find the node's children.
+     * @return The new node.
+     * @throws IllegalArgumentException If the element or source is null.
+     */
+    protected BinaryTreeNode<E> createDeferredNode(E element, BinaryTreeNode<E> parent, Object source)
+            throws IllegalArgumentException {
+        if (source == null) {
+            throw new IllegalArgumentException("Source cannot be null.");
+        }
+        ConcurrentNode<E> node = (ConcurrentNode<E>) createNode(element, parent, null, null);
+        node.source = source;
+        return node;
+    }
+
+    /**
+     * Creates a child of a deferred node, called once for each side the
+     * first time the node's children are needed, while the node's lock is
+     * held. It must not read or change the tree, only create the child with
+     * createDeferredNode. The tree holds no deferred nodes unless a subclass
+     * creates them, so by default there is no child.
+     *
+     * @param parent The deferred node.
+     * @param source What the node was created with.
+     * @param left True for the left child, false for the right.
+     * @return The child, or null if there is none on that side.
+     */
+    protected BinaryTreeNode<E> deferredChild(BinaryTreeNode<E> parent, Object source, boolean left) {
+        return null;
+    }
+
+    /**
+     * Creates the children of a deferred node unless that has been done
+     * already, under the node's lock. A node which has left the tree in the
+     * meantime gets none.
+     */
+    private void expand(ConcurrentNode<E> node) {
+        if (node.source == null) {
+            return;
+        }
+        boolean exclusive = node.stripe.heldByCurrentThread();
+        StampedLock lock = node.stripe.lock;
+        long stamp = exclusive ? 0 : lock.writeLock();
+        try {
+            Object source = node.source;
+            if (source != null) {
+                if (owns(node)) {
+                    BinaryTreeNode<E> left = deferredChild(node, source, true);
+                    BinaryTreeNode<E> right = deferredChild(node, source, false);
+                    node.rawSetLeft(left == null ? null : adopt(left));
+                    node.rawSetRight(right == null ? null : adopt(right));
+                }
+                node.source = null;
+            }
+        } finally {
+            if (!exclusive) {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Adds nodes added below the provided node to the statistics of each of
+     * its ancestors, under the ancestor's lock. The additions commute, so
+     * changes in different parts of the tree may pass each other on their way
+     * up. For an ancestor k levels above the node the subtree grows by the
+     * same nodes and leaves, is at least k + 1 high, and its leaf depths grow
+     * by nodes + k * leaves: each new leaf lies k + 1 below it, and a leaf
+     * which gained children no longer counts its k.
+     *
+     * @param node The node below which nodes were added.
+     * @param nodes Number of nodes added.
+     * @param leaves Change in the number of leaves.
+     */
+    private void growAncestors(BinaryTreeNode<E> node, int nodes, int leaves) {
+        int k = 1;
+        for (Node<E> n = node.getParent(); n != null; n = n.getParent(), k++) {
+            ConcurrentNode<E> ancestor = (ConcurrentNode<E>) n;
+            StampedLock lock = ancestor.stripe.lock;
+            long stamp = lock.writeLock();
+            try {
+                grow(ancestor, nodes, leaves, nodes + (long) k * leaves, k + 1);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Measures the node and its ancestors again after a removal, which holds
+     * every lock while it does so.
+     * {@inheritDoc}
+     */
+    @Override
+    protected void updateAncestors(BinaryTreeNode<E> node) {
+        for (BinaryTreeNode<E> n = node; n != null; n = (BinaryTreeNode<E>) n.getParent()) {
+            measure(n);
+        }
+    }
+
+    /**
+     * Reads the statistics the node holds, which are always current, with an
+     * optimistic read of its lock.
+     * {@inheritDoc}
+     */
+    @Override
+    public TreeStatistics statistics(Node<E> node) throws IllegalArgumentException {
+        ConcurrentNode<E> n = (ConcurrentNode<E>) validate(node);
+        StampedLock lock = n.stripe.lock;
+        long stamp = lock.tryOptimisticRead();
+        TreeStatistics statistics = held(n);
+        if (!lock.validate(stamp)) {
+            if (n.stripe.heldByCurrentThread()) {
+                return held(n);
+            }
+            stamp = lock.readLock();
+            try {
+                statistics = held(n);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Node<E> root() {
+        return currentRoot;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Node<E> setRoot(E item) {
+        if (exclusiveOwner == Thread.currentThread()) {
+            return super.setRoot(item);
+        }
+        long[] stamps = lockAll();
+        try {
+            Node<E> newRoot = super.setRoot(item);
+            currentRoot = root;
+            count.set(size);
+            return newRoot;
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    /**
+     * Inserts the item as the first free child of the provided node.
+     * {@inheritDoc}
+     */
+    @Override
+    public Node<E> insert(E item, Node<E> p) throws IllegalArgumentException {
+        BinaryTreeNode<E> node = validate(p);
+        if (item == null || item == node.getElement()) {
+            throw new IllegalArgumentException("Item invalid.");
+        }
+        if (node.getLeft() == null && node.getRight() == null) {
+            return addLeft(node, item);
+        } else if (node.getRight() == null) {
+            return addRight(node, item);
+        }
+        throw new IllegalArgumentException("Node has two children");
+    }
+
+    /**
+     * Removes the item while holding every lock of the tree.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(E item, Node<E> p) throws IllegalArgumentException {
+        if (exclusiveOwner == Thread.currentThread()) {
+            return super.remove(item, p);
+        }
+        long[] stamps = lockAll();
+        try {
+            int before = size;
+            boolean removed = super.remove(item, p);
+            currentRoot = root;
+            count.addAndGet(size - before);
+            return removed;
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    /**
+     * Removes the minimum while holding every lock of the tree.
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeMin(Node<E> p) {
+        if (exclusiveOwner == Thread.currentThread()) {
+            super.removeMin(p);
+            return;
+        }
+        long[] stamps = lockAll();
+        try {
+            int before = size;
+            super.removeMin(p);
+            currentRoot = root;
+            count.addAndGet(size - before);
+        } finally {
+            unlockAll(stamps);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    /**
+     * Takes the structure lock, then the write lock of every stripe, in order
+     * so that two threads doing so cannot deadlock. While they are held the owning thread reads
+     * and writes nodes without locking them.
+     */
+    private long[] lockAll() {
+        long[] stamps = new long[stripes.length + 1];
+        stamps[stripes.length] = structureLock.writeLock();
+        for (int i = 0; i < stripes.length; i++) {
+            stamps[i] = stripes[i].lock.writeLock();
+        }
+        exclusiveOwner = Thread.currentThread();
+        return stamps;
+    }
+
+    private void unlockAll(long[] stamps) {
+        exclusiveOwner = null;
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlockWrite(stamps[i]);
+        }
+        structureLock.unlockWrite(stamps[stripes.length]);
+    }
+}
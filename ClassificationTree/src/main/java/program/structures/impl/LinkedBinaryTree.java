@@ -3,23 +3,43 @@ package program.structures.impl;
 import program.structures.BinaryTree;
 import program.structures.Node;
 import program.structures.Tree;
+import program.structures.TreeStatistics;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * LinkedBinaryTree class to be used for classification tree
  *
+ * Subtree statistics are kept lazily: adding or removing a node only marks
+ * it and its ancestors as changed, stopping at the first one marked already,
+ * and reading the statistics of a node measures the marked nodes below it
+ * again. Building a tree thus costs constant time per node, while the first
+ * read after a change costs time in proportion to the nodes marked since and
+ * writes to them, so reads must not overlap with each other or with changes.
+ * ConcurrentLinkedBinaryTree instead updates the ancestors as it adds.
+ *
  * @author Marcus Goeckner
  * @param <E> Type of data to be contained in the tree
  */
 public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTree<E> {
 
     protected BinaryTreeNode<E> root;
-    private int size = 0;
+    protected int size = 0;
+    private Object owner = new Object();
 
     /**
      * Nested BinaryTreeNode class to be used for the nodes in LinkedBinaryTree.
+     * Besides its links, each node holds its own depth and the size, height,
+     * leaf count and sum of leaf depths of its subtree, which the tree brings
+     * up to date as nodes are added and removed, and the owner token of the
+     * tree it belongs to. A node is stamped with the token only when the tree
+     * links it in, so a node built with this constructor is not valid in any
+     * tree even below a valid parent; the token is cleared when the node is
+     * removed.
      *
      * @author Marcus Goeckner
      * @param <E> The type of the element to be contained in the node.
@@ -30,12 +50,21 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
         private BinaryTreeNode<E> parent;
         private BinaryTreeNode<E> right;
         private BinaryTreeNode<E> left;
+        private int depth;
+        private int subtreeSize = 1;
+        private int height;
+        private int leafCount = 1;
+        private long leafDepthSum;
+        private boolean stale;
+        private Object owner;
 
         public BinaryTreeNode(E e, BinaryTreeNode<E> above, BinaryTreeNode<E> leftChild, BinaryTreeNode<E> rightChild) {
             element = e;
             parent = above;
             left = leftChild;
             right = rightChild;
+            depth = above == null ? 0 : above.depth + 1;
+            stale = leftChild != null || rightChild != null;
         }
 
         /**
@@ -160,13 +189,13 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
     @Override
     public Node<E> sibling(Node<E> p) throws IllegalArgumentException {
         BinaryTreeNode<E> node = validate(p);
-        Node<E> parent = parent(node);
+        BinaryTreeNode<E> parent = node.parent;
         if (parent == null) {
             return null;
-        } else if (node == left(parent)) {
-            return right(parent);
+        } else if (node == parent.getLeft()) {
+            return parent.getRight();
         } else {
-            return left(parent);
+            return parent.getLeft();
         }
     }
 
@@ -187,9 +216,10 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
         if (parent.getLeft() != null) {
             throw new IllegalArgumentException("Node already has a left child.");
         }
-        BinaryTreeNode<E> child = createNode(element, parent, null, null);
+        BinaryTreeNode<E> child = adopt(createNode(element, parent, null, null));
         parent.setLeft(child);
         size++;
+        updateAncestors(parent);
         return child;
     }
 
@@ -210,9 +240,10 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
         if (parent.getRight() != null) {
             throw new IllegalArgumentException("Node already has a right child.");
         }
-        BinaryTreeNode<E> child = createNode(element, parent, null, null);
+        BinaryTreeNode<E> child = adopt(createNode(element, parent, null, null));
         parent.setRight(child);
         size++;
+        updateAncestors(parent);
         return child;
     }
 
@@ -236,12 +267,13 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
      */
     @Override
     public Node<E> setRoot(E item) {
+        owner = new Object();
         if (item == null) {
             root = null;
             size = 0;
             return null;
         } else {
-            BinaryTreeNode<E> newRoot = createNode(item, null, null, null);
+            BinaryTreeNode<E> newRoot = adopt(createNode(item, null, null, null));
             root = newRoot;
             size = 1;
             return newRoot;
@@ -275,16 +307,35 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
      */
     @Override
     public Iterable<Node<E>> children(Node<E> p) throws IllegalArgumentException {
-        validate(p);
+        BinaryTreeNode<E> node = validate(p);
+        BinaryTreeNode<E> left = node.getLeft();
+        BinaryTreeNode<E> right = node.getRight();
         List<Node<E>> children = new ArrayList<>(2);
-        if (left(p) != null) {
-            children.add(left(p));
+        if (left != null) {
+            children.add(left);
         }
-        if (right(p) != null) {
-            children.add(right(p));
+        if (right != null) {
+            children.add(right);
         }
         return children;
+    }
 
+    /**
+     * Passes the left and then the right child of the provided node to the
+     * action, validating the node once and allocating nothing.
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachChild(Node<E> p, Consumer<? super Node<E>> action) throws IllegalArgumentException {
+        BinaryTreeNode<E> node = validate(p);
+        BinaryTreeNode<E> left = node.getLeft();
+        BinaryTreeNode<E> right = node.getRight();
+        if (left != null) {
+            action.accept(left);
+        }
+        if (right != null) {
+            action.accept(right);
+        }
     }
 
     /**
@@ -298,10 +349,10 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
     public int numChildren(Node<E> p) throws IllegalArgumentException {
         BinaryTreeNode<E> node = validate(p);
         int count = 0;
-        if (left(p) != null) {
+        if (node.getLeft() != null) {
             count++;
         }
-        if (right(p) != null) {
+        if (node.getRight() != null) {
             count++;
         }
         return count;
@@ -317,7 +368,6 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
      */
     @Override
     public boolean isInternal(Node<E> p) throws IllegalArgumentException {
-        validate(p);
         return numChildren(p) > 0;
     }
 
@@ -331,7 +381,6 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
      */
     @Override
     public boolean isExternal(Node<E> p) throws IllegalArgumentException {
-        validate(p);
         return numChildren(p) == 0;
     }
 
@@ -401,7 +450,9 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
             if (item.compareTo(node.getElement()) < 0) {
                 if (node.getLeft().getElement() == item) {
                     if (node.getLeft().getLeft() == null || node.getLeft().getRight() == null) {
+                        disown(node.getLeft(), node.getLeft().getRight());
                         node.setLeft(node.getLeft().getRight());
+                        lifted(node, node.getLeft());
                         size--;
                         return true;
                     }
@@ -411,7 +462,9 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
             if (item.compareTo(node.getElement()) > 0) {
                 if (node.getRight().getElement() == item) {
                     if (node.getRight().getRight() == null || node.getRight().getLeft() == null) {
+                        disown(node.getRight(), node.getRight().getLeft());
                         node.setRight(node.getRight().getLeft());
+                        lifted(node, node.getRight());
                         size--;
                         return true;
                     }
@@ -440,18 +493,188 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
 
     /**
      * Function to be used to remove the min value of items in a tree with root p.
+     * The leftmost node of the subtree is removed and its right child, if any,
+     * takes its place.
      *
      * @param p Parent node.
      */
     public void removeMin(Node<E> p) {
-        BinaryTreeNode<E> node = validate(p);
-        if (node.getLeft() == null) {
-            setRoot(null);
+        BinaryTreeNode<E> node = (BinaryTreeNode<E>) minValue(p);
+        BinaryTreeNode<E> child = node.getRight();
+        BinaryTreeNode<E> parent = node.parent;
+        if (child != null) {
+            child.setParent(parent);
+        }
+        if (parent == null) {
+            root = child;
+        } else if (parent.getLeft() == node) {
+            parent.setLeft(child);
         } else {
-            removeMin(node.getLeft());
+            parent.setRight(child);
+        }
+        node.setParent(null);
+        node.setRight(null);
+        node.owner = null;
+        size--;
+        lifted(parent, child);
+    }
+
+    /**
+     * Clears the owner token of a node being removed, and of every node below
+     * it except the subtree which is kept in its place, so that validate
+     * rejects them from now on.
+     *
+     * @param removed The node being removed.
+     * @param kept The child of the removed node which takes its place, or
+     * null.
+     */
+    private void disown(BinaryTreeNode<E> removed, BinaryTreeNode<E> kept) {
+        Deque<BinaryTreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(removed);
+        while (!stack.isEmpty()) {
+            BinaryTreeNode<E> n = stack.pop();
+            n.owner = null;
+            if (n.left != null && n.left != kept) {
+                stack.push(n.left);
+            }
+            if (n.right != null && n.right != kept) {
+                stack.push(n.right);
+            }
+        }
+    }
+
+    /**
+     * Keeps the statistics up to date after a subtree has been moved up to
+     * hang from the provided parent: the depths in the moved subtree are
+     * renumbered, which takes time in proportion to its size, and the
+     * ancestors are measured again.
+     *
+     * @param parent New parent of the subtree, or null if it is now the root.
+     * @param child Root of the moved subtree, or null if none was moved.
+     */
+    private void lifted(BinaryTreeNode<E> parent, BinaryTreeNode<E> child) {
+        if (child != null) {
+            child.setParent(parent);
+            Deque<BinaryTreeNode<E>> stack = new ArrayDeque<>();
+            child.depth = parent == null ? 0 : parent.depth + 1;
+            stack.push(child);
+            while (!stack.isEmpty()) {
+                BinaryTreeNode<E> n = stack.pop();
+                if (n.left != null) {
+                    n.left.depth = n.depth + 1;
+                    stack.push(n.left);
+                }
+                if (n.right != null) {
+                    n.right.depth = n.depth + 1;
+                    stack.push(n.right);
+                }
+            }
+        }
+        if (parent != null) {
+            updateAncestors(parent);
+        }
+    }
+
+    /**
+     * Marks the provided node and its ancestors as needing to be measured
+     * again, after a child was added below the node or removed from it. The
+     * ancestors of a marked node are always marked, so marking stops at the
+     * first one already marked: a single change takes time in proportion to
+     * the depth of the node, and building a tree top down takes constant time
+     * per node instead of walking to the root every time.
+     *
+     * @param node The lowest node whose subtree changed.
+     */
+    protected void updateAncestors(BinaryTreeNode<E> node) {
+        for (BinaryTreeNode<E> n = node; n != null && !n.stale; n = n.parent) {
+            n.stale = true;
         }
     }
 
+    /**
+     * Measures again the marked nodes of the provided node's subtree, children
+     * before parents. Takes time in proportion to the number of marked nodes,
+     * which after a single change is the depth of the change.
+     */
+    private static <E extends Comparable> void refresh(BinaryTreeNode<E> top) {
+        if (!top.stale) {
+            return;
+        }
+        Deque<BinaryTreeNode<E>> stack = new ArrayDeque<>();
+        stack.push(top);
+        while (!stack.isEmpty()) {
+            BinaryTreeNode<E> n = stack.peek();
+            if (n.left != null && n.left.stale) {
+                stack.push(n.left);
+            } else if (n.right != null && n.right.stale) {
+                stack.push(n.right);
+            } else {
+                measure(n);
+                n.stale = false;
+                stack.pop();
+            }
+        }
+    }
+
+    /**
+     * Sets the statistics of a node from those of its children.
+     */
+    static <E extends Comparable> void measure(BinaryTreeNode<E> n) {
+        BinaryTreeNode<E> l = n.left;
+        BinaryTreeNode<E> r = n.right;
+        if (l == null && r == null) {
+            n.subtreeSize = 1;
+            n.height = 0;
+            n.leafCount = 1;
+            n.leafDepthSum = 0;
+            return;
+        }
+        int size = 1;
+        int height = 0;
+        int leaves = 0;
+        long depthSum = 0;
+        if (l != null) {
+            size += l.subtreeSize;
+            height = l.height + 1;
+            leaves += l.leafCount;
+            depthSum += l.leafDepthSum + l.leafCount;
+        }
+        if (r != null) {
+            size += r.subtreeSize;
+            height = Math.max(height, r.height + 1);
+            leaves += r.leafCount;
+            depthSum += r.leafDepthSum + r.leafCount;
+        }
+        n.subtreeSize = size;
+        n.height = height;
+        n.leafCount = leaves;
+        n.leafDepthSum = depthSum;
+    }
+
+    /**
+     * Adds to the statistics of a node after nodes were added below it, for
+     * trees which keep every node's statistics current instead of marking.
+     *
+     * @param n The node.
+     * @param nodes Number of nodes added to its subtree.
+     * @param leaves Change in the number of leaves of its subtree.
+     * @param leafDepths Change in the sum of leaf depths of its subtree.
+     * @param height Height the subtree has at least.
+     */
+    static void grow(BinaryTreeNode<?> n, int nodes, int leaves, long leafDepths, int height) {
+        n.subtreeSize += nodes;
+        n.leafCount += leaves;
+        n.leafDepthSum += leafDepths;
+        n.height = Math.max(n.height, height);
+    }
+
+    /**
+     * @return The statistics a node holds, as they are.
+     */
+    static TreeStatistics held(BinaryTreeNode<?> n) {
+        return new TreeStatistics(n.subtreeSize, n.height, n.leafCount, n.leafDepthSum);
+    }
+
     /**
      * Finds the minimum value in a tree.
      *
@@ -459,12 +682,11 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
      * @return Minimum value in a tree with root p.
      */
     public Node<E> minValue(Node<E> p) {
-        BinaryTreeNode node = validate(p);
-        if (node.getLeft() == null) {
-            return node;
-        } else {
-            return minValue(node.getLeft());
+        BinaryTreeNode<E> node = validate(p);
+        while (node.getLeft() != null) {
+            node = node.getLeft();
         }
+        return node;
     }
 
     /**
@@ -505,12 +727,37 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
        }
     }
 
+    /**
+     * Stamps a node with the owner token of this tree, making it valid here.
+     * Call it only where the node is linked into the tree.
+     *
+     * @param node The node being linked in.
+     * @return The node.
+     */
+    protected BinaryTreeNode<E> adopt(BinaryTreeNode<E> node) {
+        node.owner = owner;
+        return node;
+    }
+
+    /**
+     * @return True if the node holds the owner token of this tree, that is
+     * if it is in the tree now.
+     */
+    boolean owns(BinaryTreeNode<E> node) {
+        return node.owner == owner;
+    }
+
     /**
      * Validates that the provided node is not null, is of a subtype of Node
      * supported by the implementing tree class, and is currently in this tree.
      * If these conditions are not met then an IllegalArgumentException is
      * thrown.
      *
+     * Every node holds the owner token of the tree it was added to. Setting
+     * the root replaces the tree's token, and removing a node clears the
+     * node's own, so a single comparison rejects nodes of other trees, nodes
+     * which have been removed and nodes left over from an earlier root.
+     *
      * @param p The node to be validated.
      * @return A node of the expected type specific to the implementing tree.
      * @throws IllegalArgumentException Thrown if the provided node is null, not
@@ -522,40 +769,71 @@ public class LinkedBinaryTree<E extends Comparable> implements Tree<E>, BinaryTr
             throw new IllegalArgumentException();
         }
         BinaryTreeNode<E> node = (BinaryTreeNode<E>) p;
-        if (node.getParent() == null && !isRoot(node)) {
+        if (!owns(node)) {
             throw new IllegalArgumentException("Provided node is not in the tree.");
         }
         return node;
     }
 
     /**
-     * Calculates the depth of the given node in the current tree.
+     * Returns the depth of the given node in the current tree, which each
+     * node holds, in constant time.
      *
-     * @param node Node whose depth is to be calculated
+     * @param node Node whose depth is requested
      * @return Depth of the node in the tree.
      * @throws IllegalArgumentException If the provided node is invalid
      */
     @Override
     public int depth(Node<E> node) throws IllegalArgumentException {
-        BinaryTreeNode<E> n = validate(node);
-        if (isRoot(n)) {
-            return 0;
-        } else {
-            return 1 + depth(parent(n));
-        }
+        return validate(node).depth;
     }
 
     /**
-     * Recusively calculates the size of a subtree rooted at the provided node.
+     * Returns the size of a subtree rooted at the provided node, which each
+     * node holds.
      *
-     * @param node Node whose subtree size is to be calculated
-     * @return Size of the subtree (excluding the root)
+     * @param node Node whose subtree size is requested
+     * @return Size of the subtree (including the root)
      * @throws IllegalArgumentException If the provided node is invalid.
      */
     @Override
     public int subTreeSize(Node<E> node) throws IllegalArgumentException {
-        BinaryTreeNode n = validate(node);
-        return (subTreeSize(n.getLeft()) + 1 + subTreeSize(n.getRight()));
+        return statistics(node).getSize();
+    }
+
+    /**
+     * Returns the statistics of the subtree rooted at the provided node,
+     * which each node holds. Nodes changed since the last call are measured
+     * first, so this takes constant time unless the subtree has changed, and
+     * otherwise time in proportion to the nodes marked since. That makes a
+     * read write to the nodes: two threads must not call it at once, nor
+     * while another changes the tree.
+     *
+     * @param node Root of the subtree.
+     * @return Statistics of the subtree.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public TreeStatistics statistics(Node<E> node) throws IllegalArgumentException {
+        BinaryTreeNode<E> n = validate(node);
+        refresh(n);
+        return held(n);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean maintainsStatistics() {
+        return true;
+    }
+
+    /**
+     * @return The statistics of the whole tree.
+     */
+    public TreeStatistics statistics() {
+        Node<E> r = root();
+        return r == null ? TreeStatistics.EMPTY : statistics(r);
     }
 
     /**
@@ -0,0 +1,710 @@
+package program.structures.impl;
+
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.TreeStatistics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * PersistentBinaryTree class whose nodes are never changed once created. A
+ * change copies the nodes on the path from the changed node up to the root,
+ * sharing every other node with the previous version, and publishes the new
+ * root with a single compare and set. Each version of the tree is therefore
+ * immutable, and any number of threads can read, traverse or save a version
+ * with no locking while other threads change the tree.
+ *
+ * The Node objects handed out by this tree are positions within one version:
+ * the immutable node, and the position of its parent. Reading through a
+ * position always sees the version it came from. Changing through a position
+ * applies the change to the node at the same place in the current version and
+ * returns a position in the new version. Two positions are equal when they
+ * refer to the same immutable node.
+ *
+ * @param <E> Type of data to be contained in the tree
+ */
+public class PersistentBinaryTree<E extends Comparable> implements BinaryTree<E> {
+
+    private final AtomicReference<Version<E>> current;
+
+    /**
+     * An immutable node, which also holds the statistics of its subtree. A
+     * change creates new nodes only on the path to the root, so measuring
+     * them from their children as they are created keeps every subtree's
+     * statistics correct for the same cost.
+     */
+    private static final class Cell<E> {
+
+        final E element;
+        final Cell<E> left;
+        final Cell<E> right;
+        final int size;
+        final int height;
+        final int leafCount;
+        final long leafDepthSum;
+
+        Cell(E element, Cell<E> left, Cell<E> right) {
+            this.element = element;
+            this.left = left;
+            this.right = right;
+            if (left == null && right == null) {
+                size = 1;
+                height = 0;
+                leafCount = 1;
+                leafDepthSum = 0;
+            } else {
+                size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+                height = 1 + Math.max(left == null ? 0 : left.height, right == null ? 0 : right.height);
+                leafCount = (left == null ? 0 : left.leafCount) + (right == null ? 0 : right.leafCount);
+                leafDepthSum = (left == null ? 0 : left.leafDepthSum + left.leafCount)
+                        + (right == null ? 0 : right.leafDepthSum + right.leafCount);
+            }
+        }
+    }
+
+    /**
+     * The root and size of one version of the tree, published together.
+     */
+    private static final class Version<E> {
+
+        final Cell<E> root;
+        final int size;
+
+        Version(Cell<E> root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Nested PathNode class used as the position of a node in one version of
+     * a PersistentBinaryTree.
+     *
+     * @param <E> The type of the element contained in the node.
+     */
+    public static final class PathNode<E extends Comparable> implements Node<E> {
+
+        private final PersistentBinaryTree<E> tree;
+        private final Cell<E> cell;
+        private final PathNode<E> parent;
+        private final boolean left;
+        private final int depth;
+
+        private PathNode(PersistentBinaryTree<E> tree, Cell<E> cell, PathNode<E> parent, boolean left) {
+            this.tree = tree;
+            this.cell = cell;
+            this.parent = parent;
+            this.left = left;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+
+        /**
+         * @return The element contained in this node.
+         */
+        @Override
+        public E getElement() {
+            return cell.element;
+        }
+
+        /**
+         * Sets the element of the node at this position in the current version
+         * of the tree. This position keeps its old element.
+         *
+         * @param element New value to be contained in this node.
+         * @throws IllegalArgumentException If the value is null or there is no
+         * longer a node at this position.
+         */
+        @Override
+        public void setElement(E element) throws IllegalArgumentException {
+            tree.set(this, element);
+        }
+
+        /**
+         * @return The parent node of this node. Can be null.
+         */
+        @Override
+        public Node<E> getParent() {
+            return parent;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PathNode)) {
+                return false;
+            }
+            PathNode other = (PathNode) obj;
+            return tree == other.tree && cell == other.cell;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(cell);
+        }
+    }
+
+    /**
+     * Creates an empty tree.
+     */
+    public PersistentBinaryTree() {
+        this(new Version<>(null, 0));
+    }
+
+    private PersistentBinaryTree(Version<E> version) {
+        current = new AtomicReference<>(version);
+    }
+
+    /**
+     * Returns a new tree starting from the current version of this one. The
+     * two trees share their nodes, so this takes constant time, but changes
+     * to either are not seen by the other.
+     *
+     * @return A snapshot of this tree.
+     */
+    public PersistentBinaryTree<E> snapshot() {
+        return new PersistentBinaryTree<>(current.get());
+    }
+
+    /**
+     * Returns the position of the node at the same place as the provided one
+     * in the current version of the tree.
+     *
+     * @param p A position in any version of this tree.
+     * @return The position in the current version.
+     * @throws IllegalArgumentException If the position is invalid or there is
+     * no longer a node at its place.
+     */
+    public Node<E> current(Node<E> p) throws IllegalArgumentException {
+        PathNode<E> node = validate(p);
+        Version<E> version = current.get();
+        resolve(version, node);
+        return position(version.root, directions(node));
+    }
+
+    /**
+     * Replaces the leaf at the provided position with a node holding the
+     * given element and two new leaves, in a single new version, so that no
+     * reader sees the change half made.
+     *
+     * @param p Position of the leaf.
+     * @param element New element of the node.
+     * @param leftElement Element of the new left leaf.
+     * @param rightElement Element of the new right leaf.
+     * @return The position of the changed node in the new version.
+     * @throws IllegalArgumentException If any element is null, the position
+     * is invalid, or the node at its place is not a leaf.
+     */
+    public Node<E> graft(Node<E> p, E element, E leftElement, E rightElement) throws IllegalArgumentException {
+        if (element == null || leftElement == null || rightElement == null) {
+            throw new IllegalArgumentException("Cannot create a node with null elements");
+        }
+        return update(validate(p), 2, target -> {
+            if (target.left != null || target.right != null) {
+                throw new IllegalArgumentException("Node is not a leaf.");
+            }
+            return new Cell<>(element, new Cell<>(leftElement, null, null), new Cell<>(rightElement, null, null));
+        });
+    }
+
+    /**
+     * Returns the left child of the provided node, in the same version.
+     *
+     * @param p The parent node of whom the left child is desired.
+     * @return The left child of the provided node, can be null if no such child
+     * exists.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public Node<E> left(Node<E> p) throws IllegalArgumentException {
+        PathNode<E> node = validate(p);
+        return node.cell.left == null ? null : new PathNode<>(this, node.cell.left, node, true);
+    }
+
+    /**
+     * Returns the right child of the provided node, in the same version.
+     *
+     * @param p The parent node of whom the right child is desired.
+     * @return The right child of the provided node, can be null if no such
+     * child exists.
+     * @throws IllegalArgumentException If the provided node is invalid.
+     */
+    @Override
+    public Node<E> right(Node<E> p) throws IllegalArgumentException {
+        PathNode<E> node = validate(p);
+        return node.cell.right == null ? null : new PathNode<>(this, node.cell.right, node, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Node<E> sibling(Node<E> p) throws IllegalArgumentException {
+        PathNode<E> node = validate(p);
+        if (node.parent == null) {
+            return null;
+        }
+        return node.left ? right(node.parent) : left(node.parent);
+    }
+
+    /**
+     * Adds the provided element as the left child of the node at the provided
+     * position in the current version.
+     *
+     * @param p       Position of the node to add a left child to.
+     * @param element Element to be added
+     * @return The new left child, in the new version.
+     * @throws IllegalArgumentException If the provided node is invalid, if the
+     *                                  provided element is null, or if the node already has a left child.
+     */
+    @Override
+    public Node<E> addLeft(Node<E> p, E element) throws IllegalArgumentException {
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot create a node with null elements");
+        }
+        Node<E> parent = update(validate(p), 1, target -> {
+            if (target.left != null) {
+                throw new IllegalArgumentException("Node already has a left child.");
+            }
+            return new Cell<>(target.element, new Cell<>(element, null, null), target.right);
+        });
+        return left(parent);
+    }
+
+    /**
+     * Adds the provided element as the right child of the node at the
+     * provided position in the current version.
+     *
+     * @param p       Position of the node to add a right child to.
+     * @param element Element to be added
+     * @return The new right child, in the new version.
+     * @throws IllegalArgumentException If the provided node is invalid, if the
+     *                                  provided element is null, or if the node already has a right child.
+     */
+    @Override
+    public Node<E> addRight(Node<E> p, E element) throws IllegalArgumentException {
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot create a node with null elements");
+        }
+        Node<E> parent = update(validate(p), 1, target -> {
+            if (target.right != null) {
+                throw new IllegalArgumentException("Node already has a right child.");
+            }
+            return new Cell<>(target.element, target.left, new Cell<>(element, null, null));
+        });
+        return right(parent);
+    }
+
+    /**
+     * @return The root node of the current version, or null if the tree is
+     * empty.
+     */
+    @Override
+    public Node<E> root() {
+        Cell<E> root = current.get().root;
+        return root == null ? null : new PathNode<>(this, root, null, false);
+    }
+
+    /**
+     * Replaces the whole tree with a single root node holding the provided
+     * item, or empties it if the item is null.
+     *
+     * @param item New item for the root node.
+     * @return The new root node.
+     */
+    @Override
+    public Node<E> setRoot(E item) {
+        if (item == null) {
+            current.set(new Version<>(null, 0));
+            return null;
+        }
+        Cell<E> root = new Cell<>(item, null, null);
+        current.set(new Version<>(root, 1));
+        return new PathNode<>(this, root, null, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Node<E> parent(Node<E> p) throws IllegalArgumentException {
+        return validate(p).parent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<Node<E>> children(Node<E> p) throws IllegalArgumentException {
+        PathNode<E> node = validate(p);
+        List<Node<E>> children = new ArrayList<>(2);
+        if (node.cell.left != null) {
+            children.add(left(node));
+        }
+        if (node.cell.right != null) {
+            children.add(right(node));
+        }
+        return children;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachChild(Node<E> p, Consumer<? super Node<E>> action) throws IllegalArgumentException {
+        PathNode<E> node = validate(p);
+        if (node.cell.left != null) {
+            action.accept(new PathNode<>(this, node.cell.left, node, true));
+        }
+        if (node.cell.right != null) {
+            action.accept(new PathNode<>(this, node.cell.right, node, false));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int numChildren(Node<E> p) throws IllegalArgumentException {
+        Cell<E> cell = validate(p).cell;
+        return (cell.left == null ? 0 : 1) + (cell.right == null ? 0 : 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isInternal(Node<E> p) throws IllegalArgumentException {
+        return numChildren(p) > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isExternal(Node<E> p) throws IllegalArgumentException {
+        return numChildren(p) == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRoot(Node<E> p) throws IllegalArgumentException {
+        return validate(p).parent == null;
+    }
+
+    /**
+     * Inserts the item as the first free child of the node at the provided
+     * position in the current version.
+     *
+     * @param item Item to be inserted into the tree.
+     * @param p    Position of the parent node.
+     * @return The new child, in the new version.
+     * @throws IllegalArgumentException if the provided parent node is invalid,
+     *                                  already has two children, or the provided value is null.
+     */
+    @Override
+    public Node<E> insert(E item, Node<E> p) throws IllegalArgumentException {
+        if (item == null) {
+            throw new IllegalArgumentException("Item invalid.");
+        }
+        PathNode<E> node = validate(p);
+        boolean[] addedLeft = new boolean[1];
+        Node<E> parent = update(node, 1, target -> {
+            if (target.left == null) {
+                addedLeft[0] = true;
+                return new Cell<>(target.element, new Cell<>(item, null, null), target.right);
+            } else if (target.right == null) {
+                addedLeft[0] = false;
+                return new Cell<>(target.element, target.left, new Cell<>(item, null, null));
+            }
+            throw new IllegalArgumentException("Node has two children");
+        });
+        return addedLeft[0] ? left(parent) : right(parent);
+    }
+
+    /**
+     * Removes the given item from the subtree below the provided position in
+     * the current version, searching for it by comparison as in a binary
+     * search tree. A removed node with a single child is replaced by that
+     * child, and a removed node with two children takes the smallest element
+     * of its right subtree.
+     *
+     * @param item Item to be removed from the subtree of the provided node.
+     * @param p    Node at which to start searching.
+     * @return true if the item was removed, false otherwise.
+     * @throws IllegalArgumentException If the provided node is not valid.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(E item, Node<E> p) throws IllegalArgumentException {
+        if (item == null || p == null) {
+            return false;
+        }
+        PathNode<E> node = validate(p);
+        while (true) {
+            Version<E> version = current.get();
+            List<Cell<E>> path = resolve(version, node);
+            List<Boolean> directions = directions(node);
+            Cell<E> cell = path.get(path.size() - 1);
+            while (cell != null) {
+                int cmp = item.compareTo(cell.element);
+                if (cmp == 0) {
+                    break;
+                }
+                directions.add(cmp < 0);
+                cell = cmp < 0 ? cell.left : cell.right;
+                if (cell != null) {
+                    path.add(cell);
+                }
+            }
+            if (cell == null) {
+                return false;
+            }
+            Cell<E> replacement;
+            if (cell.left == null) {
+                replacement = cell.right;
+            } else if (cell.right == null) {
+                replacement = cell.left;
+            } else {
+                Cell<E> min = cell.right;
+                while (min.left != null) {
+                    min = min.left;
+                }
+                replacement = new Cell<>(min.element, cell.left, withoutMin(cell.right));
+            }
+            path.remove(path.size() - 1);
+            Cell<E> root = copyUp(path, directions, replacement);
+            if (current.compareAndSet(version, new Version<>(root, version.size - 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return A copy of the subtree without its leftmost node, sharing every
+     * node off the leftmost path.
+     */
+    private static <E> Cell<E> withoutMin(Cell<E> subtree) {
+        Deque<Cell<E>> leftmost = new ArrayDeque<>();
+        Cell<E> cell = subtree;
+        while (cell.left != null) {
+            leftmost.push(cell);
+            cell = cell.left;
+        }
+        Cell<E> rebuilt = cell.right;
+        while (!leftmost.isEmpty()) {
+            Cell<E> above = leftmost.pop();
+            rebuilt = new Cell<>(above.element, rebuilt, above.right);
+        }
+        return rebuilt;
+    }
+
+    /**
+     * @return The number of nodes in the current version.
+     */
+    @Override
+    public int size() {
+        return current.get().size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return current.get().root == null;
+    }
+
+    /**
+     * Sets the element of the node at the provided position in the current
+     * version.
+     *
+     * @param node    Position of the node whose value is to be updated.
+     * @param element New value for the node.
+     * @return The new value.
+     * @throws IllegalArgumentException If the provided node is invalid, or the
+     *                                  element value is null.
+     */
+    @Override
+    public E set(Node<E> node, E element) throws IllegalArgumentException {
+        if (element == null) {
+            throw new IllegalArgumentException("Element cannot be null");
+        }
+        update(validate(node), 0, target -> new Cell<>(element, target.left, target.right));
+        return element;
+    }
+
+    /**
+     * Validates that the provided node is a position of this tree. Positions
+     * in earlier versions are valid for reading.
+     *
+     * @param p The node to be validated.
+     * @return The position.
+     * @throws IllegalArgumentException If the node is null or not a position
+     *                                  of this tree.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public PathNode<E> validate(Node<E> p) throws IllegalArgumentException {
+        if (!(p instanceof PathNode)) {
+            throw new IllegalArgumentException();
+        }
+        PathNode<E> node = (PathNode<E>) p;
+        if (node.tree != this) {
+            throw new IllegalArgumentException("Provided node is not in the tree.");
+        }
+        return node;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int depth(Node<E> node) throws IllegalArgumentException {
+        return validate(node).depth;
+    }
+
+    /**
+     * Returns the size of the subtree, which each node holds, in constant
+     * time.
+     * {@inheritDoc}
+     */
+    @Override
+    public int subTreeSize(Node<E> node) throws IllegalArgumentException {
+        return validate(node).cell.size;
+    }
+
+    /**
+     * Returns the statistics of the subtree, which each node holds, in
+     * constant time.
+     * {@inheritDoc}
+     */
+    @Override
+    public TreeStatistics statistics(Node<E> node) throws IllegalArgumentException {
+        Cell<E> cell = validate(node).cell;
+        return new TreeStatistics(cell.size, cell.height, cell.leafCount, cell.leafDepthSum);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean maintainsStatistics() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isLastChild(Node<E> node) throws IllegalArgumentException {
+        PathNode<E> n = validate(node);
+        return n.parent == null || !n.left || n.parent.cell.right == null;
+    }
+
+    /**
+     * @return The directions from the root to the provided position, true
+     * for left.
+     */
+    private static <E extends Comparable> List<Boolean> directions(PathNode<E> node) {
+        Boolean[] directions = new Boolean[node.depth];
+        for (PathNode<E> n = node; n.parent != null; n = n.parent) {
+            directions[n.depth - 1] = n.left;
+        }
+        List<Boolean> list = new ArrayList<>(node.depth + 4);
+        for (Boolean direction : directions) {
+            list.add(direction);
+        }
+        return list;
+    }
+
+    /**
+     * @return The nodes of the provided version on the path from the root to
+     * the place of the provided position.
+     * @throws IllegalArgumentException If the version has no node there.
+     */
+    private List<Cell<E>> resolve(Version<E> version, PathNode<E> node) {
+        List<Cell<E>> path = new ArrayList<>(node.depth + 4);
+        Cell<E> cell = version.root;
+        if (cell == null) {
+            throw new IllegalArgumentException("Provided node is no longer in the tree.");
+        }
+        path.add(cell);
+        for (boolean left : directions(node)) {
+            cell = left ? cell.left : cell.right;
+            if (cell == null) {
+                throw new IllegalArgumentException("Provided node is no longer in the tree.");
+            }
+            path.add(cell);
+        }
+        return path;
+    }
+
+    /**
+     * Rebuilds the path above a replaced node, returning the new root.
+     *
+     * @param path Nodes from the root down to the parent of the replaced node.
+     * @param directions Directions from the root to the replaced node.
+     * @param replacement The new node, or null to remove it.
+     */
+    private static <E> Cell<E> copyUp(List<Cell<E>> path, List<Boolean> directions, Cell<E> replacement) {
+        Cell<E> cell = replacement;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Cell<E> above = path.get(i);
+            cell = directions.get(i)
+                    ? new Cell<>(above.element, cell, above.right)
+                    : new Cell<>(above.element, above.left, cell);
+        }
+        return cell;
+    }
+
+    /**
+     * Replaces the node at the place of the provided position in the current
+     * version, copying the path above it, and publishes the new version,
+     * trying again from the newer version if another thread published first.
+     *
+     * @param node Position of the node to replace.
+     * @param sizeChange Number of nodes the replacement adds.
+     * @param edit Produces the replacement from the current node.
+     * @return The position of the replacement in the new version.
+     */
+    private Node<E> update(PathNode<E> node, int sizeChange, UnaryOperator<Cell<E>> edit) {
+        List<Boolean> directions = directions(node);
+        while (true) {
+            Version<E> version = current.get();
+            List<Cell<E>> path = resolve(version, node);
+            Cell<E> replacement = edit.apply(path.remove(path.size() - 1));
+            Cell<E> root = copyUp(path, directions, replacement);
+            if (current.compareAndSet(version, new Version<>(root, version.size + sizeChange))) {
+                return position(root, directions);
+            }
+        }
+    }
+
+    /**
+     * @return The position reached by following the directions from the
+     * provided root.
+     */
+    private PathNode<E> position(Cell<E> root, List<Boolean> directions) {
+        PathNode<E> node = new PathNode<>(this, root, null, false);
+        for (boolean left : directions) {
+            node = new PathNode<>(this, left ? node.cell.left : node.cell.right, node, left);
+        }
+        return node;
+    }
+}
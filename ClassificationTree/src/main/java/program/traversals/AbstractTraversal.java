@@ -1,8 +1,17 @@
 package program.traversals;
 
+import program.structures.Node;
 import program.structures.Tree;
+import program.traversals.commands.CompositeCommand;
 import program.traversals.commands.TraversalCommand;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * The abstract tree traversal super class.
  *
@@ -33,4 +42,91 @@ public abstract class AbstractTraversal<E> implements TreeTraversal<E> {
     public void setCommand(TraversalCommand command) {
         this.command = command;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addCommand(TraversalCommand cmd) throws IllegalArgumentException {
+        if (cmd == null) {
+            throw new IllegalArgumentException("Command cannot be null.");
+        }
+        if (command == null) {
+            command = cmd;
+        } else {
+            command = new CompositeCommand<E>().add(command).add(cmd);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void execute() throws IllegalStateException {
+        if (command == null) {
+            throw new IllegalStateException("No command has been set.");
+        }
+        for (Node<E> node : lazyTraverse()) {
+            command.execute(tree, node);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<Node<E>> lazyTraverse() {
+        return () -> tree.isEmpty() ? Collections.<Node<E>>emptyIterator() : iterator(tree.root());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<Node<E>> lazyTraverseFrom(Node<E> node) throws IllegalArgumentException {
+        if (node == null) {
+            throw new IllegalArgumentException("Start node cannot be null.");
+        }
+        tree.validate(node);
+        return () -> iterator(node);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Spliterator<Node<E>> spliterator() {
+        return new SubtreeSpliterator<>(tree, tree.root(), tree.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Node<E>> stream() {
+        Spliterator<Node<E>> ordered = Spliterators.spliteratorUnknownSize(lazyTraverse().iterator(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.stream(ordered, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Node<E>> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Creates an iterator which visits the subtree rooted at the provided node
+     * in the order of this traversal, finding each node only when it is
+     * requested. Implementations keep their own stack or queue rather than
+     * recursing.
+     *
+     * @param start Root of the subtree to visit, already validated.
+     * @return A lazy iterator over the subtree.
+     */
+    protected abstract Iterator<Node<E>> iterator(Node<E> start);
 }
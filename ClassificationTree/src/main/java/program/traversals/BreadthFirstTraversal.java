@@ -4,8 +4,12 @@ import program.structures.Node;
 import program.structures.Tree;
 import program.traversals.commands.TraversalCommand;
 
+import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.function.Consumer;
 
 /**
  * An implementation of the Iterative BreadthFirstSearch algorithm.
@@ -29,14 +33,13 @@ public class BreadthFirstTraversal<E> extends AbstractTraversal<E> {
     public Iterable<Node<E>> traverse() {
         Queue<Node<E>> q1 = new LinkedList<>();
         if (!tree.isEmpty()) {
-            Queue<Node<E>> q2 = new LinkedList<>();
+            Queue<Node<E>> q2 = new ArrayDeque<>();
+            Consumer<Node<E>> enqueue = q2::offer;
             q2.offer(tree.root());
             while (!q2.isEmpty()) {
                 Node<E> p = q2.poll();
                 q1.add(p);
-                for (Node<E> c : tree.children(p)) {
-                    q2.offer(c);
-                }
+                tree.forEachChild(p, enqueue);
             }
         }
         return q1;
@@ -52,14 +55,13 @@ public class BreadthFirstTraversal<E> extends AbstractTraversal<E> {
        }
         Queue<Node<E>> q1 = new LinkedList<>();
         if (!tree.isEmpty()) {
-            Queue<Node<E>> q2 = new LinkedList<>();
+            Queue<Node<E>> q2 = new ArrayDeque<>();
+            Consumer<Node<E>> enqueue = q2::offer;
             q2.offer(start);
             while (!q2.isEmpty()) {
                 Node<E> p = q2.poll();
                 q1.add(p);
-                for (Node<E> c : tree.children(p)) {
-                    q2.offer(c);
-                }
+                tree.forEachChild(p, enqueue);
             }
         }
         return q1;
@@ -72,4 +74,43 @@ public class BreadthFirstTraversal<E> extends AbstractTraversal<E> {
     public void setCommand(TraversalCommand cmd) {
         this.command = cmd;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Iterator<Node<E>> iterator(Node<E> start) {
+        return new BreadthFirstIterator(start);
+    }
+
+    /**
+     * Iterator which produces the breadth first order one node at a time,
+     * keeping the nodes of the frontier in a queue. Children are added to it
+     * through forEachChild, so producing a node allocates nothing once the
+     * queue has grown to the width of the tree.
+     */
+    private class BreadthFirstIterator implements Iterator<Node<E>> {
+
+        private final Queue<Node<E>> queue = new ArrayDeque<>();
+        private final Consumer<Node<E>> enqueue = queue::offer;
+
+        BreadthFirstIterator(Node<E> start) {
+            queue.offer(start);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public Node<E> next() {
+            Node<E> p = queue.poll();
+            if (p == null) {
+                throw new NoSuchElementException();
+            }
+            tree.forEachChild(p, enqueue);
+            return p;
+        }
+    }
 }
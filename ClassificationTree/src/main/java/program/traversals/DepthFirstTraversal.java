@@ -4,6 +4,7 @@ import program.structures.Node;
 import program.structures.Tree;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -70,12 +71,21 @@ public abstract class DepthFirstTraversal<E> extends AbstractTraversal<E> {
     }
     
     /**
-     * The recursive method called to extract the subtree that is next in the
-     * traversal.
+     * The method called to extract the subtree that is next in the traversal.
+     * The subtree is walked with the explicit stack of the traversal's
+     * iterator, so the call stack does not grow with the depth of the tree.
      *
      * @param p Node whose subtree is needed.
      * @param snapshot List of nodes comprising the traversal
      * @throws IllegalArgumentException If p is null or not in the tree or the provided list is null.
      */
-    protected abstract void subtree(Node<E> p, final List<Node<E>> snapshot) throws IllegalArgumentException;
+    public void subtree(Node<E> p, final List<Node<E>> snapshot) throws IllegalArgumentException {
+        if (p == null || snapshot == null) {
+            throw new IllegalArgumentException();
+        }
+        Iterator<Node<E>> nodes = iterator(p);
+        while (nodes.hasNext()) {
+            snapshot.add(nodes.next());
+        }
+    }
 }
@@ -1,20 +1,24 @@
 package program.traversals;
 
+import program.structures.BinaryTree;
 import program.structures.Node;
 import program.structures.Tree;
-import program.structures.impl.LinkedBinaryTree;
 
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
- * A recursive implementation of the inorder tree traversal algorithm.
+ * An iterative implementation of the inorder tree traversal algorithm.
  *
  * @param <E> The type of data in the tree to be traversed
  */
 public class InOrderTraversal<E extends Comparable> extends DepthFirstTraversal<E> {
 
     /**
-     * Constructs a new InOrder tree traversal for the given tree.
+     * Constructs a new InOrder tree traversal for the given tree. Only binary
+     * trees have a defined inorder, so the tree must also be a BinaryTree.
      *
      * @param tree Tree to be traversed.
      */
@@ -26,17 +30,44 @@ public class InOrderTraversal<E extends Comparable> extends DepthFirstTraversal<
      * {@inheritDoc}
      */
     @Override
-    public void subtree(Node<E> p, List<Node<E>> snapshot) {
-        if (p == null || snapshot == null) {
-            throw new IllegalArgumentException();
+    protected Iterator<Node<E>> iterator(Node<E> start) {
+        return new InOrderIterator(start);
+    }
+
+    /**
+     * Iterator which produces the inorder one node at a time. The stack holds
+     * the nodes whose left subtree is being visited and which are still to be
+     * produced themselves.
+     */
+    private class InOrderIterator implements Iterator<Node<E>> {
+
+        private final BinaryTree<E> binaryTree = (BinaryTree<E>) tree;
+        private final Deque<Node<E>> stack = new ArrayDeque<>();
+
+        InOrderIterator(Node<E> start) {
+            pushLeft(start);
         }
-        LinkedBinaryTree.BinaryTreeNode<E> node = (LinkedBinaryTree.BinaryTreeNode<E>) tree.validate(p);
-        if (node.getLeft() != null) {
-            subtree(node.getLeft(), snapshot);
+
+        private void pushLeft(Node<E> p) {
+            while (p != null) {
+                stack.push(p);
+                p = binaryTree.left(p);
+            }
         }
-        snapshot.add(node);
-        if (node.getRight() != null) {
-            subtree(node.getRight(), snapshot);
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Node<E> next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<E> p = stack.pop();
+            pushLeft(binaryTree.right(p));
+            return p;
         }
     }
 }
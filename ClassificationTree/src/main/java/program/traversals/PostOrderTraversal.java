@@ -1,12 +1,19 @@
 package program.traversals;
 
+import program.structures.BinaryTree;
 import program.structures.Node;
 import program.structures.Tree;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 /**
- * A recursive implementation of the PostOrder depth first traversal of a tree.
+ * An iterative implementation of the PostOrder depth first traversal of a tree.
  *
  * @param <E> The type of data stored in the tree to be traversed.
  */
@@ -25,13 +32,102 @@ public class PostOrderTraversal<E> extends DepthFirstTraversal<E> {
      * {@inheritDoc}
      */
     @Override
-    public void subtree(Node<E> p, List<Node<E>> snapshot) {
-        if (snapshot == null || p == null) {
-            throw new IllegalArgumentException();
+    protected Iterator<Node<E>> iterator(Node<E> start) {
+        if (tree instanceof BinaryTree) {
+            return new BinaryPostOrderIterator(start);
         }
-        for (Node<E> c : tree.children(p)) {
-            subtree(c, snapshot);
+        return new PostOrderIterator(start);
+    }
+
+    /**
+     * Iterator which produces the postorder one node at a time. The stack
+     * holds the nodes still to be produced, each flagged with whether its
+     * children have been pushed above it yet; a node is produced once it is
+     * back on top with its children pushed. The children are gathered through
+     * forEachChild into a list which is reused, so that they can be pushed in
+     * reverse.
+     */
+    private class PostOrderIterator implements Iterator<Node<E>> {
+
+        private final Deque<Node<E>> stack = new ArrayDeque<>();
+        private final Deque<Boolean> expanded = new ArrayDeque<>();
+        private final List<Node<E>> children = new ArrayList<>(2);
+        private final Consumer<Node<E>> collect = children::add;
+
+        PostOrderIterator(Node<E> start) {
+            stack.push(start);
+            expanded.push(Boolean.FALSE);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Node<E> next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            while (!expanded.peek()) {
+                expanded.pop();
+                expanded.push(Boolean.TRUE);
+                tree.forEachChild(stack.peek(), collect);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                    expanded.push(Boolean.FALSE);
+                }
+                children.clear();
+            }
+            expanded.pop();
+            return stack.pop();
+        }
+    }
+
+    /**
+     * Postorder iterator for binary trees. The stack holds only the path to
+     * the next node; after a left child is produced the right subtree of its
+     * parent is descended, and after a right child the parent itself is next.
+     */
+    private class BinaryPostOrderIterator implements Iterator<Node<E>> {
+
+        private final BinaryTree<E> binaryTree = (BinaryTree<E>) tree;
+        private final Deque<Node<E>> path = new ArrayDeque<>();
+
+        BinaryPostOrderIterator(Node<E> start) {
+            descend(start);
+        }
+
+        /**
+         * Pushes the path from the provided node to the first node of its
+         * subtree in postorder, preferring left children over right.
+         */
+        private void descend(Node<E> p) {
+            while (p != null) {
+                path.push(p);
+                Node<E> left = binaryTree.left(p);
+                p = left != null ? left : binaryTree.right(p);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public Node<E> next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<E> p = path.pop();
+            if (!path.isEmpty()) {
+                Node<E> parent = path.peek();
+                if (p.equals(binaryTree.left(parent))) {
+                    descend(binaryTree.right(parent));
+                }
+            }
+            return p;
         }
-        snapshot.add(p);
     }
 }
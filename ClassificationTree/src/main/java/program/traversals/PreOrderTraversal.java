@@ -1,13 +1,20 @@
 package program.traversals;
 
 
+import program.structures.BinaryTree;
 import program.structures.Node;
 import program.structures.Tree;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 /**
- * An implementation of a DepthFirst PreOrder Traversal for a tree.
+ * An iterative implementation of a DepthFirst PreOrder Traversal for a tree.
  *
  * @param <E> The type of data stored in the tree to be traversed.
  */
@@ -26,13 +33,82 @@ public class PreOrderTraversal<E> extends DepthFirstTraversal<E> {
      * {@inheritDoc}
      */
     @Override
-    public void subtree(Node<E> p, List<Node<E>> snapshot) {
-        if (snapshot == null || p == null) {
-            throw new IllegalArgumentException();
+    protected Iterator<Node<E>> iterator(Node<E> start) {
+        if (tree instanceof BinaryTree) {
+            return new BinaryPreOrderIterator(start);
         }
-        snapshot.add(p);
-        for (Node<E> c : tree.children(p)) {
-            subtree(c, snapshot);
+        return new PreOrderIterator(start);
+    }
+
+    /**
+     * Iterator which produces the preorder one node at a time, keeping the
+     * nodes still to be visited on an explicit stack. The children of each
+     * node are gathered through forEachChild into a list which is reused, so
+     * that they can be pushed in reverse.
+     */
+    private class PreOrderIterator implements Iterator<Node<E>> {
+
+        private final Deque<Node<E>> stack = new ArrayDeque<>();
+        private final List<Node<E>> children = new ArrayList<>(2);
+        private final Consumer<Node<E>> collect = children::add;
+
+        PreOrderIterator(Node<E> start) {
+            stack.push(start);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Node<E> next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<E> p = stack.pop();
+            tree.forEachChild(p, collect);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+            children.clear();
+            return p;
+        }
+    }
+
+    /**
+     * Preorder iterator for binary trees, which pushes the right and then the
+     * left child directly instead of asking for a collection of children.
+     */
+    private class BinaryPreOrderIterator implements Iterator<Node<E>> {
+
+        private final BinaryTree<E> binaryTree = (BinaryTree<E>) tree;
+        private final Deque<Node<E>> stack = new ArrayDeque<>();
+
+        BinaryPreOrderIterator(Node<E> start) {
+            stack.push(start);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public Node<E> next() {
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<E> p = stack.pop();
+            Node<E> right = binaryTree.right(p);
+            if (right != null) {
+                stack.push(right);
+            }
+            Node<E> left = binaryTree.left(p);
+            if (left != null) {
+                stack.push(left);
+            }
+            return p;
         }
     }
 }
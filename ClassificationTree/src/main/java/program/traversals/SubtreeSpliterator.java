@@ -0,0 +1,123 @@
+package program.traversals;
+
+import program.structures.Node;
+import program.structures.Tree;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A Spliterator over the nodes of a subtree which splits by handing whole
+ * child subtrees to the new Spliterator, so a parallel stream over a tree
+ * divides the work between the threads of the common ForkJoinPool. Nodes are
+ * visited depth first, but no particular order is reported since splitting
+ * reorders them.
+ *
+ * @param <E> The type of data stored in the tree.
+ */
+public class SubtreeSpliterator<E> implements Spliterator<Node<E>> {
+
+    private final Tree<E> tree;
+    private final Deque<Node<E>> pending;
+    private final Consumer<Node<E>> pend;
+    private Node<E> head;
+    private long estimate;
+
+    /**
+     * Constructs a new Spliterator over the subtree rooted at the provided
+     * node.
+     *
+     * @param tree The tree containing the subtree.
+     * @param start Root of the subtree, or null for an empty Spliterator.
+     * @param estimate Estimated number of nodes in the subtree, used by
+     * parallel streams to decide how far to split.
+     * @throws IllegalArgumentException If the tree is null.
+     */
+    public SubtreeSpliterator(Tree<E> tree, Node<E> start, long estimate) throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException();
+        }
+        this.tree = tree;
+        this.pending = new ArrayDeque<>();
+        this.pend = pending::addLast;
+        if (start != null) {
+            pending.add(start);
+        }
+        this.estimate = estimate;
+    }
+
+    /**
+     * Constructs a Spliterator over the subtrees handed off by a split.
+     */
+    private SubtreeSpliterator(Tree<E> tree, Deque<Node<E>> pending, long estimate) {
+        this.tree = tree;
+        this.pending = pending;
+        this.pend = pending::addLast;
+        this.estimate = estimate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super Node<E>> action) {
+        if (head != null) {
+            Node<E> p = head;
+            head = null;
+            action.accept(p);
+            return true;
+        }
+        Node<E> p = pending.pollLast();
+        if (p == null) {
+            return false;
+        }
+        tree.forEachChild(p, pend);
+        action.accept(p);
+        return true;
+    }
+
+    /**
+     * Hands half of the pending subtrees, the larger ones nearest the top of
+     * the tree, to a new Spliterator. If only one subtree is pending, its root
+     * is kept to be visited next and its children become the pending
+     * subtrees, so that one of them can be handed off instead.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public Spliterator<Node<E>> trySplit() {
+        if (pending.size() == 1 && head == null) {
+            Node<E> p = pending.pollLast();
+            tree.forEachChild(p, pend);
+            head = p;
+        }
+        int count = pending.size() / 2;
+        if (count == 0) {
+            return null;
+        }
+        Deque<Node<E>> split = new ArrayDeque<>(count);
+        for (int i = 0; i < count; i++) {
+            split.addLast(pending.pollFirst());
+        }
+        estimate = Math.max(estimate >>> 1, 1);
+        return new SubtreeSpliterator<>(tree, split, estimate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+}
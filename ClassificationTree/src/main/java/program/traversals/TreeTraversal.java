@@ -3,6 +3,9 @@ package program.traversals;
 import program.traversals.commands.TraversalCommand;
 import program.structures.Node;
 
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
 /**
  * An interface for tree traversal algorithms.
  *
@@ -31,10 +34,77 @@ public interface TreeTraversal<E> {
      */
     Iterable<Node<E>> traverseFrom(Node<E> node);
 
+    /**
+     * Method which lazily traverses the tree from the root node. Unlike
+     * traverse(), no container of the whole traversal is built; each node is
+     * found only when the iterator asks for it, so the first node is available
+     * immediately and iteration can be stopped at any point without visiting
+     * the rest of the tree.
+     *
+     * @return An iterable whose iterators walk the tree on demand.
+     */
+    Iterable<Node<E>> lazyTraverse();
+
+    /**
+     * Method which lazily traverses the subtree rooted at the provided node,
+     * as described by lazyTraverse().
+     *
+     * @param node Root of the subtree to start the traversal at.
+     * @return An iterable whose iterators walk the subtree on demand.
+     * @throws IllegalArgumentException If the node is null or not valid in
+     * the traversed tree.
+     */
+    Iterable<Node<E>> lazyTraverseFrom(Node<E> node) throws IllegalArgumentException;
+
+    /**
+     * Returns a Spliterator over every node of the tree which splits by handing
+     * off whole subtrees. The nodes are not reported in the order of this
+     * traversal.
+     *
+     * @return A Spliterator over the nodes of the tree.
+     */
+    Spliterator<Node<E>> spliterator();
+
+    /**
+     * Returns a sequential stream of the nodes of the tree in the order of
+     * this traversal, produced lazily.
+     *
+     * @return A sequential, ordered stream of the nodes of the tree.
+     */
+    Stream<Node<E>> stream();
+
+    /**
+     * Returns a parallel stream over every node of the tree, backed by
+     * spliterator(), so that work on the nodes is shared between the threads
+     * of the common ForkJoinPool. The tree must not be modified while the
+     * stream runs, and the nodes are not processed in traversal order.
+     *
+     * @return A parallel, unordered stream of the nodes of the tree.
+     */
+    Stream<Node<E>> parallelStream();
+
     /**
      * Sets the executable command to the provided value.
      *
      * @param cmd The new executable command
      */
     void setCommand(TraversalCommand cmd);
+
+    /**
+     * Adds another executable command, to be executed on each node after the
+     * commands already set or added, so that several commands can share one
+     * traversal.
+     *
+     * @param cmd The executable command to add
+     * @throws IllegalArgumentException If the command is null.
+     */
+    void addCommand(TraversalCommand cmd) throws IllegalArgumentException;
+
+    /**
+     * Lazily traverses the whole tree, executing the current command on each
+     * node as it is visited.
+     *
+     * @throws IllegalStateException If no command has been set.
+     */
+    void execute() throws IllegalStateException;
 }
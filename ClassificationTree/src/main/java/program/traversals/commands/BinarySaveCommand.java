@@ -0,0 +1,50 @@
+package program.traversals.commands;
+
+import program.Datum;
+import program.persistence.BinaryTreeWriter;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.Tree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A Traversal Command for Datum Objects which writes each node to a
+ * BinaryTreeWriter, the binary counterpart of the EnumeratedSaveCommand.
+ *
+ */
+public class BinarySaveCommand extends TraversalCommand<Datum> {
+
+    private final BinaryTreeWriter writer;
+
+    /**
+     * Constructs a new BinarySaveCommand which will write to the provided
+     * writer. The caller must close the writer once the traversal is
+     * complete.
+     *
+     * @param writer The binary tree writer.
+     */
+    public BinarySaveCommand(BinaryTreeWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the number of the parent datum (or -1 for the root), the number
+     * of the current datum, which side of its parent it is on and its prompt.
+     * Write failures are rethrown as UncheckedIOExceptions.
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Tree<Datum> tree, Node<Datum> node) {
+        Datum data = node.getElement();
+        Node<Datum> parent = node.getParent();
+        int parentNum = parent == null ? -1 : parent.getElement().getNumber();
+        boolean left = parent != null && node.equals(((BinaryTree<Datum>) tree).left(parent));
+        try {
+            writer.write(parentNum, data.getNumber(), left, data.getPrompt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
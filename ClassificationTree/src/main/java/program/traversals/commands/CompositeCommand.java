@@ -0,0 +1,50 @@
+package program.traversals.commands;
+
+import program.structures.Node;
+import program.structures.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Traversal Command which executes several other commands on each node, in
+ * the order they were added, so that they can share a single traversal.
+ *
+ * @param <E> The type of data stored in the tree.
+ */
+public class CompositeCommand<E> extends TraversalCommand<E> {
+
+    private final List<TraversalCommand<E>> commands;
+
+    /**
+     * Constructs a new Composite Command which initially executes no commands.
+     */
+    public CompositeCommand() {
+        commands = new ArrayList<>();
+    }
+
+    /**
+     * Adds a command to be executed after the commands already added.
+     *
+     * @param command The command to add.
+     * @return This composite command.
+     * @throws IllegalArgumentException If the command is null.
+     */
+    public CompositeCommand<E> add(TraversalCommand<E> command) throws IllegalArgumentException {
+        if (command == null) {
+            throw new IllegalArgumentException("Command cannot be null.");
+        }
+        commands.add(command);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Tree<E> tree, Node<E> node) {
+        for (int i = 0; i < commands.size(); i++) {
+            commands.get(i).execute(tree, node);
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package program.traversals.commands;
 
 import program.Datum;
+import program.structures.BinaryTree;
 import program.structures.Node;
 import program.structures.Tree;
-import program.structures.impl.LinkedBinaryTree;
 import java.io.PrintWriter;
 
 /**
@@ -17,7 +17,9 @@ public class EnumeratedSaveCommand extends TraversalCommand<Datum> {
 
     /**
      * Constructs a new EnumeratedSaveCommand for program.Datum objects which will use
-     * the provided PrintWriter to write output to a file.
+     * the provided PrintWriter to write output to a file. The writer is not
+     * flushed after each line, so the caller must flush or close it once the
+     * traversal is complete.
      *
      * @param writer The output print writer object.
      */
@@ -41,9 +43,14 @@ public class EnumeratedSaveCommand extends TraversalCommand<Datum> {
         int parentNum = node.getParent() == null ? -1 : node.getParent().getElement().getNumber();
         String side = "r";
         if (node.getParent() != null)
-            side = node.equals(((LinkedBinaryTree) tree).left(node.getParent())) ? "l" : "r";
-        writer.printf("%d:%d:%s:%s%n", parentNum, data.getNumber(), side, data.getPrompt());
-        writer.flush();
+            side = node.equals(((BinaryTree<Datum>) tree).left(node.getParent())) ? "l" : "r";
+        writer.print(parentNum);
+        writer.print(':');
+        writer.print(data.getNumber());
+        writer.print(':');
+        writer.print(side);
+        writer.print(':');
+        writer.println(data.getPrompt());
     }
 
 }
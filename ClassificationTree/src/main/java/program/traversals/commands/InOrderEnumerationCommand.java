@@ -0,0 +1,77 @@
+package program.traversals.commands;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.Tree;
+import program.traversals.PostOrderTraversal;
+
+/**
+ * A Traversal Command which sets the number of each Datum to its position in
+ * an inorder traversal, while being executed by a breadth first traversal.
+ * This lets the numbering share the traversal which saves the tree, instead
+ * of needing an inorder traversal of its own.
+ *
+ * A node's inorder number is the first number of its subtree plus the size of
+ * its left subtree, so the command needs subtree sizes, and every node must be
+ * visited with its parent visited first. Trees which maintain the statistics
+ * of their subtrees give the sizes directly, so the breadth first traversal is
+ * the only pass over the tree. For other trees the sizes are computed when the
+ * command is constructed and held in the Datum numbers until each node is
+ * renumbered.
+ */
+public class InOrderEnumerationCommand extends TraversalCommand<Datum> {
+
+    private final boolean maintained;
+
+    /**
+     * Constructs a new InOrder Enumeration Command for the given tree. Unless
+     * the tree maintains its subtree sizes, the size of each node's subtree is
+     * stored in its Datum number until the node is visited.
+     *
+     * @param tree The tree which will be traversed.
+     * @throws IllegalArgumentException If the tree is null.
+     */
+    public InOrderEnumerationCommand(BinaryTree<Datum> tree) throws IllegalArgumentException {
+        if (tree == null) {
+            throw new IllegalArgumentException();
+        }
+        maintained = tree.maintainsStatistics();
+        if (!maintained) {
+            for (Node<Datum> node : new PostOrderTraversal<>(tree).lazyTraverse()) {
+                node.getElement().setNumber(1 + size(tree, tree.left(node)) + size(tree, tree.right(node)));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Tree<Datum> tree, Node<Datum> node) {
+        BinaryTree<Datum> binaryTree = (BinaryTree<Datum>) tree;
+        Datum data = node.getElement();
+        Node<Datum> parent = binaryTree.parent(node);
+        int first;
+        if (parent == null) {
+            first = 0;
+        } else if (node.equals(binaryTree.left(parent))) {
+            first = parent.getElement().getNumber() - size(binaryTree, node);
+        } else {
+            first = parent.getElement().getNumber() + 1;
+        }
+        data.setNumber(first + size(binaryTree, binaryTree.left(node)));
+    }
+
+    /**
+     * Returns the size of a subtree, from the tree if it maintains them and
+     * otherwise as held by a node which has not been renumbered yet, or 0 for
+     * a missing node.
+     */
+    private int size(BinaryTree<Datum> tree, Node<Datum> node) {
+        if (node == null) {
+            return 0;
+        }
+        return maintained ? tree.subTreeSize(node) : node.getElement().getNumber();
+    }
+}
@@ -0,0 +1,49 @@
+package program.traversals.commands;
+
+import program.Datum;
+import program.persistence.IndexedTreeWriter;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.Tree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A Traversal Command for Datum Objects which writes each node to an
+ * IndexedTreeWriter. It must be run by a breadth first traversal, since the
+ * writer works out where each node's children are from that order.
+ *
+ */
+public class IndexedSaveCommand extends TraversalCommand<Datum> {
+
+    private final IndexedTreeWriter writer;
+
+    /**
+     * Constructs a new IndexedSaveCommand which will write to the provided
+     * writer. The caller must close the writer once the traversal is
+     * complete.
+     *
+     * @param writer The indexed tree writer.
+     */
+    public IndexedSaveCommand(IndexedTreeWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the number of the current datum, which children it has and its
+     * prompt. Write failures are rethrown as UncheckedIOExceptions.
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Tree<Datum> tree, Node<Datum> node) {
+        BinaryTree<Datum> binaryTree = (BinaryTree<Datum>) tree;
+        Datum data = node.getElement();
+        try {
+            writer.write(data.getNumber(), binaryTree.left(node) != null, binaryTree.right(node) != null,
+                    data.getPrompt());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package program;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Scanner;
+import program.structures.Node;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import program.persistence.MappedBinaryTree;
+import program.persistence.TreeFormat;
+import program.structures.impl.CompactBinaryTree;
+import program.structures.impl.ConcurrentLinkedBinaryTree;
+import program.structures.impl.PersistentBinaryTree;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ClassificationTreeTest {
+
+    private Path file;
+    private ClassificationTree tree;
+
+    public ClassificationTreeTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tree", ".txt");
+        Files.write(file, ("-1:3:r:furry\n"
+                + "3:1:l:striped\n"
+                + "3:7:r:shelled\n"
+                + "1:0:l:a Tiger\n"
+                + "1:2:r:a dog\n"
+                + "7:5:l:clawed\n"
+                + "7:8:r:a snake\n"
+                + "5:4:l:a crab\n"
+                + "5:6:r:a turtle\n").getBytes("UTF-8"));
+        tree = new ClassificationTree(file.toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        tree.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Paths.get(file + ".journal"));
+    }
+
+    /**
+     * Test of classify method, of class ClassificationTree.
+     */
+    @Test
+    public void testClassify() {
+        assertEquals("a Tiger", tree.classify(new boolean[]{true, true}).getPrompt());
+        assertEquals("a dog", tree.classify(new boolean[]{true, false, true}).getPrompt());
+        assertEquals("a turtle", tree.classify(new boolean[]{false, true, false}).getPrompt());
+        assertEquals("a snake", tree.classify(new boolean[]{false, false}).getPrompt());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClassify_2() {
+        tree.classify(new boolean[]{false, true});
+    }
+
+    @Test
+    public void testClassify_3() {
+        BitSet answers = new BitSet();
+        answers.set(1);
+        assertEquals("a turtle", tree.classify(answers).getPrompt());
+        answers.set(2);
+        assertEquals("a crab", tree.classify(answers).getPrompt());
+        assertEquals("a snake", tree.classify(new BitSet()).getPrompt());
+    }
+
+    /**
+     * Test of classifyAll method, of class ClassificationTree.
+     */
+    @Test
+    public void testClassifyAll() {
+        boolean[][] answers = new boolean[10000][];
+        for (int i = 0; i < answers.length; i++) {
+            answers[i] = new boolean[]{(i & 1) != 0, (i & 2) != 0, (i & 4) != 0};
+        }
+        Datum[] results = tree.classifyAll(answers);
+        assertEquals(answers.length, results.length);
+        for (int i = 0; i < answers.length; i++) {
+            assertSame(tree.classify(answers[i]), results[i]);
+        }
+        assertEquals("a crab", results[6].getPrompt());
+    }
+
+    /**
+     * Test of learn method, of class ClassificationTree, on a
+     * PersistentBinaryTree, with the node learned at held from an older
+     * version and the learned animals surviving a compaction.
+     */
+    @Test
+    public void testLearn() throws IOException {
+        tree.close();
+        tree = new ClassificationTree(file.toString(), new PersistentBinaryTree<>());
+        IdentificationSession session = tree.newSession();
+        session.answer("N");
+        session.answer("N");
+        session.answer("N");
+        session.answer("cow");
+        tree.learn("NN", "goose", "feathered");
+        assertEquals("I have just learned something new about this animal, so let me ask again.", session.answer("moos"));
+        assertEquals("Is this animal feathered? (Y/N) > ", session.getPrompt());
+
+        tree.learn("NNN", "cow", "moos");
+        tree.compact();
+        tree.learn("NNNY", "bull", "horned");
+        tree.close();
+        tree = new ClassificationTree(file.toString(), new PersistentBinaryTree<>());
+        assertEquals("a goose", tree.classify(new boolean[]{false, false, true}).getPrompt());
+        assertEquals("a bull", tree.classify(new boolean[]{false, false, false, true, true}).getPrompt());
+        assertEquals("a snake", tree.classify(new boolean[]{false, false, false, false}).getPrompt());
+    }
+
+    /**
+     * Test of learn method, of class ClassificationTree, on a
+     * CompactBinaryTree, with a session holding the leaf promoted by another
+     * learn.
+     */
+    @Test
+    public void testLearn_4() throws IOException {
+        tree.close();
+        tree = new ClassificationTree(file.toString(), new CompactBinaryTree<>());
+        IdentificationSession session = tree.newSession();
+        session.answer("N");
+        session.answer("N");
+        session.answer("N");
+        session.answer("cow");
+        tree.learn("NN", "goose", "feathered");
+        assertEquals("I have just learned something new about this animal, so let me ask again.", session.answer("moos"));
+        assertEquals("Is this animal feathered? (Y/N) > ", session.getPrompt());
+        session.answer("N");
+        session.answer("N");
+        session.answer("cow");
+        session.answer("moos");
+        assertEquals("a cow", tree.classify(new boolean[]{false, false, false, true}).getPrompt());
+        assertEquals("a snake", tree.classify(new boolean[]{false, false, false, false}).getPrompt());
+    }
+
+    /**
+     * Test of identify method, of class ClassificationTree, which should
+     * return once the tree is saved.
+     */
+    @Test
+    public void testIdentify() throws IOException {
+        Path saved = Paths.get(file + ".saved");
+        try {
+            tree.identify(new Scanner("Y Y Y N " + saved));
+            assertEquals(9, Files.readAllLines(saved).size());
+        } finally {
+            Files.deleteIfExists(saved);
+        }
+    }
+
+    /**
+     * Test of load method, of class ClassificationTree, with an indexed file,
+     * which should be served from a mapped tree creating only the nodes
+     * visited.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        tree.learn("NN", "goose", "feathered");
+        tree.save(file.toString(), TreeFormat.INDEXED);
+        tree.close();
+        tree = new ClassificationTree(file.toString());
+        assertTrue(tree.tree() instanceof MappedBinaryTree);
+        MappedBinaryTree mapped = (MappedBinaryTree) tree.tree();
+        assertEquals(1, mapped.materializedCount());
+        assertEquals(11, tree.tree().size());
+        assertEquals("feathered", tree.tree().right(tree.tree().right(tree.tree().root())).getElement().getPrompt());
+        assertEquals(5, mapped.materializedCount());
+        tree.learn("NNN", "cow", "moos");
+        assertEquals("a goose", tree.classify(new boolean[]{false, false, true}).getPrompt());
+        assertEquals("a cow", tree.classify(new boolean[]{false, false, false, true}).getPrompt());
+        assertEquals(13, tree.tree().size());
+    }
+
+    /**
+     * Test of load method, of class ClassificationTree, with an indexed file,
+     * which should be copied into the tree the ClassificationTree was given.
+     */
+    @Test
+    public void testLoad_2() throws IOException {
+        tree.save(file.toString(), TreeFormat.INDEXED);
+        tree.close();
+        tree = new ClassificationTree(file.toString(), new ConcurrentLinkedBinaryTree<>());
+        assertFalse(tree.tree() instanceof MappedBinaryTree);
+        assertEquals(9, tree.tree().size());
+        assertEquals("a crab", tree.classify(new boolean[]{false, true, true}).getPrompt());
+    }
+
+    /**
+     * Test of save method, of class ClassificationTree, which should write a
+     * copy of the tree and leave the tree's own data unnumbered.
+     */
+    @Test
+    public void testSave() throws IOException {
+        Path saved = Paths.get(file + ".saved");
+        try {
+            tree.learn("NN", "goose", "feathered");
+            Node<Datum> goose = tree.findAnimal("goose");
+            tree.save(saved.toString());
+            assertEquals(0, goose.getElement().getNumber());
+            ClassificationTree loaded = new ClassificationTree(saved.toString());
+            try {
+                assertEquals(11, loaded.tree().size());
+                assertTrue(loaded.findAnimal("goose").getElement().getNumber() > 0);
+            } finally {
+                loaded.close();
+            }
+        } finally {
+            Files.deleteIfExists(saved);
+            Files.deleteIfExists(Paths.get(saved + ".journal"));
+        }
+    }
+
+    /**
+     * Test of learnAsync method, of class ClassificationTree, with two learns
+     * at the same leaf queued at once and many others batched behind them.
+     */
+    @Test
+    public void testLearnAsync() throws Exception {
+        CompletableFuture<Void> first = tree.learnAsync("NN", "goose", "feathered");
+        CompletableFuture<Void> second = tree.learnAsync("NN", "cow", "moos");
+        CompletableFuture<?>[] others = new CompletableFuture<?>[100];
+        for (int i = 0; i < others.length; i++) {
+            StringBuilder path = new StringBuilder("NNN");
+            for (int j = 0; j < i; j++) {
+                path.append('Y');
+            }
+            others[i] = tree.learnAsync(path.toString(), "animal" + i, "trait" + i);
+        }
+        first.get();
+        try {
+            second.get();
+            fail("Second learn at the same leaf should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        CompletableFuture.allOf(others).get();
+        assertEquals("a goose", tree.classify(new boolean[]{false, false, true}).getPrompt());
+        boolean[] deepest = new boolean[3 + others.length];
+        Arrays.fill(deepest, 3, deepest.length, true);
+        assertEquals("a animal99", tree.classify(deepest).getPrompt());
+
+        tree.close();
+        tree = new ClassificationTree(file.toString());
+        assertEquals("a animal0", tree.classify(new boolean[]{false, false, false, true, false}).getPrompt());
+    }
+
+    /**
+     * Test of learnAsync method, of class ClassificationTree, with a learn
+     * failing unexpectedly and the writer going on with the next.
+     */
+    @Test
+    public void testLearnAsync_2() throws Exception {
+        tree.close();
+        tree = new ClassificationTree(file.toString()) {
+            @Override
+            long applyLearn(String path, String animal, String characteristic) throws IOException {
+                if (animal.equals("boom")) {
+                    throw new NullPointerException("boom");
+                }
+                return super.applyLearn(path, animal, characteristic);
+            }
+        };
+        CompletableFuture<Void> failed = tree.learnAsync("NN", "boom", "explodes");
+        CompletableFuture<Void> later = tree.learnAsync("NN", "goose", "feathered");
+        try {
+            failed.get();
+            fail("Failing learn should complete exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NullPointerException);
+        }
+        later.get();
+        assertEquals("a goose", tree.classify(new boolean[]{false, false, true}).getPrompt());
+    }
+
+    /**
+     * Test of learnAsync method, of class ClassificationTree, with a learn
+     * throwing an Error, which should stop the writer and fail the learns
+     * still waiting.
+     */
+    @Test
+    public void testLearnAsync_3() throws Exception {
+        tree.close();
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        tree = new ClassificationTree(file.toString()) {
+            @Override
+            long applyLearn(String path, String animal, String characteristic) throws IOException {
+                gate.join();
+                if (animal.equals("boom")) {
+                    throw new AssertionError("boom");
+                }
+                return super.applyLearn(path, animal, characteristic);
+            }
+        };
+        CompletableFuture<Void> failed = tree.learnAsync("NN", "boom", "explodes");
+        CompletableFuture<Void> later = tree.learnAsync("NN", "goose", "feathered");
+        gate.complete(null);
+        for (CompletableFuture<Void> learn : Arrays.asList(failed, later)) {
+            try {
+                learn.get();
+                fail("Learns waiting behind an Error should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof AssertionError);
+            }
+        }
+        try {
+            tree.learnAsync("NN", "duck", "feathered");
+            fail("A stopped queue should take no more learns");
+        } catch (IllegalStateException e) {
+        }
+        assertEquals("a snake", tree.classify(new boolean[]{false, false, false}).getPrompt());
+    }
+
+    /**
+     * Test of learnAsync method, of class ClassificationTree, with the writer
+     * interrupted, which should stop it.
+     */
+    @Test
+    public void testLearnAsync_4() throws Exception {
+        tree.close();
+        AtomicReference<Thread> writer = new AtomicReference<>();
+        tree = new ClassificationTree(file.toString()) {
+            @Override
+            long applyLearn(String path, String animal, String characteristic) throws IOException {
+                writer.set(Thread.currentThread());
+                return super.applyLearn(path, animal, characteristic);
+            }
+        };
+        tree.learn("NN", "goose", "feathered");
+        writer.get().interrupt();
+        writer.get().join(10000);
+        assertFalse(writer.get().isAlive());
+        try {
+            tree.learnAsync("NNN", "duck", "quacks");
+            fail("A stopped queue should take no more learns");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLearn_2() throws IOException {
+        tree.learn("NNY", "cow", "moos");
+    }
+
+    /**
+     * Test of findAnimal method, of class ClassificationTree, following the
+     * animals as learning moves them down the tree.
+     */
+    @Test
+    public void testFindAnimal() throws IOException {
+        assertEquals("a crab", tree.findAnimal("Crab").getElement().getPrompt());
+        assertEquals("NYY", tree.pathToAnimal("a crab"));
+        assertNull(tree.findAnimal("goose"));
+        assertNull(tree.pathToAnimal("goose"));
+
+        tree.learn("NYY", "lobster", "long");
+        assertEquals("NYYY", tree.pathToAnimal("lobster"));
+        assertEquals("NYYN", tree.pathToAnimal("crab"));
+    }
+
+    /**
+     * Test of learn method, of class ClassificationTree, with an animal typed
+     * with its article, which should be stored once and then found as known.
+     */
+    @Test
+    public void testLearn_5() throws IOException {
+        tree.learn("NN", "a  goose", "feathered");
+        tree.learn("NYY", "An Eel", "long");
+        assertEquals("a goose", tree.classify(new boolean[]{false, false, true}).getPrompt());
+        assertEquals("a Eel", tree.classify(new boolean[]{false, true, true, true}).getPrompt());
+        assertEquals("NNY", tree.pathToAnimal("goose"));
+        try {
+            tree.learn("NNN", "a goose", "honks");
+            fail("A known animal should not be learned again");
+        } catch (IllegalArgumentException e) {
+        }
+        tree.close();
+        tree = new ClassificationTree(file.toString());
+        assertEquals("a goose", tree.classify(new boolean[]{false, false, true}).getPrompt());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLearn_3() throws IOException {
+        tree.learn("NN", "Tiger", "feathered");
+    }
+
+    /**
+     * Test of completeAnimal method, of class ClassificationTree.
+     */
+    @Test
+    public void testCompleteAnimal() throws IOException {
+        assertEquals(0, tree.completeAnimal("g", 10).size());
+        tree.learn("NN", "goose", "has feathers");
+        tree.learn("NNY", "gorilla", "has fur");
+        List<Node<Datum>> matches = tree.completeAnimal("A GO", 10);
+        assertEquals(2, matches.size());
+        assertEquals("a goose", matches.get(0).getElement().getPrompt());
+        assertEquals("a gorilla", matches.get(1).getElement().getPrompt());
+        assertEquals(1, tree.completeAnimal("go", 1).size());
+        assertEquals(1, tree.completeAnimal("gor", 10).size());
+    }
+
+    /**
+     * Test of completeCharacteristic and findMentions methods, of class
+     * ClassificationTree.
+     */
+    @Test
+    public void testFindMentions() throws IOException {
+        tree.learn("YY", "lion", "has fur and a mane");
+        assertEquals("has fur and a mane", tree.completeCharacteristic("has", 10).get(0).getElement().getPrompt());
+        assertEquals(0, tree.completeCharacteristic("a lion", 10).size());
+        List<Node<Datum>> fur = tree.findMentions("fur", 10);
+        assertEquals(2, fur.size());
+        assertEquals("has fur and a mane", fur.get(0).getElement().getPrompt());
+        assertEquals("furry", fur.get(1).getElement().getPrompt());
+        assertEquals(1, tree.findMentions("tiger", 10).size());
+        assertTrue(tree.tree().isExternal(tree.findMentions("tiger", 10).get(0)));
+    }
+
+    /**
+     * Test of separatingQuestion method, of class ClassificationTree, with
+     * the ancestry index rebuilt after learning.
+     */
+    @Test
+    public void testSeparatingQuestion() throws IOException {
+        assertEquals("furry", tree.separatingQuestion("tiger", "turtle").getElement().getPrompt());
+        assertEquals("clawed", tree.separatingQuestion("crab", "a turtle").getElement().getPrompt());
+        assertNull(tree.separatingQuestion("crab", "goose"));
+        assertNull(tree.separatingQuestion("crab", "crab"));
+
+        tree.learn("NYY", "lobster", "long");
+        assertEquals("long", tree.separatingQuestion("lobster", "crab").getElement().getPrompt());
+        assertEquals("clawed", tree.separatingQuestion("lobster", "turtle").getElement().getPrompt());
+        Node<Datum> shelled = tree.tree().right(tree.tree().root());
+        assertTrue(tree.isUnder(tree.findAnimal("lobster"), shelled));
+        assertFalse(tree.isUnder(tree.findAnimal("tiger"), shelled));
+    }
+
+    /**
+     * Test of isUnder and lowestCommonAncestor methods, of class
+     * ClassificationTree, asked about the newest animals while others are
+     * learned on a PersistentBinaryTree, whose nodes all move to a new version
+     * with every learn.
+     */
+    @Test
+    public void testIsUnder() throws Exception {
+        tree.close();
+        tree = new ClassificationTree(file.toString(), new PersistentBinaryTree<>());
+        askWhileLearning();
+    }
+
+    /**
+     * Test of isUnder and lowestCommonAncestor methods, of class
+     * ClassificationTree, asked about the newest animals while others are
+     * learned on the default tree, whose ancestry index records every learn
+     * and is built again, without blocking learns, once too many are stacked.
+     */
+    @Test
+    public void testIsUnder_2() throws Exception {
+        askWhileLearning();
+    }
+
+    private void askWhileLearning() throws Exception {
+        AtomicReference<String> latest = new AtomicReference<>("tiger");
+        AtomicBoolean learning = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (learning.get()) {
+                    Node<Datum> leaf = tree.findAnimal(latest.get());
+                    Node<Datum> root = tree.tree().root();
+                    assertTrue(tree.isUnder(leaf, root));
+                    assertEquals("furry", tree.lowestCommonAncestor(leaf, tree.findAnimal("snake")).getElement().getPrompt());
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        String path = "YY";
+        for (int i = 0; i < 300 && failure.get() == null; i++) {
+            tree.learn(path, "animal " + i, "trait " + i);
+            latest.set("animal " + i);
+            path += "Y";
+        }
+        learning.set(false);
+        reader.join();
+        assertNull(failure.get());
+    }
+}
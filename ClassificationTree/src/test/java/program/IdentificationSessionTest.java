@@ -0,0 +1,161 @@
+package program;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IdentificationSessionTest {
+
+    private Path file;
+    private ClassificationTree tree;
+
+    public IdentificationSessionTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tree", ".txt");
+        Files.write(file, ("-1:1:r:furry\n"
+                + "1:0:l:a Tiger\n"
+                + "1:2:r:a snake\n").getBytes("UTF-8"));
+        tree = new ClassificationTree(file.toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        tree.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Paths.get(file + ".journal"));
+    }
+
+    /**
+     * Test of answer method, of class IdentificationSession, finding an
+     * animal the tree knows.
+     */
+    @Test
+    public void testAnswer() throws IOException {
+        IdentificationSession session = new IdentificationSession(tree, tree.tree().root());
+        assertEquals("Is this animal furry? (Y/N) > ", session.getPrompt());
+        assertNull(session.answer("maybe"));
+        assertEquals(IdentificationSession.State.QUESTION, session.getState());
+        assertNull(session.answer("y"));
+        assertEquals("Is this animal a Tiger? (Y/N) > ", session.getPrompt());
+        assertEquals("Found your animal!", session.answer("Y"));
+        assertEquals(IdentificationSession.State.ANOTHER, session.getState());
+        session.answer("Y");
+        assertEquals("furry", session.getNode().getElement().getPrompt());
+    }
+
+    /**
+     * Test of answer method, of class IdentificationSession, being taught an
+     * animal the tree already knows.
+     */
+    @Test
+    public void testAnswer_4() throws IOException {
+        IdentificationSession session = new IdentificationSession(tree, tree.tree().root());
+        session.answer("N");
+        session.answer("N");
+        assertEquals("I already know about a Tiger. Answer Y to find it.", session.answer(" the  TIGER "));
+        assertEquals(IdentificationSession.State.ANOTHER, session.getState());
+        assertEquals(3, tree.tree().size());
+    }
+
+    /**
+     * Test of answer method, of class IdentificationSession, learning a new
+     * animal and saving the tree.
+     */
+    @Test
+    public void testAnswer_2() throws IOException {
+        IdentificationSession session = new IdentificationSession(tree, tree.tree().root());
+        session.answer("N");
+        assertNotNull(session.answer("N"));
+        assertEquals(IdentificationSession.State.NEW_ANIMAL, session.getState());
+        session.answer("fish");
+        assertEquals("What characteristic does a fish have that a snake does not? >", session.getPrompt());
+        session.answer("scaly");
+        assertEquals(IdentificationSession.State.ANOTHER, session.getState());
+        assertEquals("a fish", tree.classify(new boolean[]{false, true}).getPrompt());
+
+        session.answer("N");
+        assertEquals(IdentificationSession.State.SAVE, session.getState());
+        session.answer(file.toString());
+        assertEquals(IdentificationSession.State.DONE, session.getState());
+        assertNull(session.getPrompt());
+        assertEquals(5, Files.readAllLines(file).size());
+    }
+
+    /**
+     * Test of answer method, of class IdentificationSession, with the new
+     * animal learned elsewhere while the session asks for its characteristic.
+     */
+    @Test
+    public void testAnswer_6() throws IOException {
+        IdentificationSession session = new IdentificationSession(tree, tree.tree().root());
+        session.answer("N");
+        session.answer("N");
+        session.answer("fish");
+        assertEquals(IdentificationSession.State.CHARACTERISTIC, session.getState());
+        tree.learn("Y", "fish", "striped");
+        assertEquals("I already know about a fish. Answer Y, Y to find it.", session.answer("scaly"));
+        assertEquals(IdentificationSession.State.ANOTHER, session.getState());
+        assertEquals("a snake", tree.classify(new boolean[]{false}).getPrompt());
+    }
+
+    /**
+     * Test of answer method, of class IdentificationSession, for a session
+     * which does not save, which should end without asking for a file.
+     */
+    @Test
+    public void testAnswer_5() throws IOException {
+        IdentificationSession session = tree.newSession();
+        session.answer("Y");
+        session.answer("Y");
+        assertEquals(IdentificationSession.State.ANOTHER, session.getState());
+        session.answer("N");
+        assertEquals(IdentificationSession.State.DONE, session.getState());
+        try {
+            session.answer(file.toString() + ".other");
+            fail("A finished session should not take answers");
+        } catch (IllegalStateException e) {
+        }
+        assertFalse(Files.exists(Paths.get(file + ".other")));
+    }
+
+    /**
+     * Test of answer method, of class IdentificationSession, with many
+     * sessions in progress at once and one learning at a leaf another is
+     * about to learn at.
+     */
+    @Test
+    public void testAnswer_3() throws IOException {
+        List<IdentificationSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            IdentificationSession session = new IdentificationSession(tree, tree.tree().root());
+            session.answer("N");
+            session.answer("N");
+            session.answer("animal" + i);
+            sessions.add(session);
+        }
+        sessions.get(0).answer("trait0");
+        assertNotNull(sessions.get(1).answer("trait1"));
+        assertEquals(IdentificationSession.State.QUESTION, sessions.get(1).getState());
+        assertEquals("trait0", sessions.get(1).getNode().getElement().getPrompt());
+    }
+}
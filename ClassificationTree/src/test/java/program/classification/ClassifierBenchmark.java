@@ -0,0 +1,95 @@
+package program.classification;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.impl.LinkedBinaryTree;
+import java.util.Random;
+
+/**
+ * Compares the time taken to classify random answer vectors by walking the
+ * nodes of a LinkedBinaryTree, with a DecisionTable and with a generated
+ * classifier. Run with the number of nodes and of answer vectors as optional
+ * arguments.
+ */
+public class ClassifierBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int vectors = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        Random rng = new Random(1);
+
+        BinaryTree<Datum> tree = new LinkedBinaryTree<>();
+        Node<Datum> root = tree.setRoot(new Datum("q"));
+        for (int i = 1; i < nodes; i++) {
+            Node<Datum> node = root;
+            while (true) {
+                boolean left = rng.nextBoolean();
+                Node<Datum> next = left ? tree.left(node) : tree.right(node);
+                if (next == null) {
+                    if (left) {
+                        tree.addLeft(node, new Datum("n" + i));
+                    } else {
+                        tree.addRight(node, new Datum("n" + i));
+                    }
+                    break;
+                }
+                node = next;
+            }
+        }
+        boolean[][] answers = new boolean[vectors][];
+        for (int i = 0; i < vectors; i++) {
+            answers[i] = new boolean[64];
+            for (int j = 0; j < 64; j++) {
+                answers[i][j] = rng.nextBoolean();
+            }
+        }
+
+        DecisionTable table = DecisionTable.compile(tree);
+        long start = System.nanoTime();
+        Classifier generated = ClassifierGenerator.generate(table);
+        System.out.printf("generated a classifier for %d nodes in %.1f ms%n", table.size(),
+                (System.nanoTime() - start) / 1e6);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.printf("round %d: nodes %.1fM/s, table %.1fM/s, generated %.1fM/s%n", round,
+                    walk(tree, answers), run(table, answers), run(generated, answers));
+        }
+    }
+
+    private static double walk(BinaryTree<Datum> tree, boolean[][] answers) {
+        long start = System.nanoTime();
+        int hash = 0;
+        for (boolean[] vector : answers) {
+            Node<Datum> node = tree.root();
+            for (int depth = 0; !tree.isExternal(node); depth++) {
+                Node<Datum> next = vector[depth] ? tree.left(node) : tree.right(node);
+                if (next == null) {
+                    break;
+                }
+                node = next;
+            }
+            hash += node.getElement().hashCode();
+        }
+        return rate(start, answers.length, hash);
+    }
+
+    private static double run(Classifier classifier, boolean[][] answers) {
+        long start = System.nanoTime();
+        int hash = 0;
+        for (boolean[] vector : answers) {
+            hash += classifier.classify(vector).hashCode();
+        }
+        return rate(start, answers.length, hash);
+    }
+
+    private static double rate(long start, int count, int hash) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (hash == 42) {
+            System.out.print("");
+        }
+        return count / seconds / 1e6;
+    }
+}
@@ -0,0 +1,91 @@
+package program.classification;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.impl.LinkedBinaryTree;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ClassifierGeneratorTest {
+
+    private BinaryTree<Datum> tree;
+    private Random rng;
+
+    public ClassifierGeneratorTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        rng = new Random(7);
+        tree = new LinkedBinaryTree<>();
+        Node<Datum> root = tree.setRoot(new Datum("q"));
+        for (int i = 0; i < 2000; i++) {
+            Node<Datum> node = root;
+            while (true) {
+                boolean left = rng.nextBoolean();
+                Node<Datum> next = left ? tree.left(node) : tree.right(node);
+                if (next == null) {
+                    if (left) {
+                        tree.addLeft(node, new Datum("n" + i));
+                    } else {
+                        tree.addRight(node, new Datum("n" + i));
+                    }
+                    break;
+                }
+                node = next;
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of generate method, of class ClassifierGenerator, which should
+     * classify exactly as the decision table it was generated from. The tree
+     * is large enough to be split over several methods.
+     */
+    @Test
+    public void testGenerate() {
+        if (!ClassifierGenerator.isAvailable()) {
+            return;
+        }
+        DecisionTable table = DecisionTable.compile(tree);
+        assertTrue(ClassifierGenerator.source(table).contains("private static int n"));
+        Classifier generated = ClassifierGenerator.generate(table);
+        for (int i = 0; i < 2000; i++) {
+            boolean[] answers = new boolean[64];
+            BitSet bits = new BitSet();
+            for (int j = 0; j < answers.length; j++) {
+                answers[j] = rng.nextBoolean();
+                bits.set(j, answers[j]);
+            }
+            assertSame(table.classify(answers), generated.classify(answers));
+            assertSame(table.classify(bits), generated.classify(bits));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGenerate_2() {
+        if (!ClassifierGenerator.isAvailable()) {
+            throw new IllegalArgumentException();
+        }
+        ClassifierGenerator.generate(DecisionTable.compile(tree)).classify(new boolean[]{true});
+    }
+}
@@ -0,0 +1,132 @@
+package program.classification;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.impl.ArrayBinaryTree;
+import program.structures.impl.LinkedBinaryTree;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DecisionTableTest {
+
+    private BinaryTree<Datum> tree;
+
+    public DecisionTableTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        tree = new LinkedBinaryTree<>();
+        Node<Datum> root = tree.setRoot(new Datum("furry"));
+        Node<Datum> striped = tree.addLeft(root, new Datum("striped"));
+        Node<Datum> shelled = tree.addRight(root, new Datum("shelled"));
+        tree.addLeft(striped, new Datum("a Tiger"));
+        tree.addRight(striped, new Datum("a dog"));
+        Node<Datum> clawed = tree.addLeft(shelled, new Datum("clawed"));
+        tree.addRight(shelled, new Datum("a snake"));
+        tree.addLeft(clawed, new Datum("a crab"));
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of compile method, of class DecisionTable.
+     */
+    @Test
+    public void testCompile() {
+        DecisionTable table = DecisionTable.compile(tree);
+        assertEquals(8, table.size());
+        assertEquals("furry", table.datum(0).getPrompt());
+        assertEquals("striped", table.datum(1).getPrompt());
+        assertEquals("a Tiger", table.datum(2).getPrompt());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCompile_2() {
+        DecisionTable.compile(new LinkedBinaryTree<>());
+    }
+
+    /**
+     * Test of classify method, of class DecisionTable.
+     */
+    @Test
+    public void testClassify() {
+        DecisionTable table = DecisionTable.compile(tree);
+        assertEquals("a Tiger", table.classify(new boolean[]{true, true}).getPrompt());
+        assertEquals("a dog", table.classify(new boolean[]{true, false}).getPrompt());
+        assertEquals("a crab", table.classify(new boolean[]{false, true, true}).getPrompt());
+        assertEquals("a snake", table.classify(new boolean[]{false, false, true}).getPrompt());
+        assertEquals("No child for the answer should stop at its parent",
+                "clawed", table.classify(new boolean[]{false, true, false}).getPrompt());
+        BitSet answers = new BitSet();
+        answers.set(1);
+        answers.set(2);
+        assertEquals("a crab", table.classify(answers).getPrompt());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClassify_2() {
+        DecisionTable.compile(tree).classify(new boolean[]{false, true});
+    }
+
+    /**
+     * Test of classify method, of class DecisionTable, against a walk of a
+     * larger random tree.
+     */
+    @Test
+    public void testClassify_3() {
+        BinaryTree<Datum> random = new ArrayBinaryTree<>();
+        Random rng = new Random(42);
+        Node<Datum> root = random.setRoot(new Datum("q"));
+        for (int i = 0; i < 5000; i++) {
+            Node<Datum> node = root;
+            while (true) {
+                boolean left = rng.nextBoolean();
+                Node<Datum> next = left ? random.left(node) : random.right(node);
+                if (next == null) {
+                    if (left) {
+                        random.addLeft(node, new Datum("n" + i));
+                    } else {
+                        random.addRight(node, new Datum("n" + i));
+                    }
+                    break;
+                }
+                node = next;
+            }
+        }
+        DecisionTable table = DecisionTable.compile(random);
+        assertEquals(random.size(), table.size());
+        for (int i = 0; i < 1000; i++) {
+            boolean[] answers = new boolean[64];
+            for (int j = 0; j < answers.length; j++) {
+                answers[j] = rng.nextBoolean();
+            }
+            Node<Datum> node = root;
+            for (int depth = 0; !random.isExternal(node); depth++) {
+                Node<Datum> next = answers[depth] ? random.left(node) : random.right(node);
+                if (next == null) {
+                    break;
+                }
+                node = next;
+            }
+            assertSame(node.getElement(), table.classify(answers));
+        }
+    }
+}
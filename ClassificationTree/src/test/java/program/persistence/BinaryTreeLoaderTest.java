@@ -0,0 +1,115 @@
+package program.persistence;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.impl.LinkedBinaryTree;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BinaryTreeLoaderTest {
+
+    private Path file;
+    private BinaryTree<Datum> tree;
+
+    public BinaryTreeLoaderTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tree", ".bin");
+        tree = new LinkedBinaryTree<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test of load method, of class BinaryTreeLoader, reading what the
+     * BinaryTreeWriter wrote through buffers smaller than a record.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        StringBuilder longPrompt = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longPrompt.append("tr\u00e8s long ");
+        }
+        try (BinaryTreeWriter writer = new BinaryTreeWriter(file, 8)) {
+            writer.write(-1, 300, false, "furry");
+            writer.write(300, 1, true, "a Tiger");
+            writer.write(300, 70000, false, longPrompt.toString());
+        }
+        assertEquals(TreeFormat.BINARY, TreeFormat.detect(file));
+
+        new BinaryTreeLoader(tree, 16).load(file);
+        Node<Datum> root = tree.root();
+        assertEquals("furry", root.getElement().getPrompt());
+        assertEquals(300, root.getElement().getNumber());
+        assertEquals("a Tiger", tree.left(root).getElement().getPrompt());
+        assertEquals("l", tree.left(root).getElement().getSide());
+        assertEquals(longPrompt.toString(), tree.right(root).getElement().getPrompt());
+        assertEquals(70000, tree.right(root).getElement().getNumber());
+        assertEquals(3, tree.size());
+    }
+
+    @Test
+    public void testLoad_2() throws IOException {
+        try (BinaryTreeWriter writer = new BinaryTreeWriter(file)) {
+            writer.write(-1, 0, false, "q0");
+            for (int i = 1; i < 100000; i++) {
+                writer.write(i - 1, i, false, "q" + i);
+            }
+        }
+        new BinaryTreeLoader(tree).load(file);
+        assertEquals(100000, tree.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_3() throws IOException {
+        try (BinaryTreeWriter writer = new BinaryTreeWriter(file)) {
+            writer.write(-1, 0, false, "root");
+            writer.write(5, 1, true, "orphan");
+        }
+        new BinaryTreeLoader(tree).load(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_4() throws IOException {
+        try (BinaryTreeWriter writer = new BinaryTreeWriter(file)) {
+            writer.write(-1, 0, false, "root");
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] truncated = new byte[bytes.length - 2];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        Files.write(file, truncated);
+        new BinaryTreeLoader(tree).load(file);
+    }
+
+    /**
+     * Test of detect method, of class TreeFormat.
+     */
+    @Test
+    public void testDetect() throws IOException {
+        Files.write(file, "-1:0:r:root\n".getBytes("UTF-8"));
+        assertEquals(TreeFormat.TEXT, TreeFormat.detect(file));
+        Files.write(file, new byte[0]);
+        assertEquals(TreeFormat.TEXT, TreeFormat.detect(file));
+    }
+}
@@ -0,0 +1,105 @@
+package program.persistence;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.impl.LinkedBinaryTree;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EnumeratedTreeLoaderTest {
+
+    private BinaryTree<Datum> tree;
+    private EnumeratedTreeLoader fixture;
+
+    public EnumeratedTreeLoaderTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        tree = new LinkedBinaryTree<>();
+        fixture = new EnumeratedTreeLoader(tree);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    private void load(String text) throws IOException {
+        fixture.load(new BufferedReader(new StringReader(text)));
+    }
+
+    /**
+     * Test of load method, of class EnumeratedTreeLoader.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        load("-1:3:r:furry\n3:1:l:striped\n3:7:r:shelled\n1:0:l:a Tiger\n1:2:r:a dog\n");
+
+        Node<Datum> root = tree.root();
+        assertEquals("furry", root.getElement().getPrompt());
+        assertEquals(3, root.getElement().getNumber());
+        assertEquals("striped", tree.left(root).getElement().getPrompt());
+        assertEquals("shelled", tree.right(root).getElement().getPrompt());
+        assertEquals("a Tiger", tree.left(tree.left(root)).getElement().getPrompt());
+        assertEquals("a dog", tree.right(tree.left(root)).getElement().getPrompt());
+        assertEquals(5, tree.size());
+    }
+
+    /**
+     * The side written in the file decides placement, not the node numbers.
+     */
+    @Test
+    public void testLoad_2() throws IOException {
+        load("-1:0:r:root\n0:9:l:yes\n0:1:r:no: really\n");
+
+        assertEquals("yes", tree.left(tree.root()).getElement().getPrompt());
+        assertEquals("no: really", tree.right(tree.root()).getElement().getPrompt());
+    }
+
+    @Test
+    public void testLoad_3() throws IOException {
+        StringBuilder text = new StringBuilder("-1:0:r:q0\n");
+        for (int i = 1; i < 100000; i++) {
+            text.append(i - 1).append(':').append(i).append(":r:q").append(i).append('\n');
+        }
+        load(text.toString());
+
+        assertEquals(100000, tree.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_4() throws IOException {
+        load("-1:0:r:root\n5:1:l:orphan\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_5() throws IOException {
+        load("-1:0:r:root\n0:1:x:sideways\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_6() throws IOException {
+        load("-1:zero:r:root\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoad_7() throws IOException {
+        load("-1:0:r:root\n0:0:l:again\n");
+    }
+}
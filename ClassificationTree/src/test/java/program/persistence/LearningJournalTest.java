@@ -0,0 +1,151 @@
+package program.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LearningJournalTest {
+
+    private Path file;
+    private LearningJournal journal;
+
+    public LearningJournalTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tree", ".journal");
+        Files.delete(file);
+        journal = new LearningJournal(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        journal.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test of replay method, of class LearningJournal, reading back what
+     * record wrote.
+     */
+    @Test
+    public void testReplay() throws IOException {
+        assertTrue(journal.replay().isEmpty());
+        assertFalse("Journal should only be created on the first append", Files.exists(file));
+        journal.record("", "dog", "barks");
+        journal.record("YN", "cr\u00e8me", "is sweet");
+        journal.close();
+
+        List<LearningJournal.Entry> entries = new LearningJournal(file).replay();
+        assertEquals(2, entries.size());
+        assertEquals("", entries.get(0).getPath());
+        assertEquals("dog", entries.get(0).getAnimal());
+        assertEquals("barks", entries.get(0).getCharacteristic());
+        assertEquals("YN", entries.get(1).getPath());
+        assertEquals("cr\u00e8me", entries.get(1).getAnimal());
+    }
+
+    /**
+     * Test of replay method, of class LearningJournal, with the last entry
+     * torn by a crash.
+     */
+    @Test
+    public void testReplay_2() throws IOException {
+        journal.record("Y", "cat", "purrs");
+        long complete = journal.size();
+        journal.record("N", "fish", "swims");
+        journal.close();
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] torn = new byte[bytes.length - 3];
+        System.arraycopy(bytes, 0, torn, 0, torn.length);
+        Files.write(file, torn);
+
+        LearningJournal reopened = new LearningJournal(file);
+        List<LearningJournal.Entry> entries = reopened.replay();
+        assertEquals(1, entries.size());
+        assertEquals("cat", entries.get(0).getAnimal());
+        assertEquals(complete, Files.size(file));
+
+        reopened.record("N", "fish", "swims");
+        reopened.close();
+        assertEquals(2, new LearningJournal(file).replay().size());
+    }
+
+    /**
+     * Test of sync method, of class LearningJournal, with many threads
+     * appending at once.
+     */
+    @Test
+    public void testSync() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int id = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 50; i++) {
+                        journal.record("Y", "animal " + id + " " + i, "trait");
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400, journal.replay().size());
+    }
+
+    /**
+     * Test of reset method, of class LearningJournal.
+     */
+    @Test
+    public void testReset() throws IOException {
+        journal.record("", "dog", "barks");
+        journal.reset();
+        assertEquals(0, journal.size());
+        journal.record("", "cat", "purrs");
+        List<LearningJournal.Entry> entries = journal.replay();
+        assertEquals(1, entries.size());
+        assertEquals("cat", entries.get(0).getAnimal());
+    }
+
+    /**
+     * Test of discard method, of class LearningJournal, keeping the entries
+     * appended after the saved tree was taken.
+     */
+    @Test
+    public void testDiscard() throws IOException {
+        journal.record("", "dog", "barks");
+        long saved = journal.size();
+        journal.record("Y", "cat", "purrs");
+        journal.discard(saved);
+        journal.record("N", "cow", "moos");
+        List<LearningJournal.Entry> entries = journal.replay();
+        assertEquals(2, entries.size());
+        assertEquals("cat", entries.get(0).getAnimal());
+        assertEquals("cow", entries.get(1).getAnimal());
+        journal.discard(journal.size());
+        assertTrue(journal.replay().isEmpty());
+    }
+}
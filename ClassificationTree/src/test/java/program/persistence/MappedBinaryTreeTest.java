@@ -0,0 +1,223 @@
+package program.persistence;
+
+import program.Datum;
+import program.structures.Node;
+import program.structures.impl.ConcurrentLinkedBinaryTree;
+import program.structures.impl.LinkedBinaryTree;
+import program.traversals.BreadthFirstTraversal;
+import program.traversals.PreOrderTraversal;
+import program.traversals.commands.InOrderEnumerationCommand;
+import program.traversals.commands.IndexedSaveCommand;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MappedBinaryTreeTest {
+
+    private Path file;
+    private LinkedBinaryTree<Datum> source;
+
+    public MappedBinaryTreeTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tree", ".idx");
+        source = new LinkedBinaryTree<>();
+        Node<Datum> root = source.setRoot(new Datum("furry"));
+        Node<Datum> striped = source.addLeft(root, new Datum("striped"));
+        Node<Datum> shelled = source.addRight(root, new Datum("shelled"));
+        source.addLeft(striped, new Datum("a Tiger"));
+        source.addRight(striped, new Datum("a dog"));
+        Node<Datum> clawed = source.addLeft(shelled, new Datum("clawed"));
+        source.addRight(shelled, new Datum("a snake"));
+        source.addLeft(clawed, new Datum("a cr\u00e8be"));
+
+        BreadthFirstTraversal<Datum> bft = new BreadthFirstTraversal<>(source);
+        bft.addCommand(new InOrderEnumerationCommand(source));
+        try (IndexedTreeWriter writer = new IndexedTreeWriter(file, source.size(), 40)) {
+            bft.addCommand(new IndexedSaveCommand(writer));
+            bft.execute();
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Test of the MappedBinaryTree constructor, which should only create the
+     * root.
+     */
+    @Test
+    public void testMappedBinaryTree() throws IOException {
+        assertEquals(TreeFormat.INDEXED, TreeFormat.detect(file));
+        MappedBinaryTree tree = new MappedBinaryTree(file);
+        assertEquals(8, tree.size());
+        assertEquals(1, tree.materializedCount());
+        assertEquals("furry", tree.root().getElement().getPrompt());
+        assertEquals(3, tree.root().getElement().getNumber());
+    }
+
+    /**
+     * Test of left and right, which should create nodes only along the path
+     * that is followed.
+     */
+    @Test
+    public void testLeft() throws IOException {
+        MappedBinaryTree tree = new MappedBinaryTree(file);
+        Node<Datum> shelled = tree.right(tree.root());
+        Node<Datum> clawed = tree.left(shelled);
+        assertEquals("shelled", shelled.getElement().getPrompt());
+        assertEquals("clawed", clawed.getElement().getPrompt());
+        assertEquals("l", clawed.getElement().getSide());
+        assertEquals("a cr\u00e8be", tree.left(clawed).getElement().getPrompt());
+        assertNull(tree.right(clawed));
+        assertEquals(6, tree.materializedCount());
+    }
+
+    /**
+     * Test of traversing the whole mapped tree, which should match the tree
+     * it was saved from.
+     */
+    @Test
+    public void testTraverse() throws IOException {
+        MappedBinaryTree tree = new MappedBinaryTree(file);
+        StringBuilder expected = new StringBuilder();
+        for (Node<Datum> node : new PreOrderTraversal<>(source).traverse()) {
+            expected.append(node.getElement().getNumber()).append(node.getElement().getPrompt()).append(',');
+        }
+        StringBuilder actual = new StringBuilder();
+        for (Node<Datum> node : new PreOrderTraversal<>(tree).traverse()) {
+            actual.append(node.getElement().getNumber()).append(node.getElement().getPrompt()).append(',');
+        }
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(8, tree.materializedCount());
+    }
+
+    /**
+     * Test of changing a mapped tree, which should only change the tree in
+     * memory.
+     */
+    @Test
+    public void testAddLeft() throws IOException {
+        MappedBinaryTree tree = new MappedBinaryTree(file);
+        Node<Datum> snake = tree.right(tree.right(tree.root()));
+        tree.addRight(snake, new Datum("a snake"));
+        tree.addLeft(snake, new Datum("a worm"));
+        snake.setElement(new Datum("legless"));
+        assertEquals(10, tree.size());
+        assertEquals("legless", snake.getElement().getPrompt());
+        assertEquals("a worm", tree.left(snake).getElement().getPrompt());
+
+        MappedBinaryTree reopened = new MappedBinaryTree(file);
+        assertEquals(8, reopened.size());
+        assertEquals("a snake", reopened.right(reopened.right(reopened.root())).getElement().getPrompt());
+    }
+
+    /**
+     * Test of copyTo method, of class MappedBinaryTree, which should copy the
+     * whole file without creating any mapped nodes.
+     */
+    @Test
+    public void testCopyTo() throws IOException {
+        MappedBinaryTree tree = new MappedBinaryTree(file);
+        ConcurrentLinkedBinaryTree<Datum> copy = new ConcurrentLinkedBinaryTree<>();
+        copy.setRoot(new Datum("replaced"));
+        tree.copyTo(copy);
+        assertEquals(1, tree.materializedCount());
+        assertEquals(8, copy.size());
+        StringBuilder expected = new StringBuilder();
+        for (Node<Datum> node : new PreOrderTraversal<>(source).traverse()) {
+            expected.append(node.getElement().getNumber()).append(node.getElement().getPrompt()).append(',');
+        }
+        StringBuilder actual = new StringBuilder();
+        for (Node<Datum> node : new PreOrderTraversal<>(copy).traverse()) {
+            actual.append(node.getElement().getNumber()).append(node.getElement().getPrompt()).append(',');
+        }
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    /**
+     * Test of graft method on a mapped tree, with readers walking it while
+     * learns are applied, which should see every node created once.
+     */
+    @Test
+    public void testGraft() throws Exception {
+        MappedBinaryTree tree = new MappedBinaryTree(file);
+        List<Thread> readers = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    for (Node<Datum> node : new PreOrderTraversal<>(tree).traverse()) {
+                        assertNotNull(node.getElement());
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        Node<Datum> snake = tree.right(tree.right(tree.root()));
+        tree.graft(snake, new Datum("legless"), new Datum("a worm"), new Datum("a snake"));
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(10, tree.size());
+        assertEquals(8, tree.materializedCount());
+        assertEquals(10, tree.statistics(tree.root()).getSize());
+        assertEquals("a worm", tree.left(snake).getElement().getPrompt());
+    }
+
+    /**
+     * Test of close method, of class MappedBinaryTree, after which nodes
+     * already created can be read but no others.
+     */
+    @Test
+    public void testClose_2() throws IOException {
+        MappedBinaryTree tree = new MappedBinaryTree(file);
+        Node<Datum> striped = tree.left(tree.root());
+        tree.close();
+        assertEquals("striped", striped.getElement().getPrompt());
+        try {
+            tree.left(striped);
+            fail("A closed mapping should not be read");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMappedBinaryTree_2() throws IOException {
+        Files.write(file, "-1:0:r:root\n".getBytes("UTF-8"));
+        new MappedBinaryTree(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testClose() throws IOException {
+        try (IndexedTreeWriter writer = new IndexedTreeWriter(file, 2)) {
+            writer.write(0, false, false, "only");
+        }
+    }
+}
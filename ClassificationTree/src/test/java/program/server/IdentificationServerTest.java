@@ -0,0 +1,256 @@
+package program.server;
+
+import program.ClassificationTree;
+import program.IdentificationSession;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IdentificationServerTest {
+
+    private Path file;
+    private ClassificationTree tree;
+    private IdentificationServer server;
+    private String base;
+
+    public IdentificationServerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tree", ".txt");
+        Files.write(file, ("-1:1:r:furry\n"
+                + "1:0:l:a Tiger\n"
+                + "1:2:r:a snake\n").getBytes("UTF-8"));
+        tree = new ClassificationTree(file.toString());
+        server = new IdentificationServer(tree, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+        tree.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Paths.get(file + ".journal"));
+    }
+
+    private String request(String method, String path, String body, int expectedStatus) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(expectedStatus, connection.getResponseCode());
+        InputStream stream = connection.getResponseCode() < 400 ? connection.getInputStream()
+                : connection.getErrorStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = stream) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                response.write(buffer, 0, read);
+            }
+        }
+        return new String(response.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String field(String response, String name) {
+        for (String line : response.split("\n")) {
+            if (line.startsWith(name + ": ")) {
+                return line.substring(name.length() + 2);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Test of a whole session, learning a new animal.
+     */
+    @Test
+    public void testSession() throws IOException {
+        String started = request("POST", "/sessions", "", 201);
+        String id = field(started, "session");
+        assertEquals("Is this animal furry? (Y/N) > ", field(started, "prompt"));
+
+        assertEquals("QUESTION", field(request("POST", "/sessions/" + id, "answer=N", 200), "state"));
+        String unknown = request("POST", "/sessions/" + id, "answer=N", 200);
+        assertEquals("NEW_ANIMAL", field(unknown, "state"));
+        assertNotNull(field(unknown, "message"));
+        request("POST", "/sessions/" + id, "answer=fish", 200);
+        String learned = request("POST", "/sessions/" + id, "answer=" + URLEncoder.encode("has fins", "UTF-8"), 200);
+        assertEquals("ANOTHER", field(learned, "state"));
+        assertEquals("a fish", tree.classify(new boolean[]{false, true}).getPrompt());
+
+        assertEquals("DONE", field(request("POST", "/sessions/" + id, "answer=N", 200), "state"));
+        assertEquals(0, server.getSessions().size());
+        request("POST", "/sessions/" + id, "answer=Y", 404);
+    }
+
+    /**
+     * Test of the learn and save endpoints.
+     */
+    @Test
+    public void testLearn() throws IOException {
+        request("POST", "/learn", "path=Y&animal=cat&characteristic=purrs", 200);
+        assertEquals("a cat", tree.classify(new boolean[]{true, true}).getPrompt());
+        request("POST", "/learn", "path=Y&animal=dog&characteristic=barks", 400);
+        request("POST", "/learn", "path=Q&animal=dog&characteristic=barks", 400);
+        request("GET", "/learn", null, 405);
+
+        request("POST", "/save", "", 200);
+        assertEquals(5, Files.readAllLines(file).size());
+        assertEquals(0, Files.size(Paths.get(file + ".journal")));
+    }
+
+    /**
+     * Test of the complete endpoint.
+     */
+    @Test
+    public void testComplete() throws IOException {
+        request("POST", "/learn", "path=Y&animal=cat&characteristic=purrs", 200);
+        assertEquals("a Tiger", field(request("GET", "/complete?animal=ti", null, 200), "match"));
+        assertEquals("purrs", field(request("GET", "/complete?word=PUR", null, 200), "match"));
+        assertEquals("", request("GET", "/complete?characteristic=z", null, 200));
+        request("GET", "/complete?limit=0&animal=a", null, 400);
+        request("GET", "/complete", null, 400);
+    }
+
+    /**
+     * Test of answering a session whose lock is held elsewhere, which should
+     * wait for the lock and then answer.
+     */
+    @Test
+    public void testSessionLock() throws Exception {
+        String id = field(request("POST", "/sessions", "", 201), "session");
+        IdentificationSession session = server.getSessions().get(id);
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        Future<String> answered;
+        session.getLock().lock();
+        try {
+            answered = client.submit(() -> request("POST", "/sessions/" + id, "answer=N", 200));
+            try {
+                answered.get(200, TimeUnit.MILLISECONDS);
+                fail("Answer should wait for the session's lock");
+            } catch (TimeoutException e) {
+            }
+            assertEquals(IdentificationSession.State.QUESTION, session.getState());
+            assertEquals("Is this animal furry? (Y/N) > ", session.getPrompt());
+        } finally {
+            session.getLock().unlock();
+        }
+        assertEquals("Is this animal a snake? (Y/N) > ", field(answered.get(), "prompt"));
+        assertFalse(session.getLock().isLocked());
+        client.shutdown();
+    }
+
+    /**
+     * Test of two answers racing to end a session, where the second should
+     * find the session gone instead of being taken as a file name.
+     */
+    @Test
+    public void testSessionLock_2() throws Exception {
+        String id = field(request("POST", "/sessions", "", 201), "session");
+        request("POST", "/sessions/" + id, "answer=Y", 200);
+        assertEquals("ANOTHER", field(request("POST", "/sessions/" + id, "answer=Y", 200), "state"));
+        IdentificationSession session = server.getSessions().get(id);
+        Path named = Paths.get(file + ".client");
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        session.getLock().lock();
+        try {
+            statuses.add(clients.submit(() -> status("/sessions/" + id, "answer=N")));
+            statuses.add(clients.submit(() -> status("/sessions/" + id, "answer=" + URLEncoder.encode(named.toString(), "UTF-8"))));
+            while (session.getLock().getQueueLength() < 2) {
+                Thread.sleep(10);
+            }
+        } finally {
+            session.getLock().unlock();
+        }
+        int ok = 0;
+        for (Future<Integer> status : statuses) {
+            ok += status.get() == 200 ? 1 : 0;
+        }
+        clients.shutdown();
+        assertEquals(1, ok);
+        assertEquals(IdentificationSession.State.DONE, session.getState());
+        assertEquals(0, server.getSessions().size());
+        assertFalse(Files.exists(named));
+    }
+
+    private int status(String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection.getResponseCode();
+    }
+
+    /**
+     * Test of many clients identifying animals at once.
+     */
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            final boolean yes = i % 2 == 0;
+            results.add(clients.submit(() -> {
+                String id = field(request("POST", "/sessions", "", 201), "session");
+                request("POST", "/sessions/" + id, "answer=" + (yes ? "Y" : "N"), 200);
+                String found = request("POST", "/sessions/" + id, "answer=Y", 200);
+                request("DELETE", "/sessions/" + id, null, 200);
+                return field(found, "message");
+            }));
+        }
+        for (Future<String> result : results) {
+            assertEquals("Found your animal!", result.get());
+        }
+        clients.shutdown();
+        assertEquals(0, server.getSessions().size());
+
+        String stats = request("GET", "/stats", null, 200);
+        assertEquals("1200", field(stats, "hits"));
+        assertEquals("0", field(stats, "evictions"));
+        assertEquals("2", field(stats, "animals"));
+        assertEquals("1.0", field(stats, "average-questions"));
+    }
+}
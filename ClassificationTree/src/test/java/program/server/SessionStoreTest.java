@@ -0,0 +1,131 @@
+package program.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SessionStoreTest {
+
+    private AtomicLong clock;
+    private SessionStore<String> store;
+
+    public SessionStoreTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        clock = new AtomicLong();
+        store = new SessionStore<>(4, 100, 1, clock::get);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of get method, of class SessionStore.
+     */
+    @Test
+    public void testGet() {
+        assertTrue(store.putIfAbsent("a", "session a"));
+        assertFalse(store.putIfAbsent("a", "other"));
+        assertEquals("session a", store.get("a"));
+        assertNull(store.get("b"));
+        assertEquals(1, store.hitCount());
+        assertEquals(1, store.missCount());
+    }
+
+    /**
+     * Test of get method, of class SessionStore, with the time to live
+     * reset by each get.
+     */
+    @Test
+    public void testGet_2() {
+        store.putIfAbsent("a", "session a");
+        clock.set(80);
+        assertNotNull(store.get("a"));
+        clock.set(160);
+        assertNotNull(store.get("a"));
+        clock.set(261);
+        assertNull(store.get("a"));
+        assertEquals(1, store.expirationCount());
+        assertEquals(0, store.size());
+    }
+
+    /**
+     * Test of putIfAbsent method, of class SessionStore, evicting the least
+     * recently used session when full.
+     */
+    @Test
+    public void testPutIfAbsent() {
+        for (String id : new String[]{"a", "b", "c", "d"}) {
+            store.putIfAbsent(id, "session " + id);
+        }
+        store.get("a");
+        store.putIfAbsent("e", "session e");
+        assertEquals(4, store.size());
+        assertEquals(1, store.evictionCount());
+        assertNull("b was least recently used", store.get("b"));
+        assertNotNull(store.get("a"));
+        assertNotNull(store.get("e"));
+    }
+
+    /**
+     * Test of cleanUp method, of class SessionStore.
+     */
+    @Test
+    public void testCleanUp() {
+        store.putIfAbsent("a", "session a");
+        clock.set(50);
+        store.putIfAbsent("b", "session b");
+        clock.set(120);
+        store.cleanUp();
+        assertEquals(1, store.size());
+        assertEquals(1, store.expirationCount());
+        assertEquals("session b", store.remove("b"));
+        assertNull(store.remove("b"));
+    }
+
+    /**
+     * Test of the store shared by many threads, which should never hold more
+     * than its capacity.
+     */
+    @Test
+    public void testConcurrentUse() throws InterruptedException {
+        SessionStore<Integer> shared = new SessionStore<>(1000, 1, TimeUnit.MINUTES);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int offset = t * 10000;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    shared.putIfAbsent("s" + (offset + i), i);
+                    shared.get("s" + (offset + i / 2));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, shared.size());
+        assertEquals(40000 - 1000, shared.evictionCount());
+        assertEquals(40000, shared.hitCount() + shared.missCount());
+    }
+}
@@ -0,0 +1,246 @@
+package program.structures;
+
+import program.structures.impl.LinkedBinaryTree;
+import program.structures.impl.PersistentBinaryTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AncestryIndexTest {
+
+    private LinkedBinaryTree<Integer> tree;
+    private List<Node<Integer>> nodes;
+
+    public AncestryIndexTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        tree = new LinkedBinaryTree<>();
+        nodes = new ArrayList<>();
+        nodes.add(tree.setRoot(0));
+        Random random = new Random(17);
+        for (int i = 1; i < 2000; i++) {
+            Node<Integer> parent;
+            Node<Integer> child = null;
+            while (child == null) {
+                parent = nodes.get(random.nextInt(nodes.size()));
+                if (tree.left(parent) == null) {
+                    child = tree.addLeft(parent, i);
+                } else if (tree.right(parent) == null) {
+                    child = tree.addRight(parent, i);
+                }
+            }
+            nodes.add(child);
+        }
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of lowestCommonAncestor method, of class AncestryIndex, against
+     * walking parent links.
+     */
+    @Test
+    public void testLowestCommonAncestor() {
+        AncestryIndex<Integer> index = new AncestryIndex<>(tree);
+        assertEquals(nodes.size(), index.size());
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            Node<Integer> a = nodes.get(random.nextInt(nodes.size()));
+            Node<Integer> b = nodes.get(random.nextInt(nodes.size()));
+            assertSame(walk(a, b), index.lowestCommonAncestor(a, b));
+        }
+        assertSame(tree.root(), index.lowestCommonAncestor(tree.root(), nodes.get(1999)));
+    }
+
+    /**
+     * Test of isAncestor method, of class AncestryIndex.
+     */
+    @Test
+    public void testIsAncestor() {
+        AncestryIndex<Integer> index = new AncestryIndex<>(tree);
+        Random random = new Random(9);
+        for (int i = 0; i < 5000; i++) {
+            Node<Integer> a = nodes.get(random.nextInt(nodes.size()));
+            Node<Integer> b = nodes.get(random.nextInt(nodes.size()));
+            assertEquals(walk(a, b) == a, index.isAncestor(a, b));
+        }
+        assertTrue(index.isAncestor(nodes.get(7), nodes.get(7)));
+    }
+
+    /**
+     * Test of ancestor and depth methods, of class AncestryIndex.
+     */
+    @Test
+    public void testAncestor() {
+        AncestryIndex<Integer> index = new AncestryIndex<>(tree);
+        for (Node<Integer> node : nodes) {
+            int depth = tree.depth(node);
+            assertEquals(depth, index.depth(node));
+            assertSame(tree.root(), index.ancestor(node, depth));
+            assertNull(index.ancestor(node, depth + 1));
+            if (depth > 0) {
+                assertSame(tree.parent(node), index.ancestor(node, 1));
+            }
+        }
+    }
+
+    /**
+     * Test of lowestCommonAncestor and ancestor methods, of class
+     * AncestryIndex, on a chain too deep to walk for every question, with a
+     * leaf hanging off every node of the chain.
+     */
+    @Test
+    public void testLowestCommonAncestor_2() {
+        LinkedBinaryTree<Integer> deep = new LinkedBinaryTree<>();
+        List<Node<Integer>> chain = new ArrayList<>();
+        List<Node<Integer>> leaves = new ArrayList<>();
+        Node<Integer> node = deep.setRoot(0);
+        for (int i = 1; i <= 200000; i++) {
+            chain.add(node);
+            leaves.add(deep.addRight(node, -i));
+            node = deep.addLeft(node, i);
+        }
+        AncestryIndex<Integer> index = new AncestryIndex<>(deep);
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            int a = random.nextInt(leaves.size());
+            int b = random.nextInt(leaves.size());
+            assertSame(chain.get(Math.min(a, b)), index.lowestCommonAncestor(leaves.get(a), leaves.get(b)));
+            int below = Math.max(a, b);
+            assertSame(chain.get(a), index.ancestor(leaves.get(below), below + 1 - a));
+        }
+        assertEquals(200000, index.depth(node));
+        assertSame(chain.get(0), index.ancestor(node, 200000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIsAncestor_2() {
+        AncestryIndex<Integer> index = new AncestryIndex<>(tree);
+        Node<Integer> added = tree.addLeft(leaf(), 5000);
+        index.isAncestor(tree.root(), added);
+    }
+
+    /**
+     * Test of AncestryIndex constructor, with an empty tree and with the
+     * positions of a PersistentBinaryTree.
+     */
+    @Test
+    public void testAncestryIndex() {
+        assertEquals(0, new AncestryIndex<>(new LinkedBinaryTree<Integer>()).size());
+        PersistentBinaryTree<Integer> persistent = new PersistentBinaryTree<>();
+        persistent.graft(persistent.setRoot(0), 1, 2, 3);
+        Node<Integer> left = persistent.left(persistent.root());
+        persistent.graft(left, 4, 5, 6);
+        AncestryIndex<Integer> index = new AncestryIndex<>(persistent);
+        Node<Integer> deep = persistent.left(persistent.left(persistent.root()));
+        Node<Integer> right = persistent.right(persistent.root());
+        assertEquals(persistent.root(), index.lowestCommonAncestor(deep, right));
+        assertTrue(index.isAncestor(persistent.current(left), deep));
+    }
+
+    /**
+     * Test of addLeaf method, of class AncestryIndex, with nodes added all
+     * over the tree after it was indexed, some below others added later.
+     */
+    @Test
+    public void testAddLeaf() {
+        AncestryIndex<Integer> index = new AncestryIndex<>(tree);
+        Random random = new Random(11);
+        for (int i = 2000; i < 3500; i++) {
+            Node<Integer> parent;
+            Node<Integer> child = null;
+            while (child == null) {
+                parent = nodes.get(random.nextInt(nodes.size()));
+                if (tree.left(parent) == null) {
+                    child = tree.addLeft(parent, i);
+                } else if (tree.right(parent) == null) {
+                    child = tree.addRight(parent, i);
+                }
+            }
+            index.addLeaf(tree.parent(child), child);
+            nodes.add(child);
+        }
+        assertEquals(3500, index.size());
+        assertTrue(index.contains(nodes.get(3499)));
+        for (int i = 0; i < 10000; i++) {
+            Node<Integer> a = nodes.get(random.nextInt(nodes.size()));
+            Node<Integer> b = nodes.get(random.nextInt(nodes.size()));
+            Node<Integer> expected = walk(a, b);
+            assertSame(expected, index.lowestCommonAncestor(a, b));
+            assertEquals(expected == a, index.isAncestor(a, b));
+        }
+        for (Node<Integer> node : nodes) {
+            int depth = tree.depth(node);
+            assertEquals(depth, index.depth(node));
+            assertSame(tree.root(), index.ancestor(node, depth));
+            assertNull(index.ancestor(node, depth + 1));
+            if (depth > 0) {
+                assertSame(tree.parent(node), index.ancestor(node, 1));
+            }
+        }
+    }
+
+    /**
+     * Test of isDegraded method, of class AncestryIndex, which should hold
+     * once recorded nodes are stacked more than 11 deep on an index of 2000
+     * nodes.
+     */
+    @Test
+    public void testIsDegraded() {
+        AncestryIndex<Integer> index = new AncestryIndex<>(tree);
+        Node<Integer> node = leaf();
+        for (int i = 0; i < 12; i++) {
+            assertFalse(index.isDegraded());
+            Node<Integer> child = tree.addLeft(node, 5000 + i);
+            index.addLeaf(node, child);
+            node = child;
+        }
+        assertTrue(index.isDegraded());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddLeaf_2() {
+        AncestryIndex<Integer> index = new AncestryIndex<>(tree);
+        index.addLeaf(tree.root(), nodes.get(5));
+    }
+
+    private Node<Integer> walk(Node<Integer> a, Node<Integer> b) {
+        List<Node<Integer>> above = new ArrayList<>();
+        for (Node<Integer> n = a; n != null; n = tree.parent(n)) {
+            above.add(n);
+        }
+        for (Node<Integer> n = b; n != null; n = tree.parent(n)) {
+            if (above.contains(n)) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    private Node<Integer> leaf() {
+        for (Node<Integer> node : nodes) {
+            if (tree.left(node) == null) {
+                return node;
+            }
+        }
+        return null;
+    }
+}
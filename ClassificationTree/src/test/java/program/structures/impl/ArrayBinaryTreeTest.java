@@ -0,0 +1,226 @@
+package program.structures.impl;
+
+import program.structures.Node;
+import program.traversals.InOrderTraversal;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ArrayBinaryTreeTest {
+
+    private ArrayBinaryTree<Integer> fixture;
+
+    public ArrayBinaryTreeTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        fixture = new ArrayBinaryTree<>(2);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of setRoot method, of class ArrayBinaryTree.
+     */
+    @Test
+    public void testSetRoot() {
+        assertNull(fixture.root());
+
+        Node<Integer> node = fixture.setRoot(0);
+        assertNotNull(node);
+        assertEquals(node, fixture.root());
+        assertTrue(fixture.isRoot(node));
+    }
+
+    @Test
+    public void testSetRoot_2() {
+        fixture.setRoot(0);
+        fixture.addLeft(fixture.root(), 1);
+
+        assertNull(fixture.setRoot(null));
+        assertTrue(fixture.isEmpty());
+        assertEquals(0, fixture.size());
+    }
+
+    /**
+     * Test of addLeft and addRight methods, of class ArrayBinaryTree.
+     */
+    @Test
+    public void testAddChildren() {
+        Node<Integer> root = fixture.setRoot(0);
+        Node<Integer> left = fixture.addLeft(root, 1);
+        Node<Integer> right = fixture.addRight(root, 2);
+        fixture.addLeft(left, 3);
+
+        assertEquals(4, fixture.size());
+        assertEquals(left, fixture.left(root));
+        assertEquals(right, fixture.right(root));
+        assertEquals(root, fixture.parent(left));
+        assertEquals(root, right.getParent());
+        assertEquals(right, fixture.sibling(left));
+        assertEquals(2, fixture.numChildren(root));
+        assertTrue(fixture.isInternal(left));
+        assertTrue(fixture.isExternal(right));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddLeft_2() {
+        Node<Integer> root = fixture.setRoot(0);
+        fixture.addLeft(root, 1);
+        fixture.addLeft(root, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddRight_2() {
+        fixture.setRoot(0);
+        fixture.addRight(fixture.root(), null);
+    }
+
+    /**
+     * Test of insert method, of class ArrayBinaryTree.
+     */
+    @Test
+    public void testInsert() {
+        fixture.setRoot(0);
+        fixture.insert(1, fixture.root());
+        fixture.insert(2, fixture.root());
+        assertEquals(new Integer(1), fixture.left(fixture.root()).getElement());
+        assertEquals(new Integer(2), fixture.right(fixture.root()).getElement());
+        assertEquals(3, fixture.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsert_2() {
+        fixture.setRoot(0);
+        fixture.insert(1, fixture.root());
+        fixture.insert(2, fixture.root());
+        fixture.insert(3, fixture.root());
+    }
+
+    /**
+     * Test of validate method, of class ArrayBinaryTree.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate() {
+        fixture.validate(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate_2() {
+        ArrayBinaryTree<Integer> other = new ArrayBinaryTree<>();
+        fixture.setRoot(0);
+        fixture.validate(other.setRoot(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate_3() {
+        fixture.validate(new LinkedBinaryTree<Integer>().setRoot(0));
+    }
+
+    /**
+     * Test of validate method, of class ArrayBinaryTree, rejecting the
+     * position of a removed node after its slot is reused.
+     */
+    @Test
+    public void testValidate_4() {
+        Node<Integer> root = fixture.setRoot(4);
+        Node<Integer> removed = fixture.addLeft(root, 2);
+        assertTrue(fixture.remove(2, root));
+        Node<Integer> reused = fixture.addRight(root, 8);
+        assertEquals(((ArrayBinaryTree.ArrayNode<Integer>) removed).getIndex(),
+                ((ArrayBinaryTree.ArrayNode<Integer>) reused).getIndex());
+        assertFalse(reused.equals(removed));
+        try {
+            fixture.validate(removed);
+            fail("Stale position should be rejected");
+        } catch (IllegalArgumentException e) {
+        }
+        assertEquals(reused, fixture.validate(reused));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate_5() {
+        Node<Integer> old = fixture.setRoot(4);
+        fixture.setRoot(5);
+        fixture.validate(old);
+    }
+
+    /**
+     * Test of remove method, of class ArrayBinaryTree.
+     */
+    @Test
+    public void testRemove() {
+        Node<Integer> root = fixture.setRoot(4);
+        Node<Integer> left = fixture.addLeft(root, 2);
+        Node<Integer> right = fixture.addRight(root, 6);
+        fixture.addLeft(left, 1);
+        fixture.addRight(left, 3);
+        fixture.addLeft(right, 5);
+        fixture.addRight(right, 7);
+
+        assertTrue("Returned false on removal of internal node", fixture.remove(2, root));
+        assertEquals(6, fixture.size());
+        assertEquals(new Integer(3), fixture.left(root).getElement());
+        assertFalse("Returned true on removal of missing item", fixture.remove(9, root));
+
+        Integer[] expected = {1, 3, 4, 5, 6, 7};
+        int i = 0;
+        for (Node<Integer> n : new InOrderTraversal<>(fixture).traverse()) {
+            assertEquals(expected[i], n.getElement());
+            i++;
+        }
+        assertEquals(expected.length, i);
+    }
+
+    @Test
+    public void testRemove_2() {
+        Node<Integer> root = fixture.setRoot(4);
+        Node<Integer> left = fixture.addLeft(root, 2);
+        fixture.addLeft(left, 1);
+
+        assertTrue(fixture.remove(2, root));
+        assertEquals(new Integer(1), fixture.left(root).getElement());
+        assertEquals(root, fixture.parent(fixture.left(root)));
+
+        Node<Integer> reused = fixture.addRight(root, 8);
+        assertEquals(3, fixture.size());
+        assertEquals(reused, fixture.right(root));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemove_3() {
+        Node<Integer> root = fixture.setRoot(4);
+        Node<Integer> left = fixture.addLeft(root, 2);
+        fixture.remove(2, root);
+        fixture.left(left);
+    }
+
+    /**
+     * Test of depth and subTreeSize methods, of class ArrayBinaryTree.
+     */
+    @Test
+    public void testDepthAndSubTreeSize() {
+        Node<Integer> node = fixture.setRoot(0);
+        for (int i = 1; i < 100; i++) {
+            node = fixture.addRight(node, i);
+        }
+        assertEquals(99, fixture.depth(node));
+        assertEquals(100, fixture.subTreeSize(fixture.root()));
+        assertEquals(1, fixture.subTreeSize(node));
+        assertTrue(fixture.isLastChild(node));
+    }
+}
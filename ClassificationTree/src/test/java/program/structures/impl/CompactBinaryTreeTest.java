@@ -0,0 +1,187 @@
+package program.structures.impl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.traversals.PreOrderTraversal;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CompactBinaryTreeTest {
+
+    private CompactBinaryTree<Integer> fixture;
+
+    public CompactBinaryTreeTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        fixture = new CompactBinaryTree<>();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of addLeft and addRight methods, of class CompactBinaryTree,
+     * promoting a leaf which is still held.
+     */
+    @Test
+    public void testAddChildren() {
+        Node<Integer> leaf = fixture.setRoot(50);
+        assertTrue(fixture.isExternal(leaf));
+        Node<Integer> right = fixture.addRight(leaf, 75);
+        Node<Integer> left = fixture.addLeft(leaf, 25);
+        assertEquals(fixture.root(), leaf);
+        assertTrue(fixture.isRoot(leaf));
+        assertTrue(fixture.isInternal(leaf));
+        assertEquals(left, fixture.left(leaf));
+        assertEquals(right, fixture.sibling(left));
+        assertEquals(fixture.root(), fixture.parent(right));
+        assertEquals(3, fixture.size());
+        assertEquals(1, fixture.depth(right));
+
+        leaf.setElement(40);
+        assertEquals(Integer.valueOf(40), fixture.root().getElement());
+        assertEquals(Integer.valueOf(40), leaf.getElement());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddLeft_2() {
+        Node<Integer> root = fixture.setRoot(50);
+        fixture.addLeft(root, 25);
+        fixture.addLeft(root, 20);
+    }
+
+    /**
+     * Test of remove method, of class CompactBinaryTree.
+     */
+    @Test
+    public void testRemove() {
+        Node<Integer> root = fixture.setRoot(50);
+        Node<Integer> left = fixture.addLeft(root, 25);
+        fixture.addRight(root, 75);
+        Node<Integer> kept = fixture.addRight(left, 30);
+        assertTrue(fixture.remove(25, root));
+        assertFalse(fixture.remove(25, root));
+        assertEquals(kept.getElement(), fixture.left(root).getElement());
+        assertEquals(fixture.root(), fixture.parent(fixture.left(root)));
+        assertEquals(3, fixture.size());
+        try {
+            fixture.validate(left);
+            fail("Removed node should be rejected");
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            fixture.validate(kept);
+            fail("Node whose parent was removed should be rejected");
+        } catch (IllegalArgumentException e) {
+        }
+
+        assertTrue(fixture.remove(50, root));
+        assertEquals(Integer.valueOf(75), fixture.root().getElement());
+        assertEquals(2, fixture.subTreeSize(root));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate() {
+        CompactBinaryTree<Integer> other = new CompactBinaryTree<>();
+        fixture.setRoot(50);
+        fixture.validate(other.setRoot(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate_2() {
+        Node<Integer> old = fixture.addLeft(fixture.setRoot(50), 25);
+        fixture.setRoot(50);
+        fixture.validate(old);
+    }
+
+    /**
+     * Test of the footprint of the stored nodes of a CompactBinaryTree holding
+     * a complete tree, half of whose nodes are leaves as in a classification
+     * tree, against nodes holding only an element, a parent and two children.
+     * The sizes are estimated from the fields of the node classes with the
+     * layout of a 64 bit JVM using compressed references, and grow linearly
+     * with the number of nodes, so the saving holds for a tree of any size.
+     */
+    @Test
+    public void testFootprint() {
+        int levels = 16;
+        build(fixture, levels);
+        int nodes = (1 << levels) - 1;
+        assertEquals(nodes, fixture.size());
+        long compact = 0;
+        for (Node<Integer> node : new PreOrderTraversal<>(fixture).traverse()) {
+            compact += shallowSize(((Object) ((CompactBinaryTree.Position<Integer>) node).cell).getClass());
+        }
+        long baseline = nodes * shallowSize(BaselineNode.class);
+        assertTrue(compact * 10 <= baseline * 7);
+    }
+
+    /**
+     * A linked node with only the fields a binary tree node needs.
+     */
+    private static final class BaselineNode {
+
+        Object element;
+        BaselineNode parent;
+        BaselineNode left;
+        BaselineNode right;
+    }
+
+    private static void build(BinaryTree<Integer> tree, int levels) {
+        Deque<Node<Integer>> frontier = new ArrayDeque<>();
+        frontier.add(tree.setRoot(0));
+        for (int level = 1; level < levels; level++) {
+            for (int i = frontier.size(); i > 0; i--) {
+                Node<Integer> p = frontier.poll();
+                frontier.add(tree.addLeft(p, level));
+                frontier.add(tree.addRight(p, level));
+            }
+        }
+    }
+
+    /**
+     * @return The size of an instance of the class: a 12 byte header, then
+     * its fields, rounded up to a multiple of 8 bytes.
+     */
+    private static long shallowSize(Class<?> type) {
+        long size = 12;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Class<?> t = field.getType();
+                if (t == long.class || t == double.class) {
+                    size += 8;
+                } else if (t == boolean.class || t == byte.class) {
+                    size += 1;
+                } else if (t == char.class || t == short.class) {
+                    size += 2;
+                } else {
+                    size += 4;
+                }
+            }
+        }
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,240 @@
+package program.structures.impl;
+
+import program.structures.Node;
+import program.structures.TreeStatistics;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConcurrentLinkedBinaryTreeTest {
+
+    private ConcurrentLinkedBinaryTree<Integer> tree;
+
+    public ConcurrentLinkedBinaryTreeTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        tree = new ConcurrentLinkedBinaryTree<>(4);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of addLeft method, of class ConcurrentLinkedBinaryTree.
+     */
+    @Test
+    public void testAddLeft() {
+        Node<Integer> root = tree.setRoot(50);
+        Node<Integer> left = tree.addLeft(root, 25);
+        tree.addRight(root, 75);
+        assertEquals(3, tree.size());
+        assertSame(left, tree.left(root));
+        assertEquals(Integer.valueOf(25), left.getElement());
+        assertSame(root, tree.parent(left));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddLeft_2() {
+        Node<Integer> root = tree.setRoot(50);
+        tree.addLeft(root, 25);
+        tree.addLeft(root, 30);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate() {
+        LinkedBinaryTree<Integer> other = new LinkedBinaryTree<>();
+        tree.setRoot(1);
+        tree.left(other.setRoot(1));
+    }
+
+    /**
+     * Test of remove method, of class ConcurrentLinkedBinaryTree, which holds
+     * every lock while calling node accessors.
+     */
+    @Test
+    public void testRemove() {
+        Node<Integer> root = tree.setRoot(50);
+        Node<Integer> left = tree.addLeft(root, 25);
+        tree.addRight(root, 75);
+        tree.addLeft(left, 10);
+        assertTrue(tree.remove(10, root));
+        assertEquals(3, tree.size());
+        assertNull(tree.left(left));
+        tree.removeMin(root);
+        assertEquals(2, tree.size());
+        assertNull(tree.left(root));
+    }
+
+    /**
+     * Test of graft method, of class ConcurrentLinkedBinaryTree, with a reader
+     * which must never see the new element without both of its children.
+     */
+    @Test
+    public void testGraft() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            Node<Integer> root = tree.setRoot(50);
+            Node<Integer> leaf = tree.addLeft(root, 25);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                try {
+                    while (leaf.getElement() != 30) {
+                        Thread.yield();
+                    }
+                    assertNotNull(tree.left(leaf));
+                    assertNotNull(tree.right(leaf));
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            reader.start();
+            assertSame(leaf, tree.graft(leaf, 30, 20, 25));
+            reader.join();
+            assertNull(failure.get());
+        }
+        Node<Integer> leaf = tree.left(tree.root());
+        assertEquals(4, tree.size());
+        assertEquals(Integer.valueOf(20), tree.left(leaf).getElement());
+        assertEquals(Integer.valueOf(25), tree.right(leaf).getElement());
+        assertSame(leaf, tree.parent(tree.right(leaf)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGraft_2() {
+        Node<Integer> root = tree.setRoot(50);
+        tree.addLeft(root, 25);
+        tree.graft(root, 30, 20, 25);
+    }
+
+    /**
+     * Test of the tree read by many threads while others add to it, with two
+     * threads racing to add the same child.
+     */
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        Node<Integer> root = tree.setRoot(0);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        final int writers = 4;
+        final int perWriter = 2000;
+        for (int w = 0; w < writers; w++) {
+            final int id = w;
+            threads.add(new Thread(() -> {
+                try {
+                    Node<Integer> node = root;
+                    for (int i = 0; i < perWriter; i++) {
+                        // every writer grows its own chain below the root's
+                        // children, racing for the first step
+                        Node<Integer> next = id % 2 == 0 ? tree.left(node) : tree.right(node);
+                        if (next == null) {
+                            try {
+                                next = id % 2 == 0 ? tree.addLeft(node, i) : tree.addRight(node, i);
+                            } catch (IllegalArgumentException e) {
+                                next = id % 2 == 0 ? tree.left(node) : tree.right(node);
+                            }
+                        }
+                        node = next;
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+        for (int r = 0; r < 4; r++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        Node<Integer> node = tree.root();
+                        while (node != null) {
+                            assertNotNull(node.getElement());
+                            Node<Integer> next = tree.left(node);
+                            node = next != null ? next : tree.right(node);
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(tree.subTreeSize(root), tree.size());
+    }
+
+    /**
+     * Test of statistics method, of class ConcurrentLinkedBinaryTree, whose
+     * ancestors are updated as threads graft below them at the same time and
+     * measured again on removal.
+     */
+    @Test
+    public void testStatistics() throws InterruptedException {
+        Node<Integer> root = tree.setRoot(0);
+        Node<Integer> left = tree.addLeft(root, -100000);
+        Node<Integer> right = tree.addRight(root, 100000);
+        List<Node<Integer>> leaves = new ArrayList<>();
+        leaves.add(tree.addLeft(left, -200000));
+        leaves.add(tree.addRight(left, -50000));
+        leaves.add(tree.addLeft(right, 50000));
+        leaves.add(tree.addRight(right, 200000));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (Node<Integer> start : leaves) {
+            threads.add(new Thread(() -> {
+                try {
+                    Node<Integer> node = start;
+                    int element = start.getElement();
+                    for (int i = 1; i <= 500; i++) {
+                        tree.graft(node, element, element - i, element + i);
+                        // alternate sides so the subtrees differ in shape
+                        node = i % 3 == 0 ? tree.right(node) : tree.left(node);
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(7 + 4 * 1000, tree.size());
+        assertStatistics(root);
+        assertStatistics(left);
+        assertStatistics(leaves.get(3));
+
+        Node<Integer> inner = tree.left(leaves.get(0));
+        assertTrue(tree.remove(inner.getElement(), leaves.get(0)));
+        assertStatistics(root);
+        tree.removeMin(right);
+        assertStatistics(root);
+        assertEquals(tree.size(), tree.subTreeSize(root));
+    }
+
+    private void assertStatistics(Node<Integer> node) {
+        assertEquals(TreeStatistics.measure(tree, node).toString(), tree.statistics(node).toString());
+    }
+}
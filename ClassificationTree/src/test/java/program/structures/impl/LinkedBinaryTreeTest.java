@@ -1,7 +1,11 @@
 package program.structures.impl;
 
 import program.structures.Node;
+import program.structures.TreeStatistics;
 import program.structures.impl.LinkedBinaryTree.BinaryTreeNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -160,6 +164,45 @@ public class LinkedBinaryTreeTest {
         });
     }
 
+    /**
+     * Test of validate method, of class LinkedBinaryTree, rejecting a removed
+     * node even though its parent is still set.
+     */
+    @Test
+    public void testValidate_5() {
+        Node<Integer> root = fixture.setRoot(50);
+        Node<Integer> left = fixture.addLeft(root, 25);
+        Node<Integer> kept = fixture.addRight(left, 30);
+        assertTrue(fixture.remove(25, root));
+        assertNotNull(left.getParent());
+        assertSame(kept, fixture.validate(kept));
+        try {
+            fixture.validate(left);
+            fail("Removed node should be rejected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate_6() {
+        Node<Integer> old = fixture.addLeft(fixture.setRoot(50), 25);
+        fixture.setRoot(50);
+        fixture.validate(old);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate_7() {
+        LinkedBinaryTree<Integer> other = new LinkedBinaryTree<>();
+        fixture.setRoot(50);
+        fixture.validate(other.addLeft(other.setRoot(50), 25));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate_8() {
+        BinaryTreeNode<Integer> root = fixture.validate(fixture.setRoot(50));
+        fixture.validate(new BinaryTreeNode<>(25, root, null, null));
+    }
+
     /**
      * Test of root method, of class LinkedBinaryTree.
      */
@@ -450,4 +493,104 @@ public class LinkedBinaryTreeTest {
     public void testNumChildren_2() {
         fixture.numChildren(null);
     }
+
+    /**
+     * Test of forEachChild method, of class LinkedBinaryTree, visiting the
+     * same children in the same order as children.
+     */
+    @Test
+    public void testForEachChild() {
+        Node<Integer> root = fixture.setRoot(50);
+        Node<Integer> right = fixture.addRight(root, 75);
+        List<Node<Integer>> visited = new ArrayList<>();
+        fixture.forEachChild(root, visited::add);
+        assertEquals(Arrays.asList(right), visited);
+
+        Node<Integer> left = fixture.addLeft(root, 25);
+        visited.clear();
+        fixture.forEachChild(root, visited::add);
+        assertEquals(Arrays.asList(left, right), visited);
+        for (Node<Integer> c : fixture.children(root)) {
+            assertSame(c, visited.remove(0));
+        }
+        fixture.forEachChild(left, visited::add);
+        assertTrue(visited.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForEachChild_2() {
+        fixture.forEachChild(null, c -> fail());
+    }
+
+    /**
+     * Test of depth and subTreeSize methods on a tree deep enough to overflow
+     * the stack of a recursive implementation.
+     */
+    @Test
+    public void testDepth() {
+        Node<Integer> node = fixture.setRoot(0);
+        for (int i = 1; i < 200000; i++) {
+            fixture.addLeft(node, -i);
+            node = fixture.addRight(node, i);
+        }
+        assertEquals(199999, fixture.depth(node));
+        assertEquals(399999, fixture.subTreeSize(fixture.root()));
+        assertEquals(1, fixture.subTreeSize(node));
+    }
+
+    /**
+     * Test of statistics method, of class LinkedBinaryTree, kept up to date
+     * as nodes are added and removed.
+     */
+    @Test
+    public void testStatistics() {
+        assertEquals(TreeStatistics.EMPTY, fixture.statistics());
+        Node<Integer> root = fixture.setRoot(50);
+        Node<Integer> left = fixture.addLeft(root, 25);
+        Node<Integer> right = fixture.addRight(root, 75);
+        TreeStatistics stats = fixture.statistics();
+        assertEquals(3, stats.getSize());
+        assertEquals(1, stats.getHeight());
+        assertEquals(2, stats.getLeafCount());
+        assertEquals(1.0, stats.getAverageLeafDepth(), 0.0);
+        assertEquals(0, stats.getImbalance());
+
+        Node<Integer> deep = fixture.addLeft(fixture.addRight(left, 30), 27);
+        stats = fixture.statistics();
+        assertEquals(5, stats.getSize());
+        assertEquals(3, stats.getHeight());
+        assertEquals(2, stats.getLeafCount());
+        assertEquals(2.0, stats.getAverageLeafDepth(), 0.0);
+        assertEquals(2, stats.getImbalance());
+        assertEquals(3, fixture.statistics(left).getSize());
+        assertEquals(3, fixture.depth(deep));
+
+        assertTrue(fixture.remove(25, root));
+        assertEquals(2, fixture.depth(deep));
+        assertSame(root, fixture.parent(fixture.left(root)));
+        stats = fixture.statistics();
+        assertEquals(4, stats.getSize());
+        assertEquals(2, stats.getHeight());
+        assertEquals(1.5, stats.getAverageLeafDepth(), 0.0);
+        assertEquals(TreeStatistics.measure(fixture, root).getLeafDepthSum(), stats.getLeafDepthSum());
+        assertEquals(1, fixture.statistics(right).getSize());
+    }
+
+    /**
+     * Test of minValue and removeMin methods, of class LinkedBinaryTree.
+     */
+    @Test
+    public void testRemoveMin() {
+        Node<Integer> root = fixture.setRoot(4);
+        Node<Integer> left = fixture.addLeft(root, 2);
+        fixture.addRight(root, 6);
+        fixture.addRight(left, 3);
+
+        assertEquals(new Integer(2), fixture.minValue(root).getElement());
+        fixture.removeMin(root);
+        assertEquals(3, fixture.size());
+        assertEquals(new Integer(3), fixture.left(root).getElement());
+        assertEquals(root, fixture.parent(fixture.left(root)));
+        assertEquals(new Integer(3), fixture.minValue(root).getElement());
+    }
 }
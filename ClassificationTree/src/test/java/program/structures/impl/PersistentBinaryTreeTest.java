@@ -0,0 +1,207 @@
+package program.structures.impl;
+
+import program.structures.Node;
+import program.traversals.PreOrderTraversal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PersistentBinaryTreeTest {
+
+    private PersistentBinaryTree<Integer> tree;
+
+    public PersistentBinaryTreeTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        tree = new PersistentBinaryTree<>();
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of addLeft method, of class PersistentBinaryTree, leaving nodes
+     * read before the change in the old version.
+     */
+    @Test
+    public void testAddLeft() {
+        Node<Integer> root = tree.setRoot(50);
+        Node<Integer> left = tree.addLeft(root, 25);
+        assertEquals(Integer.valueOf(25), left.getElement());
+        assertEquals(tree.root(), tree.parent(left));
+        assertNull("Old version changed", tree.left(root));
+        assertEquals(left, tree.left(tree.root()));
+        Node<Integer> right = tree.addRight(root, 75);
+        assertEquals(Integer.valueOf(25), tree.left(tree.parent(right)).getElement());
+        assertEquals(3, tree.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddLeft_2() {
+        Node<Integer> root = tree.setRoot(50);
+        tree.addLeft(root, 25);
+        tree.addLeft(root, 30);
+    }
+
+    /**
+     * Test of set method, of class PersistentBinaryTree.
+     */
+    @Test
+    public void testSet() {
+        Node<Integer> root = tree.setRoot(1);
+        Node<Integer> left = tree.addLeft(root, 2);
+        tree.addRight(root, 3);
+        left.setElement(20);
+        assertEquals(Integer.valueOf(2), left.getElement());
+        assertEquals(Integer.valueOf(20), tree.left(tree.root()).getElement());
+        assertEquals(Integer.valueOf(3), tree.right(tree.root()).getElement());
+        assertEquals(3, tree.size());
+    }
+
+    /**
+     * Test of snapshot method, of class PersistentBinaryTree.
+     */
+    @Test
+    public void testSnapshot() {
+        Node<Integer> root = tree.setRoot(1);
+        tree.addLeft(root, 2);
+        PersistentBinaryTree<Integer> snapshot = tree.snapshot();
+        tree.addRight(tree.root(), 3);
+        tree.set(tree.root(), 10);
+
+        assertEquals(2, snapshot.size());
+        assertEquals(Integer.valueOf(1), snapshot.root().getElement());
+        assertNull(snapshot.right(snapshot.root()));
+        assertEquals(3, tree.size());
+        assertEquals(Integer.valueOf(10), tree.root().getElement());
+    }
+
+    /**
+     * Test of graft method, of class PersistentBinaryTree.
+     */
+    @Test
+    public void testGraft() {
+        Node<Integer> root = tree.setRoot(1);
+        Node<Integer> leaf = tree.addLeft(root, 2);
+        Node<Integer> grafted = tree.graft(leaf, 3, 4, 5);
+        assertEquals(Integer.valueOf(3), grafted.getElement());
+        assertEquals(Integer.valueOf(4), tree.left(grafted).getElement());
+        assertEquals(Integer.valueOf(5), tree.right(grafted).getElement());
+        assertEquals(2, tree.depth(tree.left(grafted)));
+        assertEquals(4, tree.size());
+        assertTrue(tree.isExternal(leaf));
+        assertTrue(tree.isInternal(tree.current(leaf)));
+        assertEquals(2, tree.statistics(tree.root()).getLeafCount());
+        assertEquals(2, tree.statistics(tree.root()).getHeight());
+        assertEquals(4, tree.statistics(tree.root()).getLeafDepthSum());
+        assertEquals(1, tree.statistics(leaf).getSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGraft_2() {
+        Node<Integer> root = tree.setRoot(1);
+        Node<Integer> leaf = tree.addLeft(root, 2);
+        tree.graft(leaf, 3, 4, 5);
+        tree.graft(leaf, 6, 7, 8);
+    }
+
+    /**
+     * Test of remove method, of class PersistentBinaryTree, treating the tree
+     * as a binary search tree.
+     */
+    @Test
+    public void testRemove() {
+        Node<Integer> root = tree.setRoot(50);
+        Node<Integer> left = tree.addLeft(root, 25);
+        Node<Integer> right = tree.addRight(root, 75);
+        tree.addLeft(right, 60);
+        tree.addRight(right, 90);
+        tree.addLeft(tree.current(tree.left(tree.current(right))), 55);
+        tree.addLeft(left, 10);
+        assertEquals(7, tree.size());
+
+        assertTrue(tree.remove(50, tree.root()));
+        assertFalse(tree.remove(50, tree.root()));
+        assertEquals(6, tree.size());
+        assertEquals(Integer.valueOf(55), tree.root().getElement());
+        assertEquals(Integer.valueOf(60), tree.left(tree.right(tree.root())).getElement());
+        List<Integer> elements = new ArrayList<>();
+        for (Node<Integer> node : new PreOrderTraversal<>(tree).traverse()) {
+            elements.add(node.getElement());
+        }
+        assertEquals("[55, 25, 10, 75, 60, 90]", elements.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidate() {
+        tree.setRoot(1);
+        PersistentBinaryTree<Integer> other = new PersistentBinaryTree<>();
+        tree.left(other.setRoot(1));
+    }
+
+    @Test
+    public void testEquals() {
+        Node<Integer> root = tree.setRoot(1);
+        tree.addLeft(root, 2);
+        assertEquals(tree.left(tree.root()), tree.left(tree.root()));
+        assertEquals(tree.left(tree.root()).hashCode(), tree.left(tree.root()).hashCode());
+        assertFalse(root.equals(tree.root()));
+        assertTrue(tree.isLastChild(tree.left(tree.root())));
+    }
+
+    /**
+     * Test of root method, of class PersistentBinaryTree, with readers walking
+     * the tree while it grows.
+     */
+    @Test
+    public void testRoot() throws InterruptedException {
+        tree.setRoot(0);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 200; i++) {
+                        PersistentBinaryTree<Integer> snapshot = tree.snapshot();
+                        int count = 0;
+                        for (Node<Integer> node : new PreOrderTraversal<>(snapshot).traverse()) {
+                            count++;
+                        }
+                        assertEquals(snapshot.size(), count);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        Node<Integer> leaf = tree.root();
+        for (int i = 1; i < 500; i++) {
+            leaf = tree.left(tree.graft(leaf, i, 2 * i, -i));
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(String.valueOf(failure.get()), failure.get());
+        assertEquals(999, tree.size());
+        assertEquals(999, tree.subTreeSize(tree.root()));
+    }
+}
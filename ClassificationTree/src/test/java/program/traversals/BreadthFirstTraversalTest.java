@@ -3,6 +3,7 @@ package program.traversals;
 import program.structures.Node;
 import program.structures.Tree;
 import program.structures.impl.LinkedBinaryTree;
+import java.util.Iterator;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -99,4 +100,41 @@ public class BreadthFirstTraversalTest {
         tree.remove(left.getElement(), tree.root());
         fixture.traverseFrom(left);
     }
+
+    /**
+     * Test of lazyTraverse method, of class BreadthFirstTraversal.
+     */
+    @Test
+    public void testLazyTraverse() {
+        Iterator<Node<Integer>> lazy = fixture.lazyTraverse().iterator();
+        for (Node<Integer> node : fixture.traverse()) {
+            assertTrue("Lazy traversal ended early", lazy.hasNext());
+            assertSame("Lazy traversal order differs", node, lazy.next());
+        }
+        assertFalse("Lazy traversal has extra nodes", lazy.hasNext());
+    }
+
+    @Test
+    public void testLazyTraverse_2() {
+        tree = new LinkedBinaryTree<>();
+        fixture = new BreadthFirstTraversal<>(tree);
+        assertFalse("Traversal should be empty", fixture.lazyTraverse().iterator().hasNext());
+    }
+
+    /**
+     * Test of lazyTraverseFrom method, of class BreadthFirstTraversal.
+     */
+    @Test
+    public void testLazyTraverseFrom() {
+        Iterator<Node<Integer>> lazy = fixture.lazyTraverseFrom(left).iterator();
+        for (Node<Integer> node : fixture.traverseFrom(left)) {
+            assertSame("Lazy subtree traversal order differs", node, lazy.next());
+        }
+        assertFalse("Lazy subtree traversal has extra nodes", lazy.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLazyTraverseFrom_2() {
+        fixture.lazyTraverseFrom(null);
+    }
 }
@@ -5,6 +5,7 @@ import program.structures.Tree;
 import program.structures.impl.LinkedBinaryTree;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Iterator;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -122,4 +123,60 @@ public class PreOrderTraversalTest {
     public void testSubTreeTraversal_2() {
         Iterable<Node<Integer>> trav = fixture.subTreeTraverse(null);
     }
+
+    /**
+     * Test of lazyTraverse method, of class PreOrderTraversal.
+     */
+    @Test
+    public void testLazyTraverse() {
+        Iterator<Node<Integer>> lazy = fixture.lazyTraverse().iterator();
+        for (Node<Integer> node : fixture.traverse()) {
+            assertTrue("Lazy traversal ended early", lazy.hasNext());
+            assertSame("Lazy traversal order differs", node, lazy.next());
+        }
+        assertFalse("Lazy traversal has extra nodes", lazy.hasNext());
+    }
+
+    @Test
+    public void testLazyTraverse_2() {
+        tree = new LinkedBinaryTree<>();
+        fixture = new PreOrderTraversal<>(tree);
+        assertFalse("Traversal should be empty", fixture.lazyTraverse().iterator().hasNext());
+    }
+
+    /**
+     * Test of lazyTraverseFrom method, of class PreOrderTraversal.
+     */
+    @Test
+    public void testLazyTraverseFrom() {
+        Iterator<Node<Integer>> lazy = fixture.lazyTraverseFrom(left).iterator();
+        for (Node<Integer> node : fixture.traverseFrom(left)) {
+            assertSame("Lazy subtree traversal order differs", node, lazy.next());
+        }
+        assertFalse("Lazy subtree traversal has extra nodes", lazy.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLazyTraverseFrom_2() {
+        fixture.lazyTraverseFrom(null);
+    }
+
+    /**
+     * Test of traverse method on a degenerate tree deep enough to overflow the
+     * stack of a recursive traversal.
+     */
+    @Test
+    public void testTraverse_4() {
+        tree = new LinkedBinaryTree<>();
+        Node<Integer> node = tree.setRoot(0);
+        for (int i = 1; i < 200000; i++) {
+            node = ((LinkedBinaryTree<Integer>) tree).addRight(node, i);
+        }
+        fixture = new PreOrderTraversal<>(tree);
+        int count = 0;
+        for (Node<Integer> n : fixture.traverse()) {
+            count++;
+        }
+        assertEquals(200000, count);
+    }
 }
@@ -0,0 +1,113 @@
+package program.traversals;
+
+import program.structures.Node;
+import program.structures.Tree;
+import program.structures.impl.LinkedBinaryTree;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SubtreeSpliteratorTest {
+
+    private static final int SIZE = 1 << 12;
+
+    private Tree<Integer> tree;
+    private TreeTraversal<Integer> traversal;
+
+    public SubtreeSpliteratorTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        LinkedBinaryTree<Integer> binaryTree = new LinkedBinaryTree<>();
+        List<Node<Integer>> nodes = new ArrayList<>();
+        nodes.add(binaryTree.setRoot(0));
+        for (int i = 1; i < SIZE; i++) {
+            Node<Integer> parent = nodes.get((i - 1) / 2);
+            if (i % 2 == 1) {
+                nodes.add(binaryTree.addLeft(parent, i));
+            } else {
+                nodes.add(binaryTree.addRight(parent, i));
+            }
+        }
+        tree = binaryTree;
+        traversal = new PreOrderTraversal<>(tree);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of parallelStream method, of class AbstractTraversal.
+     */
+    @Test
+    public void testParallelStream() {
+        Set<Integer> seen = traversal.parallelStream()
+                .map(Node::getElement)
+                .collect(Collectors.toSet());
+        assertEquals(SIZE, seen.size());
+        assertEquals(SIZE, traversal.parallelStream().count());
+    }
+
+    /**
+     * Test of stream method, of class AbstractTraversal.
+     */
+    @Test
+    public void testStream() {
+        List<Node<Integer>> streamed = traversal.stream().collect(Collectors.toList());
+        int i = 0;
+        for (Node<Integer> node : traversal.traverse()) {
+            assertSame("Stream is not in traversal order", node, streamed.get(i));
+            i++;
+        }
+        assertEquals(SIZE, i);
+    }
+
+    /**
+     * Test of trySplit method, of class SubtreeSpliterator.
+     */
+    @Test
+    public void testTrySplit() {
+        Spliterator<Node<Integer>> first = traversal.spliterator();
+        Spliterator<Node<Integer>> second = first.trySplit();
+        assertNotNull(second);
+
+        Set<Node<Integer>> firstNodes = new HashSet<>();
+        Set<Node<Integer>> secondNodes = new HashSet<>();
+        first.forEachRemaining(firstNodes::add);
+        second.forEachRemaining(secondNodes::add);
+
+        assertTrue(firstNodes.contains(tree.root()));
+        assertTrue("Left subtree should be handed off", secondNodes.contains(((LinkedBinaryTree<Integer>) tree).left(tree.root())));
+        for (Node<Integer> node : secondNodes) {
+            assertFalse("Node visited by both halves", firstNodes.contains(node));
+        }
+        assertEquals(SIZE, firstNodes.size() + secondNodes.size());
+    }
+
+    @Test
+    public void testTrySplit_2() {
+        tree = new LinkedBinaryTree<>();
+        Spliterator<Node<Integer>> empty = new PreOrderTraversal<>(tree).spliterator();
+        assertNull(empty.trySplit());
+        assertFalse(empty.tryAdvance(n -> fail("Spliterator should be empty")));
+    }
+}
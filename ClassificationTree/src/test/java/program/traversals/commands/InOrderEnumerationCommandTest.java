@@ -0,0 +1,160 @@
+package program.traversals.commands;
+
+import program.Datum;
+import program.structures.BinaryTree;
+import program.structures.Node;
+import program.structures.Tree;
+import program.structures.impl.ArrayBinaryTree;
+import program.structures.impl.LinkedBinaryTree;
+import program.traversals.BreadthFirstTraversal;
+import program.traversals.InOrderTraversal;
+import program.traversals.PreOrderTraversal;
+import program.traversals.TreeTraversal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class InOrderEnumerationCommandTest {
+
+    private BinaryTree<Datum> tree;
+
+    public InOrderEnumerationCommandTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+        tree = new LinkedBinaryTree<>();
+        Node<Datum> root = tree.setRoot(new Datum("furry"));
+        Node<Datum> striped = tree.addLeft(root, new Datum("striped"));
+        Node<Datum> shelled = tree.addRight(root, new Datum("shelled"));
+        tree.addLeft(striped, new Datum("a Tiger"));
+        tree.addRight(striped, new Datum("a dog"));
+        Node<Datum> clawed = tree.addLeft(shelled, new Datum("clawed"));
+        tree.addRight(shelled, new Datum("a snake"));
+        Node<Datum> crab = tree.addLeft(clawed, new Datum("a crab"));
+        tree.addRight(clawed, new Datum("a turtle"));
+        tree.addRight(crab, new Datum("a lobster"));
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of execute method, of class InOrderEnumerationCommand.
+     */
+    @Test
+    public void testExecute() {
+        TreeTraversal<Datum> bft = new BreadthFirstTraversal<>(tree);
+        bft.setCommand(new InOrderEnumerationCommand(tree));
+        bft.execute();
+
+        int i = 0;
+        for (Node<Datum> node : new InOrderTraversal<>(tree).traverse()) {
+            assertEquals("Wrong number for " + node.getElement(), i, node.getElement().getNumber());
+            i++;
+        }
+        assertEquals(10, i);
+    }
+
+    /**
+     * Test of InOrderEnumerationCommand constructor, which should take the
+     * subtree sizes from a tree maintaining them instead of walking it.
+     */
+    @Test
+    public void testInOrderEnumerationCommand() {
+        for (Node<Datum> node : new PreOrderTraversal<>(tree).traverse()) {
+            node.getElement().setNumber(-1);
+        }
+        InOrderEnumerationCommand command = new InOrderEnumerationCommand(tree);
+        for (Node<Datum> node : new PreOrderTraversal<>(tree).traverse()) {
+            assertEquals(-1, node.getElement().getNumber());
+        }
+        TreeTraversal<Datum> bft = new BreadthFirstTraversal<>(tree);
+        bft.setCommand(command);
+        bft.execute();
+        assertEquals(3, tree.root().getElement().getNumber());
+    }
+
+    /**
+     * Test of execute method, of class InOrderEnumerationCommand, on a tree
+     * which does not maintain its subtree sizes.
+     */
+    @Test
+    public void testExecute_3() {
+        ArrayBinaryTree<Datum> array = new ArrayBinaryTree<>();
+        List<Node<Datum>> copies = new ArrayList<>();
+        List<Node<Datum>> sources = new ArrayList<>();
+        sources.add(tree.root());
+        copies.add(array.setRoot(new Datum(tree.root().getElement().getPrompt())));
+        for (int i = 0; i < sources.size(); i++) {
+            Node<Datum> source = sources.get(i);
+            if (tree.left(source) != null) {
+                sources.add(tree.left(source));
+                copies.add(array.addLeft(copies.get(i), new Datum(tree.left(source).getElement().getPrompt())));
+            }
+            if (tree.right(source) != null) {
+                sources.add(tree.right(source));
+                copies.add(array.addRight(copies.get(i), new Datum(tree.right(source).getElement().getPrompt())));
+            }
+        }
+        assertFalse(array.maintainsStatistics());
+        TreeTraversal<Datum> bft = new BreadthFirstTraversal<>(array);
+        bft.setCommand(new InOrderEnumerationCommand(array));
+        bft.execute();
+
+        int i = 0;
+        for (Node<Datum> node : new InOrderTraversal<>(array).traverse()) {
+            assertEquals("Wrong number for " + node.getElement(), i, node.getElement().getNumber());
+            i++;
+        }
+        assertEquals(10, i);
+    }
+
+    /**
+     * Test of addCommand method, of class AbstractTraversal, with the
+     * numbering visible to commands added after it.
+     */
+    @Test
+    public void testAddCommand() {
+        final List<String> visits = new ArrayList<>();
+        TreeTraversal<Datum> bft = new BreadthFirstTraversal<>(tree);
+        bft.addCommand(new InOrderEnumerationCommand(tree));
+        bft.addCommand(new TraversalCommand<Datum>() {
+            @Override
+            public void execute(Tree<Datum> t, Node<Datum> node) {
+                visits.add(node.getElement().getNumber() + ":" + node.getElement().getPrompt());
+            }
+        });
+        bft.execute();
+
+        assertEquals(10, visits.size());
+        assertEquals("3:furry", visits.get(0));
+        assertEquals("1:striped", visits.get(1));
+        assertEquals("8:shelled", visits.get(2));
+        assertEquals("5:a lobster", visits.get(9));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecute_2() {
+        new BreadthFirstTraversal<>(tree).execute();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddCommand_2() {
+        new BreadthFirstTraversal<>(tree).addCommand(null);
+    }
+}